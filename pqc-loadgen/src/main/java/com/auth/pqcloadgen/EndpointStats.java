@@ -0,0 +1,95 @@
+package com.auth.pqcloadgen;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies and outcomes of one endpoint (or client-side step). Latencies go into an HdrHistogram
+ * {@link Recorder} in microseconds, so recording is wait-free and needs no locking across virtual threads.
+ */
+final class EndpointStats {
+
+    private final String name;
+    private final Recorder recorder = new Recorder(3);
+    private final LongAdder ok = new LongAdder();
+    private final LongAdder clientErrors = new LongAdder();
+    private final LongAdder rateLimited = new LongAdder();
+    private final LongAdder serverErrors = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    EndpointStats(String name) {
+        this.name = name;
+    }
+
+    String name() {
+        return name;
+    }
+
+    /**
+     * Records a completed exchange.
+     *
+     * @param latencyNanos Time from sending the request to receiving the whole response.
+     * @param status       HTTP status, or 200 for client-side steps.
+     */
+    void record(long latencyNanos, int status) {
+        recorder.recordValue(Math.max(1, TimeUnit.NANOSECONDS.toMicros(latencyNanos)));
+        if (status == 429) {
+            rateLimited.increment();
+        } else if (status >= 500) {
+            serverErrors.increment();
+        } else if (status >= 400) {
+            clientErrors.increment();
+        } else {
+            ok.increment();
+        }
+    }
+
+    /**
+     * Records a request that got no response (connection error or timeout). It has no latency.
+     */
+    void failed() {
+        failures.increment();
+    }
+
+    /**
+     * Discards everything recorded so far, at the end of warm-up.
+     */
+    void reset() {
+        recorder.reset();
+        ok.reset();
+        clientErrors.reset();
+        rateLimited.reset();
+        serverErrors.reset();
+        failures.reset();
+    }
+
+    /**
+     * @return The latencies recorded since the last call or reset, in microseconds.
+     */
+    Histogram takeHistogram() {
+        return recorder.getIntervalHistogram();
+    }
+
+    long ok() {
+        return ok.sum();
+    }
+
+    long clientErrors() {
+        return clientErrors.sum();
+    }
+
+    long rateLimited() {
+        return rateLimited.sum();
+    }
+
+    long serverErrors() {
+        return serverErrors.sum();
+    }
+
+    long failures() {
+        return failures.sum();
+    }
+}
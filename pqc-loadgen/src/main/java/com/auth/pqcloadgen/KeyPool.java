@@ -0,0 +1,93 @@
+package com.auth.pqcloadgen;
+
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.pqc.jcajce.provider.BouncyCastlePQCProvider;
+import org.bouncycastle.pqc.jcajce.spec.DilithiumParameterSpec;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.Security;
+import java.security.Signature;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.IntStream;
+
+/**
+ * RSA and Dilithium3 key pairs shared by the virtual users. An RSA-3072 key pair takes hundreds of
+ * milliseconds to generate, so a few pairs are generated up front and handed out round-robin; the server
+ * does not care whether two users hold the same key. Signing works exactly like the Android client's
+ * {@code CryptoManager}: SHA256withRSA and Dilithium over the UTF-8 bytes of the challenge.
+ */
+final class KeyPool {
+
+    static {
+        Security.addProvider(new BouncyCastleProvider());
+        Security.addProvider(new BouncyCastlePQCProvider());
+    }
+
+    /**
+     * One user's keys, with the public halves already Base64-encoded as the server expects them.
+     */
+    record KeyMaterial(KeyPair rsa, KeyPair dilithium, String publicKeyRSA, String publicKeyDilithium) {
+
+        String signRSA(String challenge) {
+            return sign(rsa.getPrivate(), "SHA256withRSA", challenge);
+        }
+
+        String signDilithium(String challenge) {
+            return sign(dilithium.getPrivate(), "Dilithium", challenge);
+        }
+    }
+
+    private final List<KeyMaterial> keys;
+
+    /**
+     * Generates the key pairs in parallel.
+     *
+     * @param size    Number of distinct key pairs.
+     * @param rsaBits RSA modulus size.
+     */
+    KeyPool(int size, int rsaBits) {
+        this.keys = IntStream.range(0, size).parallel().mapToObj(i -> generate(rsaBits)).toList();
+    }
+
+    /**
+     * @return A random key pair from the pool.
+     */
+    KeyMaterial next() {
+        return keys.get(ThreadLocalRandom.current().nextInt(keys.size()));
+    }
+
+    private static KeyMaterial generate(int rsaBits) {
+        try {
+            KeyPairGenerator rsa = KeyPairGenerator.getInstance("RSA");
+            rsa.initialize(rsaBits);
+            KeyPair rsaKeyPair = rsa.generateKeyPair();
+
+            KeyPairGenerator dilithium = KeyPairGenerator.getInstance("Dilithium", "BCPQC");
+            dilithium.initialize(DilithiumParameterSpec.dilithium3);
+            KeyPair dilithiumKeyPair = dilithium.generateKeyPair();
+
+            return new KeyMaterial(rsaKeyPair, dilithiumKeyPair,
+                    Base64.getEncoder().encodeToString(rsaKeyPair.getPublic().getEncoded()),
+                    Base64.getEncoder().encodeToString(dilithiumKeyPair.getPublic().getEncoded()));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not generate client keys", e);
+        }
+    }
+
+    private static String sign(PrivateKey key, String algorithm, String challenge) {
+        try {
+            Signature signer = Signature.getInstance(algorithm);
+            signer.initSign(key);
+            signer.update(challenge.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(signer.sign());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not sign challenge with " + algorithm, e);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.auth.pqcloadgen;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Command-line options of the load generator, given as {@code --name=value}. Every option has a default.
+ *
+ * @param baseUrl        Server to load, e.g. {@code http://localhost:8080}.
+ * @param loginUrl       Where {@code /auth/login/start|finish} go; the base URL unless set, e.g. to a Netty
+ *                       front-end ({@code netty.port}) while registration and API calls stay on the base URL.
+ * @param rate           Scenario arrivals per second, independent of how fast the server answers.
+ * @param poisson        Exponentially distributed gaps between arrivals (true) or evenly spaced ones.
+ * @param duration       How long arrivals are generated after warm-up.
+ * @param warmup         Arrivals during this period run normally but are left out of the report.
+ * @param mix            Relative weight of each scenario.
+ * @param users          Users registered before the run, so logins have someone to log in as.
+ * @param keyPairs       Distinct key pairs shared by all virtual users; generating RSA keys is slow.
+ * @param rsaBits        RSA modulus size; the Android client uses 3072.
+ * @param maxInFlight    Scenarios allowed to run at once; arrivals beyond it are counted as dropped.
+ * @param requestTimeout Per-request timeout.
+ * @param cbor           Send and accept {@code application/cbor} bodies, keys and signatures as byte strings,
+ *                       instead of JSON.
+ * @param hgrmDirectory  If set, a full percentile distribution per endpoint is written there as .hgrm files.
+ */
+public record LoadGenConfig(URI baseUrl, URI loginUrl, double rate, boolean poisson, Duration duration, Duration warmup,
+                            Map<Scenario, Integer> mix, int users, int keyPairs, int rsaBits, int maxInFlight,
+                            Duration requestTimeout, boolean cbor, Path hgrmDirectory) {
+
+    public enum Scenario { REGISTER, LOGIN, API }
+
+    /**
+     * @param args Options as {@code --name=value}.
+     * @return The parsed configuration.
+     * @throws IllegalArgumentException If an option is unknown or malformed.
+     */
+    public static LoadGenConfig parse(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        options.put("base-url", "http://localhost:8080");
+        options.put("login-url", "");
+        options.put("rate", "50");
+        options.put("arrival", "poisson");
+        options.put("duration-seconds", "60");
+        options.put("warmup-seconds", "10");
+        options.put("mix", "register=10,login=70,api=20");
+        options.put("users", "100");
+        options.put("key-pairs", "16");
+        options.put("rsa-bits", "3072");
+        options.put("max-in-flight", "10000");
+        options.put("timeout-ms", "10000");
+        options.put("encoding", "json");
+        options.put("hgrm-dir", "");
+
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Expected --name=value, got: " + arg);
+            }
+            String name = arg.substring(2, separator);
+            if (!options.containsKey(name)) throw new IllegalArgumentException("Unknown option: --" + name);
+            options.put(name, arg.substring(separator + 1));
+        }
+
+        String arrival = options.get("arrival");
+        if (!arrival.equals("poisson") && !arrival.equals("uniform")) {
+            throw new IllegalArgumentException("--arrival must be poisson or uniform");
+        }
+        String encoding = options.get("encoding");
+        if (!encoding.equals("json") && !encoding.equals("cbor")) {
+            throw new IllegalArgumentException("--encoding must be json or cbor");
+        }
+        String hgrmDirectory = options.get("hgrm-dir");
+        URI baseUrl = URI.create(options.get("base-url").replaceAll("/+$", ""));
+        String loginUrl = options.get("login-url");
+
+        return new LoadGenConfig(
+                baseUrl,
+                loginUrl.isEmpty() ? baseUrl : URI.create(loginUrl.replaceAll("/+$", "")),
+                Double.parseDouble(options.get("rate")),
+                arrival.equals("poisson"),
+                Duration.ofSeconds(Long.parseLong(options.get("duration-seconds"))),
+                Duration.ofSeconds(Long.parseLong(options.get("warmup-seconds"))),
+                parseMix(options.get("mix")),
+                Integer.parseInt(options.get("users")),
+                Integer.parseInt(options.get("key-pairs")),
+                Integer.parseInt(options.get("rsa-bits")),
+                Integer.parseInt(options.get("max-in-flight")),
+                Duration.ofMillis(Long.parseLong(options.get("timeout-ms"))),
+                encoding.equals("cbor"),
+                hgrmDirectory.isEmpty() ? null : Path.of(hgrmDirectory));
+    }
+
+    /**
+     * Parses a mix such as {@code register=10,login=70,api=20}. Scenarios left out get weight 0.
+     */
+    private static Map<Scenario, Integer> parseMix(String value) {
+        Map<Scenario, Integer> mix = new EnumMap<>(Scenario.class);
+        for (Scenario scenario : Scenario.values()) mix.put(scenario, 0);
+
+        for (String part : value.split(",")) {
+            String[] weight = part.trim().split("=");
+            if (weight.length != 2) throw new IllegalArgumentException("Malformed --mix entry: " + part);
+            mix.put(Scenario.valueOf(weight[0].trim().toUpperCase(Locale.ROOT)), Integer.parseInt(weight[1].trim()));
+        }
+        if (mix.values().stream().mapToInt(Integer::intValue).sum() <= 0) {
+            throw new IllegalArgumentException("--mix needs at least one positive weight");
+        }
+        return mix;
+    }
+}
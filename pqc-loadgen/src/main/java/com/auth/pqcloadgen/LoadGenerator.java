@@ -0,0 +1,279 @@
+package com.auth.pqcloadgen;
+
+import com.auth.pqcloadgen.LoadGenConfig.Scenario;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load generator for pqcserver.
+ * <p>
+ * Scenario arrivals follow a fixed schedule ({@code --rate} per second, Poisson or evenly spaced) that does
+ * not wait for responses, so a slow server sees a growing backlog instead of a politely slowing client.
+ * Each arrival runs on its own virtual thread and picks a scenario by {@code --mix}:
+ * <ul>
+ *   <li>{@code register} - a new user registers ({@code /auth/register/start|finish}) and joins the pool;</li>
+ *   <li>{@code login} - an idle user logs in ({@code /auth/login/start|finish}), solving a puzzle if sent one;</li>
+ *   <li>{@code api} - an idle user calls {@code /api/user}, logging in first if it has no token yet.</li>
+ * </ul>
+ * A user runs one scenario at a time; when every user is busy a login or API arrival is counted as
+ * "no idle user" rather than queued. Arrivals beyond {@code --max-in-flight} running scenarios are dropped.
+ * <p>
+ * After warm-up the run reports, per endpoint, request counts by outcome, throughput and HdrHistogram
+ * latency percentiles, plus the client-side signing and puzzle-solving time. Usage:
+ * <pre>
+ *   mvn -q package -DskipTests
+ *   java -jar target/pqc-loadgen-0.0.1-SNAPSHOT.jar --base-url=http://localhost:8080 --rate=200 \
+ *        --duration-seconds=120 --mix=register=5,login=80,api=15 --users=2000
+ * </pre>
+ * The server's rate limiter keys on the client address; disable it ({@code ratelimit.enabled=false}) or
+ * expect most traffic from a single generator to be answered with 429. To compare the Netty front-end with
+ * the servlet stack, run the same load twice, with and without {@code --login-url=http://localhost:8090}.
+ */
+public class LoadGenerator {
+
+    private static final int SETUP_CONCURRENCY = 64;
+
+    private final LoadGenConfig config;
+    private final KeyPool keyPool;
+    private final PqcClient client;
+    private final ConcurrentLinkedDeque<VirtualUser> idleUsers = new ConcurrentLinkedDeque<>();
+    private final Semaphore inFlight;
+    private final Map<Scenario, LongAdder> started = counters();
+    private final Map<Scenario, LongAdder> failed = counters();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder noIdleUser = new LongAdder();
+    private final int totalWeight;
+
+    LoadGenerator(LoadGenConfig config) {
+        this.config = config;
+        this.keyPool = new KeyPool(config.keyPairs(), config.rsaBits());
+        this.client = new PqcClient(config.baseUrl(), config.loginUrl(), config.requestTimeout(), config.cbor());
+        this.inFlight = new Semaphore(config.maxInFlight());
+        this.totalWeight = config.mix().values().stream().mapToInt(Integer::intValue).sum();
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadGenConfig config = LoadGenConfig.parse(args);
+        System.out.printf("Generating %d key pairs (RSA-%d + Dilithium3)...%n", config.keyPairs(), config.rsaBits());
+        new LoadGenerator(config).run(System.out);
+    }
+
+    /**
+     * Registers the initial users, generates arrivals for warm-up plus the measured duration, waits for
+     * the scenarios still running and prints the report.
+     */
+    void run(PrintStream out) throws Exception {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            registerInitialUsers(executor, out);
+
+            out.printf("Running %s arrivals at %.1f/s against %s%s (%s): %ds warm-up, %ds measured%n",
+                    config.poisson() ? "Poisson" : "uniform", config.rate(), config.baseUrl(),
+                    config.loginUrl().equals(config.baseUrl()) ? "" : ", logins against " + config.loginUrl(),
+                    config.cbor() ? "CBOR" : "JSON",
+                    config.warmup().toSeconds(), config.duration().toSeconds());
+
+            long start = System.nanoTime();
+            long measureStart = start + config.warmup().toNanos();
+            long end = measureStart + config.duration().toNanos();
+            long maxLagNanos = 0;
+            boolean measuring = false;
+
+            for (long next = start; next < end; next += nextGapNanos()) {
+                long now = System.nanoTime();
+                if (now < next) {
+                    LockSupport.parkNanos(next - now);
+                } else {
+                    // Behind schedule: fire immediately, so the offered load stays what was asked for
+                    maxLagNanos = Math.max(maxLagNanos, now - next);
+                }
+                if (!measuring && next >= measureStart) {
+                    resetStats();
+                    maxLagNanos = 0;
+                    measuring = true;
+                }
+                dispatch(executor, chooseScenario());
+            }
+
+            long measuredNanos = System.nanoTime() - measureStart;
+            out.printf("Arrivals finished, waiting for %d running scenarios...%n",
+                    config.maxInFlight() - inFlight.availablePermits());
+            inFlight.tryAcquire(config.maxInFlight(), config.requestTimeout().toMillis() * 4, TimeUnit.MILLISECONDS);
+
+            report(out, measuredNanos, maxLagNanos);
+        }
+    }
+
+    // ===== Scenarios =====
+
+    private void dispatch(ExecutorService executor, Scenario scenario) {
+        if (!inFlight.tryAcquire()) {
+            dropped.increment();
+            return;
+        }
+        started.get(scenario).increment();
+        executor.execute(() -> {
+            try {
+                if (!runScenario(scenario)) failed.get(scenario).increment();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                inFlight.release();
+            }
+        });
+    }
+
+    /**
+     * @return False if any request of the scenario failed.
+     */
+    private boolean runScenario(Scenario scenario) throws InterruptedException {
+        if (scenario == Scenario.REGISTER) {
+            VirtualUser user = newUser();
+            boolean registered = client.register(user);
+            if (registered) idleUsers.addLast(user);
+            return registered;
+        }
+
+        VirtualUser user = idleUsers.pollFirst();
+        if (user == null) {
+            noIdleUser.increment();
+            return true;
+        }
+        try {
+            if (scenario == Scenario.LOGIN) return client.login(user);
+
+            if (user.token() == null && !client.login(user)) return false;
+            return client.fetchUser(user);
+        } finally {
+            idleUsers.addLast(user);
+        }
+    }
+
+    private Scenario chooseScenario() {
+        int pick = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (Map.Entry<Scenario, Integer> weight : config.mix().entrySet()) {
+            pick -= weight.getValue();
+            if (pick < 0) return weight.getKey();
+        }
+        throw new IllegalStateException("Scenario weights changed");
+    }
+
+    private long nextGapNanos() {
+        double meanNanos = 1e9 / config.rate();
+        return config.poisson()
+                ? (long) (-Math.log(1 - ThreadLocalRandom.current().nextDouble()) * meanNanos)
+                : (long) meanNanos;
+    }
+
+    private VirtualUser newUser() {
+        return new VirtualUser("loadgen-" + UUID.randomUUID(), keyPool.next());
+    }
+
+    /**
+     * Registers {@code --users} users before arrivals start, a bounded number at a time.
+     */
+    private void registerInitialUsers(ExecutorService executor, PrintStream out) throws InterruptedException {
+        out.printf("Registering %d users...%n", config.users());
+        Semaphore setup = new Semaphore(SETUP_CONCURRENCY);
+        LongAdder setupFailures = new LongAdder();
+
+        for (int i = 0; i < config.users(); i++) {
+            setup.acquire();
+            executor.execute(() -> {
+                try {
+                    VirtualUser user = newUser();
+                    if (client.register(user)) {
+                        idleUsers.addLast(user);
+                    } else {
+                        setupFailures.increment();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    setup.release();
+                }
+            });
+        }
+        setup.acquire(SETUP_CONCURRENCY);
+        setup.release(SETUP_CONCURRENCY);
+
+        if (setupFailures.sum() > 0) out.printf("  %d registrations failed%n", setupFailures.sum());
+    }
+
+    // ===== Report =====
+
+    private void resetStats() {
+        client.stats().values().forEach(EndpointStats::reset);
+        started.values().forEach(LongAdder::reset);
+        failed.values().forEach(LongAdder::reset);
+        dropped.reset();
+        noIdleUser.reset();
+    }
+
+    private void report(PrintStream out, long measuredNanos, long maxLagNanos) throws IOException {
+        double seconds = measuredNanos / 1e9;
+
+        out.println();
+        out.printf("%-16s %9s %9s %7s %7s %7s %7s %9s %9s %9s %9s %9s %9s%n", "endpoint", "count", "ok", "4xx", "429",
+                "5xx", "error", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (EndpointStats endpoint : client.stats().values()) {
+            Histogram histogram = endpoint.takeHistogram();
+            long count = histogram.getTotalCount() + endpoint.failures();
+            if (count == 0) continue;
+
+            out.printf("%-16s %9d %9d %7d %7d %7d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n", endpoint.name(), count,
+                    endpoint.ok(), endpoint.clientErrors(), endpoint.rateLimited(), endpoint.serverErrors(),
+                    endpoint.failures(), count / seconds,
+                    millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(90)),
+                    millis(histogram.getValueAtPercentile(99)), millis(histogram.getValueAtPercentile(99.9)),
+                    millis(histogram.getMaxValue()));
+            writeHgrm(endpoint.name(), histogram);
+        }
+
+        out.println();
+        for (Scenario scenario : Scenario.values()) {
+            long count = started.get(scenario).sum();
+            if (count == 0) continue;
+            out.printf("scenario %-9s started %9d  failed %7d  (%.1f/s)%n",
+                    scenario.name().toLowerCase(), count, failed.get(scenario).sum(), count / seconds);
+        }
+        out.printf("dropped (max in flight) %d, no idle user %d, max dispatch lag %.2f ms, measured %.1f s%n",
+                dropped.sum(), noIdleUser.sum(), maxLagNanos / 1e6, seconds);
+    }
+
+    /**
+     * Writes the full percentile distribution in HdrHistogram's .hgrm format, values in milliseconds.
+     */
+    private void writeHgrm(String endpoint, Histogram histogram) throws IOException {
+        if (config.hgrmDirectory() == null) return;
+
+        Files.createDirectories(config.hgrmDirectory());
+        String fileName = endpoint.replaceAll("[^A-Za-z0-9]+", "-") + ".hgrm";
+        try (PrintStream file = new PrintStream(Files.newOutputStream(config.hgrmDirectory().resolve(fileName)))) {
+            histogram.outputPercentileDistribution(file, 1000.0);
+        }
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private static Map<Scenario, LongAdder> counters() {
+        Map<Scenario, LongAdder> counters = new EnumMap<>(Scenario.class);
+        for (Scenario scenario : Scenario.values()) counters.put(scenario, new LongAdder());
+        return counters;
+    }
+}
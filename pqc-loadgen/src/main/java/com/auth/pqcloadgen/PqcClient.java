@@ -0,0 +1,248 @@
+package com.auth.pqcloadgen;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+/**
+ * Speaks the server's protocol the way the Android client does: JSON bodies, the username as a query
+ * parameter on every step but the first, and the JWT as a Bearer token for {@code /api/**}. Each request
+ * is timed into the {@link EndpointStats} of its endpoint. Calls block, so every virtual user runs on its
+ * own virtual thread. With CBOR, the same bodies are sent as {@code application/cbor} and keys and
+ * signatures travel as byte strings rather than Base64 text.
+ */
+final class PqcClient {
+
+    static final String REGISTER_START = "register/start";
+    static final String REGISTER_FINISH = "register/finish";
+    static final String LOGIN_START = "login/start";
+    static final String LOGIN_FINISH = "login/finish";
+    static final String API_USER = "api/user";
+    static final String PUZZLE = "client: puzzle";
+    static final String SIGN = "client: sign";
+
+    private final URI baseUrl;
+    private final URI loginUrl;
+    private final Duration requestTimeout;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final String mediaType;
+    private final Map<String, EndpointStats> stats = new LinkedHashMap<>();
+
+    PqcClient(URI baseUrl, URI loginUrl, Duration requestTimeout, boolean cbor) {
+        this.baseUrl = baseUrl;
+        this.loginUrl = loginUrl;
+        this.requestTimeout = requestTimeout;
+        this.objectMapper = cbor ? new CBORMapper() : new ObjectMapper();
+        this.mediaType = cbor ? "application/cbor" : "application/json";
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(requestTimeout)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        for (String endpoint : new String[]{REGISTER_START, REGISTER_FINISH, LOGIN_START, LOGIN_FINISH, API_USER, SIGN, PUZZLE}) {
+            stats.put(endpoint, new EndpointStats(endpoint));
+        }
+    }
+
+    /**
+     * @return Stats per endpoint, in protocol order.
+     */
+    Map<String, EndpointStats> stats() {
+        return stats;
+    }
+
+    // ===== Scenarios =====
+
+    /**
+     * Registers the user's keys and keeps the returned credential ID and token.
+     *
+     * @return True if the server accepted the registration.
+     */
+    boolean register(VirtualUser user) throws InterruptedException {
+        ObjectNode startBody = objectMapper.createObjectNode()
+                .put("username", user.username())
+                .put("email", user.username() + "@loadgen.invalid");
+        JsonNode challenge = post(REGISTER_START, "/auth/register/start", startBody);
+        if (challenge == null) return false;
+
+        String challengeText = challenge.path("challenge").asText();
+        long signStart = System.nanoTime();
+        ObjectNode finishBody = objectMapper.createObjectNode();
+        putBinary(finishBody, "publicKeyRSA", user.keys().publicKeyRSA());
+        putBinary(finishBody, "publicKeyDilithium", user.keys().publicKeyDilithium());
+        putBinary(finishBody, "signatureRSA", user.keys().signRSA(challengeText));
+        putBinary(finishBody, "signatureDilithium", user.keys().signDilithium(challengeText));
+        stats.get(SIGN).record(System.nanoTime() - signStart, 200);
+
+        JsonNode result = post(REGISTER_FINISH, "/auth/register/finish?username=" + encode(user.username()), finishBody);
+        if (result == null || !result.path("success").asBoolean()) return false;
+
+        user.credentialId(result.path("credentialId").isNumber() ? result.path("credentialId").asLong() : null);
+        user.token(result.path("token").asText(null));
+        return true;
+    }
+
+    /**
+     * Logs the user in, solving the proof-of-work puzzle if the server attached one, and keeps the token.
+     *
+     * @return True if the server accepted the login.
+     */
+    boolean login(VirtualUser user) throws InterruptedException {
+        String query = "?username=" + encode(user.username());
+        JsonNode challenge = post(LOGIN_START, loginUrl.resolve("/auth/login/start" + query), null);
+        if (challenge == null) return false;
+
+        String challengeText = challenge.path("challenge").asText();
+        long signStart = System.nanoTime();
+        ObjectNode finishBody = objectMapper.createObjectNode();
+        putBinary(finishBody, "signatureRSA", user.keys().signRSA(challengeText));
+        putBinary(finishBody, "signatureDilithium", user.keys().signDilithium(challengeText));
+        stats.get(SIGN).record(System.nanoTime() - signStart, 200);
+        finishBody.set("userid", challenge.path("userid"));
+        if (user.credentialId() != null) finishBody.put("credentialId", user.credentialId());
+
+        JsonNode puzzle = challenge.path("puzzle");
+        if (puzzle.isObject()) {
+            long solveStart = System.nanoTime();
+            ObjectNode solved = ((ObjectNode) puzzle).put("solution",
+                    solvePuzzle(puzzle.path("seed").asText(), puzzle.path("difficulty").asInt()));
+            stats.get(PUZZLE).record(System.nanoTime() - solveStart, 200);
+            finishBody.set("puzzle", solved);
+        }
+
+        JsonNode result = post(LOGIN_FINISH, loginUrl.resolve("/auth/login/finish" + query), finishBody);
+        if (result == null || !result.path("success").asBoolean()) return false;
+
+        user.token(result.path("token").asText(null));
+        return true;
+    }
+
+    /**
+     * Calls the protected user endpoint with the user's token.
+     *
+     * @return True if the server answered with the user's data.
+     */
+    boolean fetchUser(VirtualUser user) throws InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(baseUrl.resolve("/api/user"))
+                .timeout(requestTimeout)
+                .header("Authorization", "Bearer " + user.token())
+                .header("Accept", mediaType)
+                .GET()
+                .build();
+        return send(API_USER, request) != null;
+    }
+
+    // ===== HTTP =====
+
+    /**
+     * POSTs a body (or none) in the configured encoding and parses the response.
+     *
+     * @return The response body, or null if the request failed or the status was not 2xx.
+     */
+    private JsonNode post(String endpoint, String pathAndQuery, JsonNode body) throws InterruptedException {
+        return post(endpoint, baseUrl.resolve(pathAndQuery), body);
+    }
+
+    private JsonNode post(String endpoint, URI uri, JsonNode body) throws InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .timeout(requestTimeout)
+                .header("Content-Type", mediaType)
+                .header("Accept", mediaType)
+                .POST(body == null
+                        ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofByteArray(toBody(body)))
+                .build();
+        return send(endpoint, request);
+    }
+
+    private JsonNode send(String endpoint, HttpRequest request) throws InterruptedException {
+        EndpointStats endpointStats = stats.get(endpoint);
+        long start = System.nanoTime();
+        HttpResponse<byte[]> response;
+        try {
+            response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        } catch (IOException e) {
+            endpointStats.failed();
+            return null;
+        }
+        endpointStats.record(System.nanoTime() - start, response.statusCode());
+
+        if (response.statusCode() / 100 != 2) return null;
+        try {
+            return objectMapper.readTree(response.body());
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private byte[] toBody(JsonNode body) {
+        try {
+            return objectMapper.writeValueAsBytes(body);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not serialise request body", e);
+        }
+    }
+
+    /**
+     * Sets a key or signature, given in Base64: as text in JSON, as a byte string in CBOR.
+     */
+    private void putBinary(ObjectNode body, String field, String base64) {
+        if (objectMapper instanceof CBORMapper) {
+            body.put(field, Base64.getDecoder().decode(base64));
+        } else {
+            body.put(field, base64);
+        }
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    // ===== Proof of work =====
+
+    /**
+     * Finds a solution such that SHA-256(seed + ":" + solution) starts with {@code difficulty} zero bits,
+     * the check the server's {@code PuzzleService} applies.
+     */
+    static String solvePuzzle(String seed, int difficulty) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+
+        for (long candidate = 0; ; candidate++) {
+            String solution = Long.toString(candidate);
+            if (hasLeadingZeroBits(digest.digest((seed + ":" + solution).getBytes(StandardCharsets.UTF_8)), difficulty)) {
+                return solution;
+            }
+        }
+    }
+
+    private static boolean hasLeadingZeroBits(byte[] hash, int bits) {
+        int fullBytes = bits / 8;
+        for (int i = 0; i < fullBytes; i++) {
+            if (hash[i] != 0) return false;
+        }
+        int remainingBits = bits % 8;
+        return remainingBits == 0 || (hash[fullBytes] & 0xFF) >>> (8 - remainingBits) == 0;
+    }
+}
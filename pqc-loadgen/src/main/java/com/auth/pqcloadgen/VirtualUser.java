@@ -0,0 +1,43 @@
+package com.auth.pqcloadgen;
+
+/**
+ * A simulated device: a username, its keys, and what the server handed back after registration and login.
+ * A user runs one scenario at a time, like a person with one phone, so its fields need no locking beyond
+ * being published through the idle queue.
+ */
+final class VirtualUser {
+
+    private final String username;
+    private final KeyPool.KeyMaterial keys;
+    private Long credentialId;
+    private String token;
+
+    VirtualUser(String username, KeyPool.KeyMaterial keys) {
+        this.username = username;
+        this.keys = keys;
+    }
+
+    String username() {
+        return username;
+    }
+
+    KeyPool.KeyMaterial keys() {
+        return keys;
+    }
+
+    Long credentialId() {
+        return credentialId;
+    }
+
+    void credentialId(Long credentialId) {
+        this.credentialId = credentialId;
+    }
+
+    String token() {
+        return token;
+    }
+
+    void token(String token) {
+        this.token = token;
+    }
+}
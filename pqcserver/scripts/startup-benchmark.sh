@@ -0,0 +1,101 @@
+#!/usr/bin/env bash
+#
+# Compares cold start of the build variants: plain jar, AOT-processed jar, AOT + AppCDS and native image.
+#
+#   ./mvnw package -Pfast-start -DskipTests          # target/*.jar, target/cds/ (AOT jar + application.jsa)
+#   ./mvnw -Pnative native:compile -DskipTests       # optional, target/pqcserver (needs GraalVM)
+#   scripts/startup-benchmark.sh [runs]
+#
+# For every run the server is started with an in-memory database and warm-up disabled, then polled with
+# POST /auth/register/start until it answers. Reported per variant (medians over all runs):
+#   ready     - launch until the first successful response
+#   first     - latency of that first successful request
+#   second    - latency of the request right after it
+#   rss       - resident set size after the second request
+# Variants whose artifacts are missing are skipped.
+
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+RUNS="${1:-5}"
+PORT="${PORT:-18090}"
+JAVA="${JAVA_HOME:+$JAVA_HOME/bin/}java"
+JAR="target/pqcserver-0.0.1-SNAPSHOT.jar"
+CDS_DIR="target/cds"
+NATIVE="target/pqcserver"
+LOG_DIR="target/startup-benchmark"
+APP_ARGS=(--server.port="$PORT" --spring.datasource.url=jdbc:h2:mem:startup --warmup.enabled=false)
+
+mkdir -p "$LOG_DIR"
+
+now_ms() {
+    echo $(( $(date +%s%N) / 1000000 ))
+}
+
+# Prints the request time in ms, or fails if the server did not answer with 200
+register_start() {
+    local result
+    result=$(curl -s -o /dev/null -w '%{http_code} %{time_total}' -X POST \
+        -H 'Content-Type: application/json' \
+        -d "{\"username\":\"startup-$1\",\"email\":\"startup-$1@example.com\"}" \
+        "http://localhost:$PORT/auth/register/start") || return 1
+    [[ "${result%% *}" == "200" ]] || return 1
+    awk -v t="${result##* }" 'BEGIN { printf "%.1f", t * 1000 }'
+}
+
+median() {
+    sort -n | awk '{ v[NR] = $1 } END { print (NR % 2 ? v[(NR + 1) / 2] : (v[NR / 2] + v[NR / 2 + 1]) / 2) }'
+}
+
+# run <name> <directory> <command...>
+run() {
+    local name="$1" dir="$2"
+    shift 2
+    local ready=() first=() second=() rss=()
+
+    for i in $(seq 1 "$RUNS"); do
+        local start pid first_ms="" deadline
+        start=$(now_ms)
+        (cd "$dir" && exec "$@" "${APP_ARGS[@]}") > "$LOG_DIR/$name-$i.log" 2>&1 &
+        pid=$!
+        deadline=$(( start + 120000 ))
+
+        until first_ms=$(register_start "$name-$i-a"); do
+            if ! kill -0 "$pid" 2>/dev/null || (( $(now_ms) > deadline )); then
+                echo "$name: server did not come up, see $LOG_DIR/$name-$i.log" >&2
+                kill "$pid" 2>/dev/null || true
+                return 1
+            fi
+            sleep 0.01
+        done
+        ready+=($(( $(now_ms) - start )))
+        first+=("$first_ms")
+        second+=("$(register_start "$name-$i-b")")
+        rss+=($(( $(awk '/VmRSS/ { print $2 }' "/proc/$pid/status") / 1024 )))
+
+        kill "$pid"
+        wait "$pid" 2>/dev/null || true
+    done
+
+    printf '%-10s %10s %10s %10s %10s\n' "$name" \
+        "$(printf '%s\n' "${ready[@]}" | median)" \
+        "$(printf '%s\n' "${first[@]}" | median)" \
+        "$(printf '%s\n' "${second[@]}" | median)" \
+        "$(printf '%s\n' "${rss[@]}" | median)"
+}
+
+printf '%-10s %10s %10s %10s %10s\n' variant "ready ms" "first ms" "second ms" "rss MB"
+
+if [[ -f "$JAR" ]]; then
+    run jar . "$JAVA" -jar "$JAR"
+fi
+if [[ -f "$CDS_DIR/pqcserver-0.0.1-SNAPSHOT.jar" ]]; then
+    run aot "$CDS_DIR" "$JAVA" -Dspring.aot.enabled=true -jar pqcserver-0.0.1-SNAPSHOT.jar
+fi
+if [[ -f "$CDS_DIR/application.jsa" ]]; then
+    run aot+cds "$CDS_DIR" "$JAVA" -XX:SharedArchiveFile=application.jsa -Dspring.aot.enabled=true -jar pqcserver-0.0.1-SNAPSHOT.jar
+fi
+if [[ -x "$NATIVE" ]]; then
+    run native . "$NATIVE"
+fi
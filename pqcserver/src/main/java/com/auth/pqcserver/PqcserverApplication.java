@@ -1,9 +1,12 @@
 package com.auth.pqcserver;
 
+import com.auth.pqcserver.config.CryptoRuntimeHints;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
 
 @SpringBootApplication
+@ImportRuntimeHints(CryptoRuntimeHints.class)
 public class PqcserverApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,39 @@
+package com.auth.pqcserver.config;
+
+import com.auth.pqcserver.utils.AuthFrameCodec;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+
+/**
+ * Reads and writes the authentication DTOs as {@link AuthFrameCodec} frames ({@value AuthFrameCodec#MEDIA_TYPE}).
+ */
+public class AuthFrameHttpMessageConverter extends AbstractHttpMessageConverter<Object> {
+
+    public AuthFrameHttpMessageConverter() {
+        super(MediaType.parseMediaType(AuthFrameCodec.MEDIA_TYPE));
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return AuthFrameCodec.supports(clazz);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        try {
+            return AuthFrameCodec.read(clazz, inputMessage.getBody());
+        } catch (IOException e) {
+            throw new HttpMessageNotReadableException("Invalid frame: " + e.getMessage(), e, inputMessage);
+        }
+    }
+
+    @Override
+    protected void writeInternal(Object dto, HttpOutputMessage outputMessage) throws IOException {
+        AuthFrameCodec.write(dto, outputMessage.getBody());
+    }
+}
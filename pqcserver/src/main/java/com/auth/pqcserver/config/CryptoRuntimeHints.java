@@ -0,0 +1,88 @@
+package com.auth.pqcserver.config;
+
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.pqc.jcajce.provider.BouncyCastlePQCProvider;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.security.Provider;
+import java.util.List;
+import java.util.Locale;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * Reflection and resource metadata for a GraalVM native image (see the {@code native} Maven profile).
+ * <p>
+ * Bouncy Castle's providers load their algorithm {@code $Mappings} classes by name while they are
+ * constructed, and the JCA instantiates each algorithm's SPI class by name on {@code getInstance}. JJWT
+ * 0.11 creates its builder and parser implementations by name and finds its serializer and compression
+ * codecs through {@link java.util.ServiceLoader}. None of that is visible to the image's static analysis.
+ * <p>
+ * Only the SPI classes of the Dilithium services are registered; RSA verification runs on the JDK's own
+ * provider, which GraalVM already covers.
+ */
+public class CryptoRuntimeHints implements RuntimeHintsRegistrar {
+
+    private static final List<String> JJWT_TYPES = List.of(
+            "io.jsonwebtoken.impl.DefaultJwtBuilder",
+            "io.jsonwebtoken.impl.DefaultJwtParserBuilder",
+            "io.jsonwebtoken.impl.DefaultJwtParser",
+            "io.jsonwebtoken.impl.DefaultClaims",
+            "io.jsonwebtoken.impl.DefaultHeader",
+            "io.jsonwebtoken.impl.DefaultJwsHeader",
+            "io.jsonwebtoken.impl.compression.DeflateCompressionCodec",
+            "io.jsonwebtoken.impl.compression.GzipCompressionCodec",
+            "io.jsonwebtoken.jackson.io.JacksonSerializer",
+            "io.jsonwebtoken.jackson.io.JacksonDeserializer");
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        registerBouncyCastle(hints);
+        registerJjwt(hints);
+
+        // Flyway's auto-configuration only covers db/migration; the sharded store also reads db/shard
+        hints.resources().registerPattern("db/shard/*.sql");
+    }
+
+    // ===== Bouncy Castle =====
+
+    private static void registerBouncyCastle(RuntimeHints hints) {
+        hints.reflection().registerType(BouncyCastlePQCProvider.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+        hints.reflection().registerType(BouncyCastleProvider.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+
+        // Listed from the jar itself: classpath pattern lookups miss entries of multi-release jars
+        try (JarFile jar = new JarFile(new File(BouncyCastleProvider.class.getProtectionDomain().getCodeSource().getLocation().toURI()))) {
+            jar.stream()
+                    .map(JarEntry::getName)
+                    .filter(name -> name.startsWith("org/bouncycastle/") && name.endsWith("$Mappings.class"))
+                    .map(name -> name.substring(0, name.length() - ".class".length()).replace('/', '.'))
+                    .forEach(className -> hints.reflection().registerType(TypeReference.of(className),
+                            MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS));
+        } catch (IOException | URISyntaxException e) {
+            throw new IllegalStateException("Could not list the Bouncy Castle algorithm mappings", e);
+        }
+
+        for (Provider.Service service : new BouncyCastlePQCProvider().getServices()) {
+            if (service.getAlgorithm().toUpperCase(Locale.ROOT).startsWith("DILITHIUM")) {
+                hints.reflection().registerType(TypeReference.of(service.getClassName()),
+                        MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS);
+            }
+        }
+    }
+
+    // ===== JJWT =====
+
+    private static void registerJjwt(RuntimeHints hints) {
+        for (String type : JJWT_TYPES) {
+            hints.reflection().registerType(TypeReference.of(type),
+                    MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS);
+        }
+        hints.resources().registerPattern("META-INF/services/io.jsonwebtoken.*");
+    }
+}
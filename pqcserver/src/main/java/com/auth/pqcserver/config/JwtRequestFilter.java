@@ -1,7 +1,10 @@
 package com.auth.pqcserver.config;
 
+import com.auth.pqcserver.service.HandshakeMetrics;
 import com.auth.pqcserver.utils.JwtUtils;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -13,16 +16,21 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
 @Component
 public class JwtRequestFilter extends OncePerRequestFilter {
 
     private final JwtUtils jwtUtil;
+    private final HandshakeMetrics metrics;
+    private final Set<String> adminUsernames;
 
-    public JwtRequestFilter(JwtUtils jwtUtil) {
+    public JwtRequestFilter(JwtUtils jwtUtil, HandshakeMetrics metrics,
+                            @Value("${admin.usernames}") Set<String> adminUsernames) {
         this.jwtUtil = jwtUtil;
+        this.metrics = metrics;
+        this.adminUsernames = adminUsernames;
     }
 
     @Override
@@ -37,10 +45,9 @@ public class JwtRequestFilter extends OncePerRequestFilter {
                 String username = jwtUtil.extractUsername(jwt);
 
                 if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                    if (jwtUtil.validateToken(jwt, username)) {
+                    if (metrics.phase(HandshakeMetrics.Phase.JWT_VALIDATE).record(() -> jwtUtil.validateToken(jwt, username))) {
                         UsernamePasswordAuthenticationToken authToken =
-                                new UsernamePasswordAuthenticationToken(username, null,
-                                        Collections.singletonList(new SimpleGrantedAuthority("USER")));
+                                new UsernamePasswordAuthenticationToken(username, null, authoritiesOf(username));
 
                         authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                         SecurityContextHolder.getContext().setAuthentication(authToken);
@@ -56,6 +63,15 @@ public class JwtRequestFilter extends OncePerRequestFilter {
         chain.doFilter(request, response);
     }
 
+    /**
+     * Every authenticated user gets USER; users listed in {@code admin.usernames} also get ADMIN.
+     */
+    private List<GrantedAuthority> authoritiesOf(String username) {
+        return adminUsernames.contains(username)
+                ? List.of(new SimpleGrantedAuthority("USER"), new SimpleGrantedAuthority("ADMIN"))
+                : List.of(new SimpleGrantedAuthority("USER"));
+    }
+
     @Override
     protected boolean shouldNotFilter(HttpServletRequest request) {
         String path = request.getRequestURI();
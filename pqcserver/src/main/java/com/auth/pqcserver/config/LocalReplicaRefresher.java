@@ -0,0 +1,111 @@
+package com.auth.pqcserver.config;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stands in for replication when testing replicas locally with H2.
+ * <p>
+ * Every node with {@code replicas.nodes.<name>.refresh-from-primary-ms} set is a separate database that
+ * gets a snapshot of the primary (via H2's {@code SCRIPT}) that often, so it lags behind the primary by up
+ * to that interval plus the copy time. That makes {@link ReplicaLagMonitor} rotation and
+ * {@link com.auth.pqcserver.store.ReadYourWritesTracker} observable without real replicas. The schema is
+ * copied once; later refreshes replace all rows in one transaction, so readers see either the old or the
+ * new snapshot. Starts once the application is ready, after Flyway has migrated the primary.
+ */
+@Component
+@ConditionalOnProperty(name = "replicas.enabled", havingValue = "true")
+public class LocalReplicaRefresher {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalReplicaRefresher.class);
+
+    private final JdbcTemplate primary;
+    private final Map<String, ReplicaProperties.Node> nodes;
+    private final ScheduledExecutorService scheduler;
+
+    public LocalReplicaRefresher(ReplicaRoutingDataSource routingDataSource, ReplicaProperties properties) {
+        this.primary = new JdbcTemplate(routingDataSource.primary());
+        this.nodes = properties.getNodes();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        nodes.forEach((name, node) -> {
+            if (node.getRefreshFromPrimaryMs() <= 0) return;
+
+            // The pool is read-only, so copies go through a connection of their own
+            DriverManagerDataSource dataSource = new DriverManagerDataSource(node.getUrl(), node.getUsername(), node.getPassword());
+            Copy copy = new Copy(name, new JdbcTemplate(dataSource),
+                    new TransactionTemplate(new DataSourceTransactionManager(dataSource)));
+            scheduler.scheduleWithFixedDelay(copy::refresh, 0, node.getRefreshFromPrimaryMs(), TimeUnit.MILLISECONDS);
+            logger.info("[REPLICA REFRESH] - {} is a copy of the primary, refreshed every {} ms", name,
+                    node.getRefreshFromPrimaryMs());
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * One stand-in replica.
+     */
+    private final class Copy {
+
+        private final String name;
+        private final JdbcTemplate replica;
+        private final TransactionTemplate transaction;
+        private boolean schemaCopied;
+
+        Copy(String name, JdbcTemplate replica, TransactionTemplate transaction) {
+            this.name = name;
+            this.replica = replica;
+            this.transaction = transaction;
+        }
+
+        void refresh() {
+            try {
+                List<String> script = primary.queryForList("SCRIPT NOPASSWORDS NOSETTINGS", String.class);
+                if (!schemaCopied) {
+                    // Foreign keys are left out so rows can be replaced table by table
+                    script.stream()
+                            .filter(statement -> !statement.startsWith("INSERT") && !statement.contains("FOREIGN KEY"))
+                            .forEach(replica::execute);
+                    schemaCopied = true;
+                }
+
+                transaction.executeWithoutResult(status -> {
+                    replica.queryForList("select table_name from information_schema.tables"
+                                    + " where table_schema = 'PUBLIC' and table_type = 'BASE TABLE'", String.class)
+                            .forEach(table -> replica.update("delete from \"PUBLIC\".\"" + table + "\""));
+                    script.stream()
+                            .filter(statement -> statement.startsWith("INSERT"))
+                            .forEach(replica::update);
+                });
+            } catch (RuntimeException e) {
+                logger.warn("[REPLICA REFRESH] - Could not refresh {}: {}", name, e.getMessage());
+            }
+        }
+    }
+}
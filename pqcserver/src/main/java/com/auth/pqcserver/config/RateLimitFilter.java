@@ -0,0 +1,121 @@
+package com.auth.pqcserver.config;
+
+import com.auth.pqcserver.service.HandshakeMetrics;
+import com.auth.pqcserver.utils.TokenBucketRateLimiter;
+import com.auth.pqcserver.utils.TokenBucketRateLimiter.Decision;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Rejects requests to rate-limited endpoints with 429 before they reach the controller, so throttled
+ * traffic never touches the database or the signature verifiers.
+ * <p>
+ * Each configured endpoint gets two independent limiters: one keyed by the {@code username} parameter
+ * and one keyed by the client address. A request must pass both. Endpoints are matched on the decoded
+ * path within the application, the same one the controllers are mapped on, so percent-encoding a
+ * character of the path does not slip past the limiter.
+ */
+@Component
+@EnableConfigurationProperties(RateLimitProperties.class)
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    // Hides the filter base class's commons-logging logger, which has no placeholder support
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitFilter.class);
+
+    public static final String TOO_MANY_REQUESTS_BODY = "{\"success\":false,\"message\":\"Too many requests\"}";
+
+    private final boolean enabled;
+    private final HandshakeMetrics metrics;
+    private final Map<String, EndpointLimiters> limitersByPath = new HashMap<>();
+    private final UrlPathHelper urlPathHelper = new UrlPathHelper();
+
+    public RateLimitFilter(RateLimitProperties properties, HandshakeMetrics metrics) {
+        this.enabled = properties.isEnabled();
+        this.metrics = metrics;
+        properties.getEndpoints().forEach((name, endpoint) -> {
+            if (endpoint.getPath() == null) {
+                throw new IllegalStateException("ratelimit.endpoints." + name + ".path must be set");
+            }
+            limitersByPath.put(endpoint.getPath(), new EndpointLimiters(
+                    newLimiter(endpoint.getUsername(), properties.getStripes()),
+                    newLimiter(endpoint.getIp(), properties.getStripes())));
+        });
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+
+        Decision decision = tryAcquire(urlPathHelper.getPathWithinApplication(request), request.getRemoteAddr(), request.getParameter("username"));
+
+        response.setHeader("X-RateLimit-Limit", String.valueOf(decision.limit()));
+        response.setHeader("X-RateLimit-Remaining", String.valueOf(decision.remaining()));
+
+        if (!decision.allowed()) {
+            response.setHeader("Retry-After", String.valueOf(decision.retryAfterSeconds()));
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setContentType("application/json");
+            response.getWriter().write(TOO_MANY_REQUESTS_BODY);
+            return;
+        }
+
+        chain.doFilter(request, response);
+    }
+
+    /**
+     * Takes a token from both limiters of an endpoint. Also used by the Netty front-end, which does not run
+     * through the servlet filter chain.
+     *
+     * @param path          The decoded request path.
+     * @param remoteAddress The client address.
+     * @param username      The {@code username} parameter, or null.
+     * @return The decision whose limit and remaining tokens are reported to the client, or null if the path
+     * is not rate limited.
+     */
+    public Decision tryAcquire(String path, String remoteAddress, String username) {
+        EndpointLimiters limiters = enabled ? limitersByPath.get(path) : null;
+        if (limiters == null) return null;
+
+        Decision ipDecision = limiters.ip().tryAcquire(remoteAddress);
+        Decision decision = ipDecision;
+
+        if (ipDecision.allowed() && username != null) {
+            Decision usernameDecision = limiters.username().tryAcquire(username);
+            if (!usernameDecision.allowed() || usernameDecision.remaining() < ipDecision.remaining()) {
+                decision = usernameDecision;
+            }
+        }
+
+        if (!decision.allowed()) {
+            // Debug only: under a flood this line would otherwise cost more than the rejection itself
+            logger.debug("[RATE LIMITED] - Path: {}, Client: {}", path, remoteAddress);
+            HandshakeMetrics.Endpoint endpoint = HandshakeMetrics.Endpoint.forPath(path);
+            if (endpoint != null) metrics.failure(endpoint, HandshakeMetrics.Failure.RATE_LIMITED);
+        }
+        return decision;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !limitersByPath.containsKey(urlPathHelper.getPathWithinApplication(request));
+    }
+
+    private static TokenBucketRateLimiter newLimiter(RateLimitProperties.Limit limit, int stripes) {
+        return new TokenBucketRateLimiter(limit.getCapacity(), limit.getRefillPerSecond(), stripes);
+    }
+
+    private record EndpointLimiters(TokenBucketRateLimiter username, TokenBucketRateLimiter ip) {}
+}
@@ -0,0 +1,36 @@
+package com.auth.pqcserver.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Rate limit settings for the public authentication endpoints, bound from {@code ratelimit.*}.
+ */
+@Data
+@ConfigurationProperties(prefix = "ratelimit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    // Number of buckets per limiter; memory is fixed at 8 bytes per stripe
+    private int stripes = 65536;
+
+    // Endpoint name -> limits, e.g. ratelimit.endpoints.login-start.path=/auth/login/start
+    private Map<String, Endpoint> endpoints = new LinkedHashMap<>();
+
+    @Data
+    public static class Endpoint {
+        private String path;
+        private Limit username = new Limit();
+        private Limit ip = new Limit();
+    }
+
+    @Data
+    public static class Limit {
+        private int capacity = 10;
+        private double refillPerSecond = 1.0;
+    }
+}
@@ -0,0 +1,67 @@
+package com.auth.pqcserver.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Replaces the auto-configured DataSource with a primary/replica router when {@code replicas.enabled=true}.
+ * The primary pool is built from the usual {@code spring.datasource.*} settings, so Flyway, JPA and
+ * JdbcTemplate keep working unchanged and only read-only transactions are offloaded.
+ */
+@Configuration
+@ConditionalOnProperty(name = "replicas.enabled", havingValue = "true")
+@EnableConfigurationProperties(ReplicaProperties.class)
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(DataSourceProperties dataSourceProperties,
+                                                             ReplicaProperties replicaProperties,
+                                                             @Value("${challenge-write-behind.enabled}") boolean writeBehindEnabled,
+                                                             @Value("${challenge-write-behind.flush-interval-ms}") long writeBehindFlushIntervalMs) {
+        // A challenge reaches the primary up to one flush interval after the login that issued it
+        long writeDelayMs = writeBehindEnabled ? writeBehindFlushIntervalMs : 0;
+        if (replicaProperties.getStickyWindowMs() < writeDelayMs + replicaProperties.getMaxLagMs() + replicaProperties.getHeartbeatIntervalMs()) {
+            // A shorter window could send a user's read to a replica that has not applied their write yet
+            throw new IllegalStateException("replicas.sticky-window-ms must be at least max-lag-ms + heartbeat-interval-ms"
+                    + " + challenge-write-behind.flush-interval-ms");
+        }
+
+        HikariDataSource primary = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName("primary");
+
+        Map<String, HikariDataSource> replicas = new LinkedHashMap<>();
+        replicaProperties.getNodes().forEach((name, node) -> {
+            if (node.getUrl() == null) {
+                throw new IllegalStateException("replicas.nodes." + name + ".url must be set");
+            }
+            HikariConfig pool = new HikariConfig();
+            pool.setPoolName("replica-" + name);
+            pool.setJdbcUrl(node.getUrl());
+            pool.setUsername(node.getUsername());
+            pool.setPassword(node.getPassword());
+            pool.setMaximumPoolSize(node.getMaximumPoolSize());
+            pool.setReadOnly(true);
+            replicas.put(name, new HikariDataSource(pool));
+        });
+
+        return new ReplicaRoutingDataSource(primary, replicas);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+}
@@ -0,0 +1,128 @@
+package com.auth.pqcserver.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures replication lag and decides which replicas may serve reads.
+ * <p>
+ * Every {@code replicas.heartbeat-interval-ms} the primary's {@code replica_heartbeat} row is stamped with
+ * the current time and read back from each replica; the difference is the replica's lag. Replicas that
+ * cannot be queried or lag by more than {@code replicas.max-lag-ms} are taken out of rotation until they
+ * catch up. Lag and health are published as {@code pqc.replica.lag} / {@code pqc.replica.healthy} gauges
+ * and through the {@code replicaLag} health contributor.
+ */
+@Component
+@ConditionalOnProperty(name = "replicas.enabled", havingValue = "true")
+public class ReplicaLagMonitor implements HealthIndicator {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+    private static final long UNREACHABLE = -1;
+
+    private final ReplicaRoutingDataSource routingDataSource;
+    private final JdbcTemplate primary;
+    private final long maxLagMs;
+
+    private final Map<String, Long> lagByReplica = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService heartbeat;
+
+    public ReplicaLagMonitor(ReplicaRoutingDataSource routingDataSource,
+                             ReplicaProperties properties,
+                             MeterRegistry meterRegistry) {
+        this.routingDataSource = routingDataSource;
+        this.primary = new JdbcTemplate(routingDataSource.primary());
+        this.maxLagMs = properties.getMaxLagMs();
+
+        routingDataSource.replicas().keySet().forEach(name -> {
+            lagByReplica.put(name, UNREACHABLE);
+            Gauge.builder("pqc.replica.lag", lagByReplica, lags -> lags.get(name))
+                    .description("Replication lag in milliseconds, -1 if the replica is unreachable")
+                    .baseUnit("milliseconds")
+                    .tag("replica", name)
+                    .register(meterRegistry);
+            Gauge.builder("pqc.replica.healthy", lagByReplica, lags -> isHealthy(lags.get(name)) ? 1 : 0)
+                    .description("1 if the replica is serving reads, otherwise 0")
+                    .tag("replica", name)
+                    .register(meterRegistry);
+        });
+
+        this.heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = properties.getHeartbeatIntervalMs();
+        heartbeat.scheduleWithFixedDelay(this::check, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Health health() {
+        // Always UP: with no replica in rotation reads fall back to the primary, which is slower but correct
+        Health.Builder builder = Health.up()
+                .withDetail("inRotation", lagByReplica.values().stream().filter(this::isHealthy).count());
+        lagByReplica.forEach((name, lag) -> builder.withDetail(name, Map.of(
+                "healthy", isHealthy(lag),
+                "lagMs", lag)));
+        return builder.build();
+    }
+
+    /**
+     * Stamps the primary, measures every replica and updates the routing set.
+     */
+    void check() {
+        try {
+            primary.update("update replica_heartbeat set beat_millis = ? where id = 1", System.currentTimeMillis());
+        } catch (RuntimeException e) {
+            logger.warn("[REPLICA HEARTBEAT] - Could not write heartbeat to primary: {}", e.getMessage());
+            return;
+        }
+
+        List<String> healthy = new ArrayList<>();
+        for (Map.Entry<String, HikariDataSource> replica : routingDataSource.replicas().entrySet()) {
+            long lag = measure(replica.getValue());
+            Long previous = lagByReplica.put(replica.getKey(), lag);
+
+            if (isHealthy(lag)) healthy.add(replica.getKey());
+            if (previous != null && isHealthy(previous) != isHealthy(lag)) {
+                logger.info("[REPLICA {}] - {}, lag: {} ms", isHealthy(lag) ? "IN ROTATION" : "OUT OF ROTATION",
+                        replica.getKey(), lag);
+            }
+        }
+        routingDataSource.setHealthyReplicas(healthy.toArray(new String[0]));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeat.shutdownNow();
+    }
+
+    private long measure(HikariDataSource replica) {
+        try {
+            Long beat = new JdbcTemplate(replica).queryForObject("select beat_millis from replica_heartbeat where id = 1", Long.class);
+            return beat == null ? UNREACHABLE : Math.max(0, System.currentTimeMillis() - beat);
+        } catch (RuntimeException e) {
+            return UNREACHABLE;
+        }
+    }
+
+    private boolean isHealthy(long lag) {
+        return lag != UNREACHABLE && lag <= maxLagMs;
+    }
+}
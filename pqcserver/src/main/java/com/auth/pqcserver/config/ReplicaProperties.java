@@ -0,0 +1,39 @@
+package com.auth.pqcserver.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Read-replica settings for the JPA credential store, bound from {@code replicas.*}.
+ */
+@Data
+@ConfigurationProperties(prefix = "replicas")
+public class ReplicaProperties {
+
+    private boolean enabled = false;
+
+    // Replica name -> connection settings, e.g. replicas.nodes.replica1.url=jdbc:h2:tcp://replica1/pqc
+    private Map<String, Node> nodes = new LinkedHashMap<>();
+
+    // Reads for a username go to the primary for this long after it was written on this node
+    private long stickyWindowMs = 5000;
+
+    // Replicas whose heartbeat is older than this are taken out of rotation
+    private long maxLagMs = 2000;
+
+    private long heartbeatIntervalMs = 500;
+
+    @Data
+    public static class Node {
+        private String url;
+        private String username = "sa";
+        private String password = "";
+        private int maximumPoolSize = 10;
+
+        // Local testing only: > 0 turns this node into a copy of the primary refreshed this often (see LocalReplicaRefresher)
+        private long refreshFromPrimaryMs = 0;
+    }
+}
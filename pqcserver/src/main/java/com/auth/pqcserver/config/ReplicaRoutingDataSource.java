@@ -0,0 +1,101 @@
+package com.auth.pqcserver.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Sends connections for read-only transactions to a healthy replica and everything else to the primary.
+ * <p>
+ * The routing decision is made when a connection is first used, so this must sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}; otherwise the connection is
+ * fetched before the transaction's read-only flag is known. Replicas are picked round-robin from the set
+ * that {@link ReplicaLagMonitor} last found within the lag budget; with none available reads fall back to
+ * the primary.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    static final String PRIMARY = "primary";
+
+    private static final ThreadLocal<Boolean> primaryRequired = new ThreadLocal<>();
+
+    private final HikariDataSource primary;
+    private final Map<String, HikariDataSource> replicas;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private volatile String[] healthyReplicas = new String[0];
+
+    /**
+     * @param primary  Pool for the primary database.
+     * @param replicas Replica name -> pool.
+     */
+    public ReplicaRoutingDataSource(HikariDataSource primary, Map<String, HikariDataSource> replicas) {
+        this.primary = primary;
+        this.replicas = replicas;
+
+        Map<Object, Object> targets = new HashMap<>(replicas);
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    /**
+     * Runs a block with every connection it opens routed to the primary, read-only or not.
+     *
+     * @param action The block to run.
+     * @return The block's result.
+     */
+    public static <T> T onPrimary(Supplier<T> action) {
+        if (primaryRequired.get() != null) return action.get();
+
+        primaryRequired.set(Boolean.TRUE);
+        try {
+            return action.get();
+        } finally {
+            primaryRequired.remove();
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || primaryRequired.get() != null) {
+            return PRIMARY;
+        }
+
+        String[] healthy = healthyReplicas;
+        if (healthy.length == 0) return PRIMARY;
+        return healthy[(nextReplica.getAndIncrement() & Integer.MAX_VALUE) % healthy.length];
+    }
+
+    /**
+     * @return Pool for the primary database.
+     */
+    HikariDataSource primary() {
+        return primary;
+    }
+
+    /**
+     * @return Replica name -> pool.
+     */
+    Map<String, HikariDataSource> replicas() {
+        return replicas;
+    }
+
+    /**
+     * @param healthy Names of the replicas that may serve reads.
+     */
+    void setHealthyReplicas(String[] healthy) {
+        this.healthyReplicas = healthy;
+    }
+
+    @Override
+    public void close() {
+        replicas.values().forEach(HikariDataSource::close);
+        primary.close();
+    }
+}
@@ -1,5 +1,6 @@
 package com.auth.pqcserver.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -13,9 +14,17 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 public class SecurityConfig {
 
     private final JwtRequestFilter jwtRequestFilter;
+    private final RateLimitFilter rateLimitFilter;
 
-    public SecurityConfig(JwtRequestFilter jwtRequestFilter) {
+    public SecurityConfig(JwtRequestFilter jwtRequestFilter, RateLimitFilter rateLimitFilter,
+                          @Value("${server.port}") int serverPort,
+                          @Value("${management.server.port}") int managementPort) {
+        // The Prometheus scrape is unauthenticated, which is only safe while actuator has a port of its own
+        if (managementPort == serverPort) {
+            throw new IllegalStateException("management.server.port must differ from server.port");
+        }
         this.jwtRequestFilter = jwtRequestFilter;
+        this.rateLimitFilter = rateLimitFilter;
     }
 
     @Bean
@@ -24,11 +33,15 @@ public class SecurityConfig {
                 .csrf(csrf -> csrf.disable())
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/auth/**", "/h2-console/**").permitAll()  // Public routes
+                        .requestMatchers("/actuator/health/**").permitAll()  // Liveness/readiness probes
+                        .requestMatchers("/actuator/prometheus").permitAll()  // Metrics scrape, served on the management port only
                         .requestMatchers("/api/**").hasAuthority("USER")  // Require USER authority for /api/**
+                        .requestMatchers("/admin/**").hasAuthority("ADMIN")  // Operational endpoints (JFR)
                         .anyRequest().authenticated()
                 )
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
-                .addFilterBefore(jwtRequestFilter, UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(jwtRequestFilter, UsernamePasswordAuthenticationFilter.class)
+                .addFilterBefore(rateLimitFilter, JwtRequestFilter.class);  // Throttle before any other work
 
         // Add this to allow H2 console frame if you're using it
         http.headers(headers -> headers.frameOptions(frameOptions -> frameOptions.disable()));
@@ -0,0 +1,45 @@
+package com.auth.pqcserver.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Settings for the hash-sharded credential store, bound from {@code sharding.*}.
+ * Only used when {@code credential-store.type=sharded}.
+ */
+@Data
+@ConfigurationProperties(prefix = "sharding")
+public class ShardingProperties {
+
+    // Shard name -> connection settings, e.g. sharding.shards.shard0.url=jdbc:h2:file:./data/shards/shard0
+    private Map<String, Shard> shards = new LinkedHashMap<>();
+
+    // Shards that currently own usernames; every shard listed must be defined under sharding.shards
+    private List<String> ring = new ArrayList<>();
+
+    // Ring before a reshard; while set, lookups that miss on the new owner fall back to the old one
+    private List<String> previousRing = new ArrayList<>();
+
+    // Points per shard on the hash ring; more points give a more even spread
+    private int virtualNodes = 160;
+
+    // Move rows to their new owner in the background once the application is ready
+    private boolean rebalanceOnStartup = false;
+
+    private int rebalanceBatchSize = 500;
+
+    @Data
+    public static class Shard {
+        // Unique, never reused number in [1, 1023]; user IDs on this shard are congruent to it mod 1024
+        private int id;
+        private String url;
+        private String username = "sa";
+        private String password = "";
+        private int maximumPoolSize = 10;
+    }
+}
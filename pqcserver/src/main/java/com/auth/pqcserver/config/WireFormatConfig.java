@@ -0,0 +1,27 @@
+package com.auth.pqcserver.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Request and response encodings besides JSON, picked by Content-Type and Accept:
+ * <ul>
+ *     <li>{@code application/cbor}: Spring MVC registers Jackson's CBOR converter on its own once
+ *     jackson-dataformat-cbor is on the classpath. Clients send keys and signatures as byte strings.</li>
+ *     <li>{@value com.auth.pqcserver.utils.AuthFrameCodec#MEDIA_TYPE}: the framed binary format of the
+ *     authentication endpoints, added here.</li>
+ * </ul>
+ * Both come after JSON in the converter list, so requests without an Accept header, or with {@code *}{@code /*},
+ * still get JSON.
+ */
+@Configuration
+public class WireFormatConfig implements WebMvcConfigurer {
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new AuthFrameHttpMessageConverter());
+    }
+}
@@ -0,0 +1,174 @@
+package com.auth.pqcserver.controller;
+
+import com.auth.pqcserver.dto.CredentialFingerprintDto;
+import com.auth.pqcserver.dto.JfrRecordingDto;
+import com.auth.pqcserver.jfr.JfrRecordingService;
+import com.auth.pqcserver.service.AuthService;
+import com.auth.pqcserver.service.BulkImportService;
+import com.auth.pqcserver.service.ExportService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+@RestController
+@RequestMapping("/admin")  // Endpoints within this controller require ADMIN authority
+public class AdminController {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdminController.class);
+
+    private final AuthService authService;
+    private final BulkImportService bulkImportService;
+    private final ExportService exportService;
+    private final JfrRecordingService recordingService;
+
+    public AdminController(AuthService authService, BulkImportService bulkImportService,
+                           ExportService exportService, JfrRecordingService recordingService) {
+        this.authService = authService;
+        this.bulkImportService = bulkImportService;
+        this.exportService = exportService;
+        this.recordingService = recordingService;
+    }
+
+    // ======================= Credential Endpoints =======================
+
+    /**
+     * Lists a user's credentials by ID and key fingerprints, primary credential first. Keys are not returned.
+     *
+     * @param username The user whose credentials are listed.
+     * @return The user's credentials, or 404 if the user has none.
+     */
+    @GetMapping("/users/{username}/credentials")
+    public ResponseEntity<List<CredentialFingerprintDto>> listCredentials(@PathVariable String username) {
+        List<CredentialFingerprintDto> credentials = authService.getCredentialFingerprints(username).stream()
+                .map(CredentialFingerprintDto::new)
+                .toList();
+        logger.info("[CREDENTIALS LISTED] - User: {}, Credentials: {}", username, credentials.size());
+
+        return credentials.isEmpty() ? ResponseEntity.notFound().build() : ResponseEntity.ok(credentials);
+    }
+
+    /**
+     * Imports users from an NDJSON upload, either the NDJSON export itself or {@code UserCredentialDto} lines. The
+     * upload is processed while it arrives and the report is streamed back as NDJSON: one line per rejected
+     * row, a progress line per batch and a summary line at the end.
+     *
+     * @param request  The upload, sent as application/x-ndjson.
+     * @param response Receives the NDJSON report.
+     * @throws IOException If the upload cannot be read or the report cannot be written.
+     */
+    @PostMapping(value = "/users/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public void importUsers(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        logger.info("[BULK IMPORT STARTED] - Content length: {}", request.getContentLengthLong());
+
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        bulkImportService.importUsers(request.getInputStream(), response.getOutputStream());
+    }
+
+    /**
+     * Downloads every user and credential, streamed from a database cursor as it is written. If the download
+     * breaks off, request it again with {@code after} set to the last username received.
+     *
+     * @param format   ndjson (default) or binary; see {@link ExportService} for the layouts.
+     * @param gzip     Whether to gzip-compress the download.
+     * @param after    Only export users whose username sorts after this one.
+     * @param response Receives the export, or 400 for an unknown format.
+     * @throws IOException If the export cannot be written.
+     */
+    @GetMapping("/users/export")
+    public void exportUsers(@RequestParam(defaultValue = "ndjson") String format,
+                            @RequestParam(defaultValue = "false") boolean gzip,
+                            @RequestParam(required = false) String after,
+                            HttpServletResponse response) throws IOException {
+        ExportService.Format exportFormat = ExportService.Format.parse(format);
+        if (exportFormat == null) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), "Unknown export format: " + format);
+            return;
+        }
+
+        logger.info("[EXPORT STARTED] - Format: {}, Gzip: {}, After: {}", exportFormat, gzip, after);
+        response.setContentType(exportFormat.contentType(gzip));
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + exportFormat.fileName(gzip) + "\"");
+        exportService.export(response.getOutputStream(), exportFormat, gzip, after);
+    }
+
+    // ======================= Flight Recorder Endpoints =======================
+
+    /**
+     * Reports the state of the current or last Flight Recorder recording.
+     *
+     * @return JfrRecordingDto describing the recording.
+     */
+    @GetMapping("/jfr")
+    public ResponseEntity<JfrRecordingDto> recordingStatus() {
+        return ResponseEntity.ok(recordingService.status(null));
+    }
+
+    /**
+     * Starts a Flight Recorder recording.
+     *
+     * @return JfrRecordingDto describing the new recording, or 409 if one is already running.
+     * @throws Exception If the recording settings cannot be loaded.
+     */
+    @PostMapping("/jfr/start")
+    public ResponseEntity<JfrRecordingDto> startRecording() throws Exception {
+        if (!recordingService.start()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(recordingService.status("A recording is already running"));
+        }
+
+        logger.info("[JFR RECORDING STARTED]");
+        return ResponseEntity.ok(recordingService.status("Recording started"));
+    }
+
+    /**
+     * Stops the running Flight Recorder recording. Its data stays available for dumping.
+     *
+     * @return JfrRecordingDto describing the stopped recording, or 409 if none is running.
+     */
+    @PostMapping("/jfr/stop")
+    public ResponseEntity<JfrRecordingDto> stopRecording() {
+        if (!recordingService.stop()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(recordingService.status("No recording is running"));
+        }
+
+        logger.info("[JFR RECORDING STOPPED]");
+        return ResponseEntity.ok(recordingService.status("Recording stopped"));
+    }
+
+    /**
+     * Downloads the current or last recording as a .jfr file, for JDK Mission Control or {@code jfr print}.
+     *
+     * @return The recording, or 404 if nothing has been recorded.
+     * @throws Exception If the recording cannot be dumped.
+     */
+    @GetMapping("/jfr/dump")
+    public ResponseEntity<StreamingResponseBody> dumpRecording() throws Exception {
+        Path file = recordingService.dump();
+        if (file == null) return ResponseEntity.notFound().build();
+
+        logger.info("[JFR RECORDING DUMPED] - Size: {} bytes", Files.size(file));
+        StreamingResponseBody body = out -> {
+            try {
+                Files.copy(file, out);
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .contentLength(Files.size(file))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + file.getFileName() + "\"")
+                .body(body);
+    }
+}
@@ -1,14 +1,19 @@
 package com.auth.pqcserver.controller;
 
 import com.auth.pqcserver.dto.*;
+import com.auth.pqcserver.repository.projection.CredentialFingerprint;
 import com.auth.pqcserver.service.AuthService;
+import com.auth.pqcserver.service.HandshakeMetrics;
+import com.auth.pqcserver.service.LoginEpochService;
 import com.auth.pqcserver.utils.JwtUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import static com.auth.pqcserver.utils.SecurityUtils.formatKey;
+import java.util.Optional;
+
+import static com.auth.pqcserver.utils.SecurityUtils.bytesToHex;
 
 @RestController
 @RequestMapping("/auth")
@@ -19,26 +24,36 @@ public class AuthController {
 
     private final AuthService authService;
     private final JwtUtils jwtUtil;
+    private final HandshakeMetrics metrics;
+    private final LoginEpochService loginEpochs;
 
-    public AuthController(AuthService authService, JwtUtils jwtUtil) {
+    public AuthController(AuthService authService, JwtUtils jwtUtil, HandshakeMetrics metrics,
+                          LoginEpochService loginEpochs) {
         this.authService = authService;
         this.jwtUtil = jwtUtil;
+        this.metrics = metrics;
+        this.loginEpochs = loginEpochs;
     }
 
     // ======================= Registration Endpoints =======================
 
     /**
      * Initiates user registration by generating a registration challenge.
+     * Registering an additional device requires the user's JWT in the Authorization header.
      *
-     * @param requestDto The registration request containing username and email.
+     * @param requestDto    The registration request containing username and email.
+     * @param authorization Optional "Bearer" token of the user, needed once the user has a credential.
      * @return RegistrationChallengeDto containing the generated challenge and user ID.
      */
     @PostMapping("/register/start")
-    public ResponseEntity<RegistrationChallengeDto> startRegistration(@RequestBody RegistrationRequestDto requestDto) {
+    public ResponseEntity<RegistrationChallengeDto> startRegistration(
+            @RequestBody RegistrationRequestDto requestDto,
+            @RequestHeader(value = "Authorization", required = false) String authorization) {
         String username = requestDto.getUsername();
         logger.info("[START REGISTRATION] - Initiating registration for user: {}", username);
 
-        RegistrationChallengeDto challenge = authService.startRegistration(requestDto);
+        RegistrationChallengeDto challenge = authService.startRegistration(requestDto,
+                isAuthenticatedAs(authorization, username));
         logger.info("[REGISTRATION CHALLENGE GENERATED] - User: {}, Challenge: {}", username, challenge.getChallenge());
 
         return ResponseEntity.ok(challenge);
@@ -46,22 +61,25 @@ public class AuthController {
 
     /**
      * Completes user registration by verifying the response and storing credentials.
+     * Registering an additional device requires the user's JWT in the Authorization header.
      *
-     * @param responseDto The registration response containing public keys.
-     * @param username    The username associated with registration.
-     * @return RegistrationResultDto indicating success/failure and an optional JWT token.
+     * @param responseDto   The registration response containing public keys.
+     * @param username      The username associated with registration.
+     * @param authorization Optional "Bearer" token of the user, needed once the user has a credential.
+     * @return RegistrationResultDto indicating success/failure, the new credential ID and an optional JWT token.
      * @throws Exception If verification fails.
      */
     @PostMapping("/register/finish")
     public ResponseEntity<RegistrationResultDto> finishRegistration(
             @RequestBody RegistrationResponseDto responseDto,
-            @RequestParam String username) throws Exception {
+            @RequestParam String username,
+            @RequestHeader(value = "Authorization", required = false) String authorization) throws Exception {
 
         logger.info("[FINISH REGISTRATION] - Verifying registration for user: {}", username);
-        logPublicKeys(responseDto.getPublicKeyDilithium(), responseDto.getPublicKeyRSA());
 
-        boolean success = authService.finishRegistration(responseDto, username);
-        return generateRegistrationResponse(success, username);
+        Optional<CredentialFingerprint> credential = authService.finishRegistration(responseDto, username,
+                isAuthenticatedAs(authorization, username));
+        return generateRegistrationResponse(credential, username);
     }
 
     // ======================= Authentication Endpoints =======================
@@ -101,37 +119,81 @@ public class AuthController {
         return generateAuthenticationResponse(success, username);
     }
 
+    // ======================= One-Round-Trip Authentication Endpoints =======================
+
+    /**
+     * Publishes the epoch nonce that one-round-trip logins sign. The same for every user, so clients and
+     * CDNs may cache it until it expires.
+     *
+     * @return LoginEpochDto with the current epoch and its nonce, or 404 if one-round-trip logins are disabled.
+     */
+    @GetMapping("/login/epoch")
+    public ResponseEntity<LoginEpochDto> loginEpoch() {
+        if (!loginEpochs.isEnabled()) return ResponseEntity.notFound().build();
+
+        return ResponseEntity.ok(loginEpochs.currentEpoch());
+    }
+
+    /**
+     * Authenticates in a single request: the client signs a message built from the epoch nonce, its clock,
+     * a fresh random value and its username, and sends both signatures straight here.
+     *
+     * @param requestDto The signed login message.
+     * @param username   The username associated with authentication.
+     * @return AuthenticationResultDto indicating success/failure along with a JWT token if successful,
+     * or 404 if one-round-trip logins are disabled.
+     * @throws Exception If verification fails.
+     */
+    @PostMapping("/login/direct")
+    public ResponseEntity<AuthenticationResultDto> directAuthentication(
+            @RequestBody DirectLoginRequestDto requestDto,
+            @RequestParam String username) throws Exception {
+        if (!loginEpochs.isEnabled()) return ResponseEntity.notFound().build();
+
+        logger.info("[DIRECT AUTHENTICATION] - Verifying one-round-trip login for user: {}", username);
+
+        boolean success = authService.finishDirectAuthentication(requestDto, username);
+        return generateAuthenticationResponse(success, username);
+    }
+
     // ======================= Helper Methods =======================
 
     /**
-     * Logs formatted public keys for debugging purposes.
+     * Checks an optional Authorization header for a valid token issued to the given user.
+     * The JWT filter skips /auth/**, so registration endpoints validate the header themselves.
      *
-     * @param publicKeyDilithium Base64-encoded Dilithium public key.
-     * @param publicKeyRSA       Base64-encoded RSA public key.
+     * @param authorization The Authorization header, or null.
+     * @param username      The user the token must belong to.
+     * @return True if the header holds a valid, unexpired token for the user.
      */
-    private void logPublicKeys(String publicKeyDilithium, String publicKeyRSA) {
-        logger.debug("Public Key (Dilithium): {}", formatKey(publicKeyDilithium));
-        logger.debug("Public Key (RSA): {}", formatKey(publicKeyRSA));
+    private boolean isAuthenticatedAs(String authorization, String username) {
+        return authorization != null && authorization.startsWith("Bearer ")
+                && metrics.phase(HandshakeMetrics.Phase.JWT_VALIDATE)
+                        .record(() -> jwtUtil.validateToken(authorization.substring(7), username));
     }
 
     /**
      * Generates a standardized registration response.
      *
-     * @param success  Indicates whether registration was successful.
-     * @param username The username associated with the registration.
+     * @param credential The new credential's ID and key fingerprints, or empty if registration failed.
+     * @param username   The username associated with the registration.
      * @return ResponseEntity containing RegistrationResultDto.
      */
-    private ResponseEntity<RegistrationResultDto> generateRegistrationResponse(boolean success, String username) {
+    private ResponseEntity<RegistrationResultDto> generateRegistrationResponse(Optional<CredentialFingerprint> credential,
+                                                                               String username) {
         RegistrationResultDto resultDto = new RegistrationResultDto();
-        resultDto.setSuccess(success);
+        resultDto.setSuccess(credential.isPresent());
 
-        if (success) {
-            logger.info("[REGISTRATION SUCCESS] - User: {}", username);
+        if (credential.isPresent()) {
+            logger.info("[REGISTRATION SUCCESS] - User: {}, Credential: {}, RSA key: {}, Dilithium key: {}",
+                    username, credential.get().credentialId(),
+                    bytesToHex(credential.get().fingerprintRSA()), bytesToHex(credential.get().fingerprintDilithium()));
 
             // Generate JWT token
-            String token = jwtUtil.generateToken(username);
+            String token = metrics.phase(HandshakeMetrics.Phase.JWT_MINT).record(() -> jwtUtil.generateToken(username));
             resultDto.setMessage("Registration successful");
             resultDto.setToken(token);
+            resultDto.setCredentialId(credential.get().credentialId());
 
             logger.info("[TOKEN ISSUED] - User: {}, Token: {}", username, token);
             return ResponseEntity.ok(resultDto);
@@ -157,7 +219,7 @@ public class AuthController {
             logger.info("[AUTHENTICATION SUCCESS] - User: {}", username);
 
             // Generate JWT token
-            String token = jwtUtil.generateToken(username);
+            String token = metrics.phase(HandshakeMetrics.Phase.JWT_MINT).record(() -> jwtUtil.generateToken(username));
             resultDto.setMessage("Authentication successful");
             resultDto.setToken(token);
 
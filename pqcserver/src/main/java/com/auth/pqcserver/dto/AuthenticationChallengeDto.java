@@ -7,6 +7,9 @@ public class AuthenticationChallengeDto {
     private String challenge;
     private Long userid;
 
+    // Only present while the server requires proof of work
+    private PuzzleDto puzzle;
+
     public AuthenticationChallengeDto(String challenge, Long id) {
         this.challenge = challenge;
         this.userid = id;
@@ -1,10 +1,19 @@
 package com.auth.pqcserver.dto;
 
+import com.auth.pqcserver.utils.BoundedBase64;
+import com.auth.pqcserver.utils.SecurityUtils;
 import lombok.Data;
 
 @Data
 public class AuthenticationResponseDto {
-    private String signatureDilithium;
-    private String signatureRSA;
+    @BoundedBase64(maxBytes = SecurityUtils.MAX_DILITHIUM_BYTES)
+    private byte[] signatureDilithium;
+    @BoundedBase64(maxBytes = SecurityUtils.MAX_RSA_BYTES)
+    private byte[] signatureRSA;
     private Long userid;
+
+    // Credential the challenge was signed with; null selects the user's primary credential
+    private Long credentialId;
+
+    private PuzzleDto puzzle;
 }
@@ -0,0 +1,20 @@
+package com.auth.pqcserver.dto;
+
+import com.auth.pqcserver.repository.projection.CredentialFingerprint;
+import com.auth.pqcserver.utils.SecurityUtils;
+import lombok.Data;
+
+@Data
+public class CredentialFingerprintDto {
+    private Long credentialId;
+
+    // Lowercase hex SHA-256 of each public key's SubjectPublicKeyInfo
+    private String fingerprintRSA;
+    private String fingerprintDilithium;
+
+    public CredentialFingerprintDto(CredentialFingerprint credential) {
+        this.credentialId = credential.credentialId();
+        this.fingerprintRSA = SecurityUtils.bytesToHex(credential.fingerprintRSA());
+        this.fingerprintDilithium = SecurityUtils.bytesToHex(credential.fingerprintDilithium());
+    }
+}
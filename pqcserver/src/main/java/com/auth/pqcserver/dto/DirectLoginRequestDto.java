@@ -0,0 +1,25 @@
+package com.auth.pqcserver.dto;
+
+import com.auth.pqcserver.utils.BoundedBase64;
+import com.auth.pqcserver.utils.SecurityUtils;
+import lombok.Data;
+
+/**
+ * One-round-trip login: both signatures cover
+ * {@code "pqc-login:" + nonce + ":" + timestamp + ":" + clientRandom + ":" + username}, where nonce is
+ * that of {@code epoch} from {@code GET /auth/login/epoch}.
+ */
+@Data
+public class DirectLoginRequestDto {
+    private long epoch;
+    private long timestamp;          // Client clock, epoch millis
+    private String clientRandom;     // 16 to 64 random bytes, base64url; never reuse
+
+    // Credential the message was signed with; null selects the user's primary credential
+    private Long credentialId;
+
+    @BoundedBase64(maxBytes = SecurityUtils.MAX_RSA_BYTES)
+    private byte[] signatureRSA;
+    @BoundedBase64(maxBytes = SecurityUtils.MAX_DILITHIUM_BYTES)
+    private byte[] signatureDilithium;
+}
@@ -0,0 +1,21 @@
+package com.auth.pqcserver.dto;
+
+import com.auth.pqcserver.store.ExportedUser.ExportedCredential;
+import lombok.Data;
+
+import java.util.Base64;
+
+@Data
+public class ExportedCredentialDto {
+    private Long credentialId;
+    private String publicKeyRSA;        // Base64 of the DER-encoded key, as sent at registration
+    private String publicKeyDilithium;
+
+    public ExportedCredentialDto() {}
+
+    public ExportedCredentialDto(ExportedCredential credential) {
+        this.credentialId = credential.credentialId();
+        this.publicKeyRSA = Base64.getEncoder().encodeToString(credential.publicKeyRSA());
+        this.publicKeyDilithium = Base64.getEncoder().encodeToString(credential.publicKeyDilithium());
+    }
+}
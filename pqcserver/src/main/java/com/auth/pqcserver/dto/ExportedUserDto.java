@@ -0,0 +1,21 @@
+package com.auth.pqcserver.dto;
+
+import com.auth.pqcserver.store.ExportedUser;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class ExportedUserDto {
+    private String username;
+    private String email;
+    private List<ExportedCredentialDto> credentials;   // Primary credential first
+
+    public ExportedUserDto() {}
+
+    public ExportedUserDto(ExportedUser user) {
+        this.username = user.username();
+        this.email = user.email();
+        this.credentials = user.credentials().stream().map(ExportedCredentialDto::new).toList();
+    }
+}
@@ -0,0 +1,13 @@
+package com.auth.pqcserver.dto;
+
+import lombok.Data;
+
+@Data
+public class ImportProgressDto {
+    private String type;       // "progress" after each batch, "summary" once at the end
+    private long lines;        // Non-blank lines read so far
+    private long imported;
+    private long failed;       // Rows reported with an error line
+    private long elapsedMs;
+    private String error;      // Why the import stopped early, null otherwise
+}
@@ -0,0 +1,17 @@
+package com.auth.pqcserver.dto;
+
+import lombok.Data;
+
+@Data
+public class ImportRowErrorDto {
+    private final String type = "error";
+    private long line;         // 1-based line number in the uploaded file
+    private String username;   // Null if the line could not be parsed
+    private String reason;
+
+    public ImportRowErrorDto(long line, String username, String reason) {
+        this.line = line;
+        this.username = username;
+        this.reason = reason;
+    }
+}
@@ -0,0 +1,12 @@
+package com.auth.pqcserver.dto;
+
+import lombok.Data;
+
+@Data
+public class JfrRecordingDto {
+    private String state;      // NONE, RUNNING, STOPPED or CLOSED
+    private String settings;   // JFC configuration the recording was started with
+    private Long startTime;    // Epoch millis, null if never started
+    private Long sizeBytes;    // Bytes written to the repository so far
+    private String message;
+}
@@ -0,0 +1,22 @@
+package com.auth.pqcserver.dto;
+
+import lombok.Data;
+
+/**
+ * Server-published nonce for one-round-trip logins. Clients may cache it until {@code expiresAt}; the
+ * previous epoch's nonce is still accepted for one more epoch.
+ */
+@Data
+public class LoginEpochDto {
+    private long epoch;
+    private String nonce;
+    private long expiresAt;          // Epoch millis at which the next epoch starts
+    private long maxClockSkewMs;     // How far the signed timestamp may be from the server clock
+
+    public LoginEpochDto(long epoch, String nonce, long expiresAt, long maxClockSkewMs) {
+        this.epoch = epoch;
+        this.nonce = nonce;
+        this.expiresAt = expiresAt;
+        this.maxClockSkewMs = maxClockSkewMs;
+    }
+}
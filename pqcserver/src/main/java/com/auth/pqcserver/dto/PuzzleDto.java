@@ -0,0 +1,29 @@
+package com.auth.pqcserver.dto;
+
+import lombok.Data;
+
+/**
+ * Hash-preimage puzzle issued with a login challenge while the server is under verification load.
+ * <p>
+ * The client must find a {@code solution} such that SHA-256(seed + ":" + solution) starts with
+ * {@code difficulty} zero bits, and echo the whole puzzle back with the authentication response.
+ */
+@Data
+public class PuzzleDto {
+    private String seed;
+    private int difficulty;
+    private long expiresAt;
+    private String mac;
+
+    // Filled in by the client
+    private String solution;
+
+    public PuzzleDto() {}
+
+    public PuzzleDto(String seed, int difficulty, long expiresAt, String mac) {
+        this.seed = seed;
+        this.difficulty = difficulty;
+        this.expiresAt = expiresAt;
+        this.mac = mac;
+    }
+}
@@ -1,14 +1,20 @@
 package com.auth.pqcserver.dto;
 
+import com.auth.pqcserver.utils.BoundedBase64;
+import com.auth.pqcserver.utils.SecurityUtils;
 import lombok.Data;
 
 @Data
 public class RegistrationResponseDto {
-    private String signatureDilithium;
-    private String signatureRSA;
+    @BoundedBase64(maxBytes = SecurityUtils.MAX_DILITHIUM_BYTES)
+    private byte[] signatureDilithium;
+    @BoundedBase64(maxBytes = SecurityUtils.MAX_RSA_BYTES)
+    private byte[] signatureRSA;
 
-    private String publicKeyDilithium;
-    private String publicKeyRSA;
+    @BoundedBase64(maxBytes = SecurityUtils.MAX_DILITHIUM_BYTES)
+    private byte[] publicKeyDilithium;
+    @BoundedBase64(maxBytes = SecurityUtils.MAX_RSA_BYTES)
+    private byte[] publicKeyRSA;
 
     private Long userid;
 
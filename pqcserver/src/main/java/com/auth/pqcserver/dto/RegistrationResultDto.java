@@ -7,4 +7,7 @@ public class RegistrationResultDto {
     private boolean success;
     private String message;
     private String token;
+
+    // ID of the stored credential; the client sends it back with every login from this device
+    private Long credentialId;
 }
\ No newline at end of file
@@ -2,6 +2,8 @@ package com.auth.pqcserver.dto;
 
 import lombok.Data;
 
+import java.util.Base64;
+
 @Data
 public class UserCredentialDto {
     private String username;
@@ -9,10 +11,18 @@ public class UserCredentialDto {
     private String publicKeyRSA;
     private String publicKeyDilithium;
 
+    public UserCredentialDto() {}
+
     public UserCredentialDto(String username, String email, String publicKeyRSA, String publicKeyDilithium) {
         this.publicKeyDilithium = publicKeyDilithium;
         this.username = username;
         this.email = email;
         this.publicKeyRSA = publicKeyRSA;
     }
+
+    // Builds the DTO from raw key bytes as stored in the credential table
+    public UserCredentialDto(String username, String email, byte[] publicKeyRSA, byte[] publicKeyDilithium) {
+        this(username, email, Base64.getEncoder().encodeToString(publicKeyRSA),
+                Base64.getEncoder().encodeToString(publicKeyDilithium));
+    }
 }
@@ -7,26 +7,37 @@ import lombok.Data;
 @Data
 public class Credential {
 
+    // Random ID chosen at registration and sent back by the client on login (see SecurityUtils.generateCredentialId)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    // Public key data or attestation object stored as a large object
-    @Lob
-    private String publicKeyDilithium;
+    // Raw X.509 SubjectPublicKeyInfo bytes; stored as VARBINARY rather than Base64 text
+    @Column(name = "public_key_dilithium", nullable = false, length = 4096)
+    private byte[] publicKeyDilithium;
 
-    @Lob
-    private String publicKeyRSA;
+    @Column(name = "public_key_rsa", nullable = false, length = 1024)
+    private byte[] publicKeyRSA;
 
+    // SHA-256 of each SubjectPublicKeyInfo, computed once at registration (see SecurityUtils.fingerprint)
+    @Column(name = "fingerprint_dilithium", nullable = false, length = 32)
+    private byte[] fingerprintDilithium;
 
-    @ManyToOne
+    @Column(name = "fingerprint_rsa", nullable = false, length = 32)
+    private byte[] fingerprintRSA;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
     public Credential() {}
 
-    public Credential(String publicKeyDilithium, String publicKeyRSA, User user) {
+    public Credential(Long id, byte[] publicKeyDilithium, byte[] publicKeyRSA,
+                      byte[] fingerprintDilithium, byte[] fingerprintRSA, User user) {
+        this.id = id;
         this.publicKeyDilithium = publicKeyDilithium;
         this.publicKeyRSA = publicKeyRSA;
+        this.fingerprintDilithium = fingerprintDilithium;
+        this.fingerprintRSA = fingerprintRSA;
         this.user = user;
     }
 
@@ -0,0 +1,32 @@
+package com.auth.pqcserver.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * A registration or login challenge handed to a client. The duration covers the lookup, the challenge
+ * generation and queueing the challenge for the store.
+ */
+@Name("com.auth.pqcserver.ChallengeIssued")
+@Label("Challenge Issued")
+@Description("Registration or login challenge issued to a client")
+@Category({"PQC Server", "Authentication"})
+@Threshold("0 ms")
+@StackTrace(false)
+public class ChallengeIssuedEvent extends jdk.jfr.Event {
+
+    @Label("Username")
+    public String username;
+
+    @Label("Purpose")
+    @Description("\"registration\" or \"login\"")
+    public String purpose;
+
+    @Label("Puzzle Difficulty")
+    @Description("Leading zero bits required by the proof-of-work puzzle, 0 if none was issued")
+    public int puzzleDifficulty;
+}
@@ -0,0 +1,106 @@
+package com.auth.pqcserver.jfr;
+
+import com.auth.pqcserver.dto.JfrRecordingDto;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+
+/**
+ * Owns the single on-demand Flight Recorder recording controlled through the admin endpoints.
+ * <p>
+ * The recording uses a built-in JFC configuration ({@code jfr.settings}, "profile" by default), so GC,
+ * safepoint and allocation events sit on the same timeline as this application's authentication events.
+ * Those are enabled by default with the thresholds declared on the event classes. Data is kept on disk,
+ * bounded by {@code jfr.max-age-seconds} and {@code jfr.max-size-bytes}, and stays available for dumping
+ * after the recording is stopped until the next one starts.
+ */
+@Service
+public class JfrRecordingService {
+
+    private final String settings;
+    private final Duration maxAge;
+    private final long maxSizeBytes;
+
+    private Recording recording;
+
+    public JfrRecordingService(@Value("${jfr.settings}") String settings,
+                               @Value("${jfr.max-age-seconds}") long maxAgeSeconds,
+                               @Value("${jfr.max-size-bytes}") long maxSizeBytes) {
+        this.settings = settings;
+        this.maxAge = Duration.ofSeconds(maxAgeSeconds);
+        this.maxSizeBytes = maxSizeBytes;
+    }
+
+    /**
+     * Starts a new recording, discarding the data of a previous, stopped one.
+     *
+     * @return False if a recording is already running.
+     * @throws IOException    If the JFC configuration cannot be read.
+     * @throws ParseException If the JFC configuration is invalid.
+     */
+    public synchronized boolean start() throws IOException, ParseException {
+        if (recording != null && recording.getState() == RecordingState.RUNNING) return false;
+        if (recording != null) recording.close();
+
+        recording = new Recording(Configuration.getConfiguration(settings));
+        recording.setName("pqcserver");
+        recording.setToDisk(true);
+        recording.setMaxAge(maxAge);
+        recording.setMaxSize(maxSizeBytes);
+        recording.start();
+        return true;
+    }
+
+    /**
+     * Stops the running recording. Its data can still be dumped.
+     *
+     * @return False if no recording is running.
+     */
+    public synchronized boolean stop() {
+        if (recording == null || recording.getState() != RecordingState.RUNNING) return false;
+
+        recording.stop();
+        return true;
+    }
+
+    /**
+     * Writes the current or last recording to a temporary file. The caller deletes it.
+     *
+     * @return The dump file, or null if nothing has been recorded.
+     * @throws IOException If the dump cannot be written.
+     */
+    public synchronized Path dump() throws IOException {
+        if (recording == null) return null;
+
+        Path file = Files.createTempFile("pqcserver-", ".jfr");
+        recording.dump(file);
+        return file;
+    }
+
+    /**
+     * @param message Message to attach to the status.
+     * @return The state of the current or last recording.
+     */
+    public synchronized JfrRecordingDto status(String message) {
+        JfrRecordingDto status = new JfrRecordingDto();
+        status.setSettings(settings);
+        status.setMessage(message);
+
+        if (recording == null) {
+            status.setState("NONE");
+            return status;
+        }
+        status.setState(recording.getState().name());
+        status.setStartTime(recording.getStartTime() == null ? null : recording.getStartTime().toEpochMilli());
+        status.setSizeBytes(recording.getSize());
+        return status;
+    }
+}
@@ -0,0 +1,27 @@
+package com.auth.pqcserver.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * One signature check against a decoded public key. The default threshold keeps only verifications slow
+ * enough to be worth correlating with GC or safepoint pauses; lower it in the recording settings to see all.
+ */
+@Name("com.auth.pqcserver.SignatureVerified")
+@Label("Signature Verified")
+@Description("RSA or Dilithium signature verification over a challenge")
+@Category({"PQC Server", "Authentication"})
+@Threshold("1 ms")
+@StackTrace(false)
+public class SignatureVerifiedEvent extends jdk.jfr.Event {
+
+    @Label("Algorithm")
+    public String algorithm;
+
+    @Label("Valid")
+    public boolean valid;
+}
@@ -0,0 +1,23 @@
+package com.auth.pqcserver.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * A JWT issued after a successful registration or login.
+ */
+@Name("com.auth.pqcserver.TokenMinted")
+@Label("Token Minted")
+@Description("JWT signed for an authenticated user")
+@Category({"PQC Server", "Authentication"})
+@Threshold("1 ms")
+@StackTrace(false)
+public class TokenMintedEvent extends jdk.jfr.Event {
+
+    @Label("Username")
+    public String username;
+}
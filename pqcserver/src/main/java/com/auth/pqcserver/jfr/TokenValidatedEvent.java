@@ -0,0 +1,26 @@
+package com.auth.pqcserver.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * A JWT checked for a protected request or an additional-device registration.
+ */
+@Name("com.auth.pqcserver.TokenValidated")
+@Label("Token Validated")
+@Description("JWT signature, subject and expiry check")
+@Category({"PQC Server", "Authentication"})
+@Threshold("1 ms")
+@StackTrace(false)
+public class TokenValidatedEvent extends jdk.jfr.Event {
+
+    @Label("Username")
+    public String username;
+
+    @Label("Valid")
+    public boolean valid;
+}
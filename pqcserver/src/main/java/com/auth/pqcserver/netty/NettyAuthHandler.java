@@ -0,0 +1,273 @@
+package com.auth.pqcserver.netty;
+
+import com.auth.pqcserver.config.RateLimitFilter;
+import com.auth.pqcserver.dto.AuthenticationResponseDto;
+import com.auth.pqcserver.dto.AuthenticationResultDto;
+import com.auth.pqcserver.service.AuthService;
+import com.auth.pqcserver.service.HandshakeMetrics;
+import com.auth.pqcserver.utils.AuthFrameCodec;
+import com.auth.pqcserver.utils.JwtUtils;
+import com.auth.pqcserver.utils.TokenBucketRateLimiter.Decision;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.QueryStringDecoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Serves the login endpoints for {@link NettyAuthServer}. Shared by all connections: it holds no
+ * per-connection state.
+ * <p>
+ * Runs on the event loop only to route the request, apply the rate limits and parse the body, all of which
+ * take microseconds; the body buffer is released as soon as it is parsed. The {@link AuthService} call and
+ * token minting run on the worker pool, which writes the response back through the channel. Responses use
+ * the same encodings and bodies as {@code AuthController}, with 400 when a login fails and 429 when rate
+ * limited. Requests the servlet stack turns into an error page, such as an unknown user or an unreadable
+ * body, get an empty 400 here.
+ */
+@ChannelHandler.Sharable
+class NettyAuthHandler extends SimpleChannelInboundHandler<FullHttpRequest> {
+
+    private static final Logger logger = LoggerFactory.getLogger(NettyAuthHandler.class);
+
+    private static final String LOGIN_START = HandshakeMetrics.Endpoint.LOGIN_START.path();
+    private static final String LOGIN_FINISH = HandshakeMetrics.Endpoint.LOGIN_FINISH.path();
+
+    /**
+     * Body encodings, matched against Content-Type and Accept like the message converters of the servlet
+     * stack; JSON when neither names one of the others.
+     */
+    private enum Encoding {
+        JSON("application/json"), CBOR("application/cbor"), FRAME(AuthFrameCodec.MEDIA_TYPE);
+
+        private final String mediaType;
+
+        Encoding(String mediaType) {
+            this.mediaType = mediaType;
+        }
+
+        static Encoding forHeader(String header) {
+            if (header == null) return JSON;
+            String value = header.toLowerCase(Locale.ROOT);
+            for (Encoding encoding : values()) {
+                if (value.contains(encoding.mediaType)) return encoding;
+            }
+            return JSON;
+        }
+    }
+
+    private final AuthService authService;
+    private final JwtUtils jwtUtils;
+    private final HandshakeMetrics metrics;
+    private final RateLimitFilter rateLimitFilter;
+    private final ObjectMapper jsonMapper;
+    private final ObjectMapper cborMapper = Jackson2ObjectMapperBuilder.cbor().build();
+    private final ExecutorService workers;
+
+    NettyAuthHandler(AuthService authService, JwtUtils jwtUtils, HandshakeMetrics metrics,
+                     RateLimitFilter rateLimitFilter, ObjectMapper jsonMapper, ExecutorService workers) {
+        this.authService = authService;
+        this.jwtUtils = jwtUtils;
+        this.metrics = metrics;
+        this.rateLimitFilter = rateLimitFilter;
+        this.jsonMapper = jsonMapper;
+        this.workers = workers;
+    }
+
+    @Override
+    protected void channelRead0(ChannelHandlerContext ctx, FullHttpRequest request) {
+        QueryStringDecoder uri = new QueryStringDecoder(request.uri());
+        String path = uri.path();
+        boolean start = path.equals(LOGIN_START);
+        if (!start && !path.equals(LOGIN_FINISH)) {
+            ctx.writeAndFlush(emptyResponse(request, HttpResponseStatus.NOT_FOUND));
+            return;
+        }
+        if (!request.method().equals(HttpMethod.POST)) {
+            ctx.writeAndFlush(emptyResponse(request, HttpResponseStatus.METHOD_NOT_ALLOWED));
+            return;
+        }
+
+        List<String> usernames = uri.parameters().get("username");
+        String username = usernames == null || usernames.isEmpty() ? null : usernames.get(0);
+
+        Decision decision = rateLimitFilter.tryAcquire(path, remoteAddress(ctx), username);
+        if (decision != null && !decision.allowed()) {
+            FullHttpResponse response = response(request.protocolVersion(), HttpUtil.isKeepAlive(request),
+                    HttpResponseStatus.TOO_MANY_REQUESTS, "application/json",
+                    Unpooled.copiedBuffer(RateLimitFilter.TOO_MANY_REQUESTS_BODY, StandardCharsets.UTF_8));
+            response.headers().set("Retry-After", decision.retryAfterSeconds());
+            ctx.writeAndFlush(withLimits(response, decision));
+            return;
+        }
+        if (username == null) {
+            ctx.writeAndFlush(withLimits(emptyResponse(request, HttpResponseStatus.BAD_REQUEST), decision));
+            return;
+        }
+
+        Encoding accept = Encoding.forHeader(request.headers().get(HttpHeaderNames.ACCEPT));
+        Callable<Reply> step;
+        if (start) {
+            logger.debug("[START AUTHENTICATION] - Generating authentication challenge for user: {}", username);
+            step = () -> new Reply(HttpResponseStatus.OK, authService.startAuthentication(username));
+        } else {
+            AuthenticationResponseDto responseDto;
+            try {
+                responseDto = read(request, AuthenticationResponseDto.class);
+            } catch (IOException e) {
+                logger.debug("[FINISH AUTHENTICATION] - Unreadable body for user: {}: {}", username, e.getMessage());
+                ctx.writeAndFlush(withLimits(emptyResponse(request, HttpResponseStatus.BAD_REQUEST), decision));
+                return;
+            }
+            logger.debug("[FINISH AUTHENTICATION] - Verifying authentication for user: {}", username);
+            step = () -> authenticationResult(authService.finishAuthentication(responseDto, username), username);
+        }
+
+        boolean keepAlive = HttpUtil.isKeepAlive(request);
+        HttpVersion version = request.protocolVersion();
+        try {
+            workers.execute(() -> ctx.writeAndFlush(withLimits(reply(ctx, step, accept, version, keepAlive, username), decision)));
+        } catch (RejectedExecutionException e) {
+            logger.warn("[NETTY SATURATED] - Worker queue full, rejecting {} for user: {}", path, username);
+            ctx.writeAndFlush(withLimits(emptyResponse(request, HttpResponseStatus.SERVICE_UNAVAILABLE), decision));
+        }
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+        logger.debug("[NETTY CONNECTION ERROR] - {}: {}", remoteAddress(ctx), cause.toString());
+        ctx.close();
+    }
+
+    // ======================= Worker Side =======================
+
+    /**
+     * Runs a login step and encodes its result. Called on a worker thread.
+     */
+    private FullHttpResponse reply(ChannelHandlerContext ctx, Callable<Reply> step, Encoding encoding,
+                                   HttpVersion version, boolean keepAlive, String username) {
+        Reply reply;
+        try {
+            reply = step.call();
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            logger.debug("[AUTHENTICATION REJECTED] - User: {}, Reason: {}", username, e.getMessage());
+            return emptyResponse(version, keepAlive, HttpResponseStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            logger.error("[AUTHENTICATION ERROR] - User: {}", username, e);
+            return emptyResponse(version, keepAlive, HttpResponseStatus.INTERNAL_SERVER_ERROR);
+        }
+
+        ByteBuf body = ctx.alloc().buffer();
+        try (OutputStream out = new ByteBufOutputStream(body)) {
+            switch (encoding) {
+                case JSON -> jsonMapper.writeValue(out, reply.body());
+                case CBOR -> cborMapper.writeValue(out, reply.body());
+                case FRAME -> AuthFrameCodec.write(reply.body(), out);
+            }
+        } catch (IOException e) {
+            body.release();
+            logger.error("[AUTHENTICATION ERROR] - Could not encode response for user: {}", username, e);
+            return emptyResponse(version, keepAlive, HttpResponseStatus.INTERNAL_SERVER_ERROR);
+        }
+        return response(version, keepAlive, reply.status(), encoding.mediaType, body);
+    }
+
+    /**
+     * Builds the same result {@code AuthController} returns, minting the token on success.
+     */
+    private Reply authenticationResult(boolean success, String username) {
+        AuthenticationResultDto resultDto = new AuthenticationResultDto();
+        resultDto.setSuccess(success);
+        if (!success) {
+            logger.debug("[AUTHENTICATION FAILED] - User: {}", username);
+            resultDto.setMessage("Authentication failed");
+            return new Reply(HttpResponseStatus.BAD_REQUEST, resultDto);
+        }
+
+        String token = metrics.phase(HandshakeMetrics.Phase.JWT_MINT).record(() -> jwtUtils.generateToken(username));
+        resultDto.setMessage("Authentication successful");
+        resultDto.setToken(token);
+        logger.debug("[AUTHENTICATION SUCCESS] - User: {}", username);
+        return new Reply(HttpResponseStatus.OK, resultDto);
+    }
+
+    // ======================= Helper Methods =======================
+
+    private <T> T read(FullHttpRequest request, Class<T> type) throws IOException {
+        Encoding encoding = Encoding.forHeader(request.headers().get(HttpHeaderNames.CONTENT_TYPE));
+        try (InputStream in = new ByteBufInputStream(request.content())) {
+            T value = switch (encoding) {
+                case JSON -> jsonMapper.readValue(in, type);
+                case CBOR -> cborMapper.readValue(in, type);
+                case FRAME -> AuthFrameCodec.read(type, in);
+            };
+            if (value == null) throw new IOException("Empty body");
+            return value;
+        }
+    }
+
+    private static FullHttpResponse emptyResponse(FullHttpRequest request, HttpResponseStatus status) {
+        return emptyResponse(request.protocolVersion(), HttpUtil.isKeepAlive(request), status);
+    }
+
+    private static FullHttpResponse emptyResponse(HttpVersion version, boolean keepAlive, HttpResponseStatus status) {
+        FullHttpResponse response = new DefaultFullHttpResponse(version, status, Unpooled.EMPTY_BUFFER);
+        HttpUtil.setContentLength(response, 0);
+        HttpUtil.setKeepAlive(response, keepAlive);
+        return response;
+    }
+
+    private static FullHttpResponse response(HttpVersion version, boolean keepAlive, HttpResponseStatus status,
+                                             String contentType, ByteBuf body) {
+        FullHttpResponse response = new DefaultFullHttpResponse(version, status, body);
+        response.headers().set(HttpHeaderNames.CONTENT_TYPE, contentType);
+        HttpUtil.setContentLength(response, body.readableBytes());
+        HttpUtil.setKeepAlive(response, keepAlive);
+        return response;
+    }
+
+    private static FullHttpResponse withLimits(FullHttpResponse response, Decision decision) {
+        if (decision != null) {
+            response.headers().set("X-RateLimit-Limit", decision.limit());
+            response.headers().set("X-RateLimit-Remaining", decision.remaining());
+        }
+        return response;
+    }
+
+    private static String remoteAddress(ChannelHandlerContext ctx) {
+        return ctx.channel().remoteAddress() instanceof InetSocketAddress address
+                ? address.getAddress().getHostAddress()
+                : String.valueOf(ctx.channel().remoteAddress());
+    }
+
+    /**
+     * Status and body of a finished login step.
+     */
+    private record Reply(HttpResponseStatus status, Object body) {}
+}
@@ -0,0 +1,142 @@
+package com.auth.pqcserver.netty;
+
+import com.auth.pqcserver.config.RateLimitFilter;
+import com.auth.pqcserver.service.AuthService;
+import com.auth.pqcserver.service.HandshakeMetrics;
+import com.auth.pqcserver.utils.JwtUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.HttpServerKeepAliveHandler;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Optional embedded Netty server that serves only {@code POST /auth/login/start} and
+ * {@code POST /auth/login/finish}, for auth-only edge nodes where the servlet stack around "parse, look up,
+ * verify, mint" costs more than it is worth. It listens on {@code netty.port} next to the regular server and
+ * keeps the same contract: the same query parameters, bodies (JSON, CBOR or frames), status codes and rate
+ * limits, backed by the same {@link AuthService}, credential store and {@link JwtUtils}.
+ * <p>
+ * Event loops only decode HTTP and parse bodies. Each login step then goes to a pool of
+ * {@code netty.worker-threads} threads, so signature verification and store lookups never block a loop;
+ * when its {@code netty.worker-queue-capacity} is full, requests are answered with 503 right away. Request
+ * and response bodies live in pooled direct buffers.
+ * <p>
+ * The port is bound only once the application is ready, after {@link com.auth.pqcserver.service.WarmupRunner}
+ * has finished, so like the servlet stack behind its readiness probe it never serves a cold login path.
+ */
+@Component
+@ConditionalOnProperty(name = "netty.enabled", havingValue = "true")
+public class NettyAuthServer {
+
+    private static final Logger logger = LoggerFactory.getLogger(NettyAuthServer.class);
+
+    private final int port;
+    private final int eventLoopThreads;
+    private final int maxContentLength;
+    private final ThreadPoolExecutor workers;
+    private final NettyAuthHandler handler;
+
+    private EventLoopGroup acceptorGroup;
+    private EventLoopGroup eventLoopGroup;
+    private Channel serverChannel;
+
+    public NettyAuthServer(AuthService authService,
+                           JwtUtils jwtUtils,
+                           HandshakeMetrics metrics,
+                           RateLimitFilter rateLimitFilter,
+                           ObjectMapper objectMapper,
+                           @Value("${netty.port}") int port,
+                           @Value("${netty.event-loop-threads}") int eventLoopThreads,
+                           @Value("${netty.worker-threads}") int workerThreads,
+                           @Value("${netty.worker-queue-capacity}") int workerQueueCapacity,
+                           @Value("${netty.max-content-length}") int maxContentLength) {
+        if (eventLoopThreads < 0 || workerThreads < 0 || workerQueueCapacity < 1 || maxContentLength < 1) {
+            throw new IllegalStateException(
+                    "netty.event-loop-threads and worker-threads must not be negative, worker-queue-capacity and max-content-length must be positive");
+        }
+        this.port = port;
+        this.eventLoopThreads = eventLoopThreads;
+        this.maxContentLength = maxContentLength;
+
+        int threads = workerThreads == 0 ? Runtime.getRuntime().availableProcessors() : workerThreads;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(workerQueueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "netty-auth-worker-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        this.handler = new NettyAuthHandler(authService, jwtUtils, metrics, rateLimitFilter, objectMapper, workers);
+    }
+
+    /**
+     * Binds the port once application runners, including warm-up, have finished.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        acceptorGroup = new NioEventLoopGroup(1, new DefaultThreadFactory("netty-auth-acceptor", true));
+        eventLoopGroup = new NioEventLoopGroup(eventLoopThreads, new DefaultThreadFactory("netty-auth-io", true));
+
+        serverChannel = new ServerBootstrap()
+                .group(acceptorGroup, eventLoopGroup)
+                .channel(NioServerSocketChannel.class)
+                .option(ChannelOption.SO_BACKLOG, 1024)
+                .childOption(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+                .childOption(ChannelOption.TCP_NODELAY, true)
+                .childHandler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel channel) {
+                        channel.pipeline()
+                                .addLast(new HttpServerCodec())
+                                .addLast(new HttpServerKeepAliveHandler())
+                                .addLast(new HttpObjectAggregator(maxContentLength))
+                                .addLast(handler);
+                    }
+                })
+                .bind(port)
+                .syncUninterruptibly()
+                .channel();
+
+        logger.info("[NETTY STARTED] - Port: {}, Event loops: {}, Verification workers: {}",
+                port, eventLoopThreads == 0 ? "default" : eventLoopThreads, workers.getCorePoolSize());
+    }
+
+    /**
+     * Closes the port, drains the event loops and stops the verification workers.
+     */
+    @PreDestroy
+    public void stop() {
+        // Never bound if the context failed before it was ready
+        if (serverChannel != null) {
+            serverChannel.close().syncUninterruptibly();
+            acceptorGroup.shutdownGracefully(0, 2, TimeUnit.SECONDS).syncUninterruptibly();
+            eventLoopGroup.shutdownGracefully(0, 2, TimeUnit.SECONDS).syncUninterruptibly();
+            serverChannel = null;
+            logger.info("[NETTY STOPPED] - Port: {}", port);
+        }
+        workers.shutdown();
+    }
+}
@@ -2,7 +2,14 @@ package com.auth.pqcserver.repository;
 
 import com.auth.pqcserver.entity.Credential;
 import com.auth.pqcserver.entity.User;
+import com.auth.pqcserver.repository.projection.CredentialFingerprint;
+import com.auth.pqcserver.repository.projection.LoginCredentialView;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -11,12 +18,13 @@ import java.util.Optional;
 public interface CredentialRepository extends JpaRepository<Credential, Long> {
 
     /**
-     * Finds a credential associated with a given user.
+     * Finds every credential (one per device) of a given user.
      *
-     * @param user The user whose credential is being searched.
-     * @return An Optional containing the credential if found, otherwise empty.
+     * @param user The user whose credentials are being searched.
+     * @return The user's credentials, empty if registration has not finished.
      */
-    Optional<Credential> findByUser(User user);
+    @Transactional(readOnly = true)
+    List<Credential> findByUser(User user);
 
     /**
      * Checks if a credential exists for a given user.
@@ -24,5 +32,68 @@ public interface CredentialRepository extends JpaRepository<Credential, Long> {
      * @param user The user to check for an existing credential.
      * @return True if a credential exists, false otherwise.
      */
+    @Transactional(readOnly = true)
     boolean existsByUser(User user);
+
+    /**
+     * Fetches the current challenge and the public keys of one credential by primary key, joined to its user.
+     * The username must match, so a credential ID of another user finds nothing.
+     *
+     * @param credentialId The credential ID sent by the client.
+     * @param username     The username being authenticated.
+     * @return An Optional containing the login view if the credential belongs to the user, otherwise empty.
+     */
+    @Transactional(readOnly = true)
+    @Query("select new com.auth.pqcserver.repository.projection.LoginCredentialView("
+            + "u.id, u.challenge, c.publicKeyRSA, c.publicKeyDilithium) "
+            + "from Credential c join c.user u where c.id = :credentialId and u.username = :username")
+    Optional<LoginCredentialView> findLoginViewById(Long credentialId, String username);
+
+    /**
+     * Fetches the current challenge and the public keys of a user's primary credential (lowest ID) in a
+     * single join. Used for clients that do not send a credential ID.
+     *
+     * @param username The username to look up.
+     * @return An Optional containing the login view if the user has a credential, otherwise empty.
+     */
+    @Transactional(readOnly = true)
+    @Query("select new com.auth.pqcserver.repository.projection.LoginCredentialView("
+            + "u.id, u.challenge, c.publicKeyRSA, c.publicKeyDilithium) "
+            + "from Credential c join c.user u where u.username = :username "
+            + "and c.id = (select min(p.id) from Credential p where p.user = u)")
+    Optional<LoginCredentialView> findPrimaryLoginViewByUsername(String username);
+
+    /**
+     * Lists the IDs and key fingerprints of a user's credentials, primary first, without loading the keys.
+     *
+     * @param username The username to look up.
+     * @return The user's credential fingerprints, empty if the user has none.
+     */
+    @Transactional(readOnly = true)
+    @Query("select new com.auth.pqcserver.repository.projection.CredentialFingerprint("
+            + "c.id, c.fingerprintRSA, c.fingerprintDilithium) "
+            + "from Credential c join c.user u where u.username = :username order by c.id")
+    List<CredentialFingerprint> findFingerprintsByUsername(String username);
+
+    /**
+     * Inserts a credential in a single statement unless the user already has {@code limit} or more. The count
+     * is only reliable under concurrent inserts if the caller holds the user row's lock
+     * ({@link UserRepository#lockById}) in the same transaction.
+     *
+     * @param id                   The new credential's ID.
+     * @param userId               The owning user's ID.
+     * @param publicKeyDilithium   DER-encoded Dilithium public key.
+     * @param publicKeyRSA         DER-encoded RSA public key.
+     * @param fingerprintDilithium SHA-256 of the Dilithium public key.
+     * @param fingerprintRSA       SHA-256 of the RSA public key.
+     * @param limit                Number of credentials the user may have at most after the insert.
+     * @return 1 if the credential was inserted, 0 if the user was already at the limit.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "insert into credential (id, user_id, public_key_dilithium, public_key_rsa, fingerprint_dilithium, fingerprint_rsa) "
+            + "select :id, :userId, :publicKeyDilithium, :publicKeyRSA, :fingerprintDilithium, :fingerprintRSA "
+            + "where (select count(*) from credential where user_id = :userId) < :limit", nativeQuery = true)
+    int insertIfBelowLimit(Long id, Long userId, byte[] publicKeyDilithium, byte[] publicKeyRSA,
+                           byte[] fingerprintDilithium, byte[] fingerprintRSA, int limit);
 }
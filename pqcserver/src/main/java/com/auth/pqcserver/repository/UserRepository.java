@@ -1,8 +1,15 @@
 package com.auth.pqcserver.repository;
 
 import com.auth.pqcserver.entity.User;
+import com.auth.pqcserver.repository.projection.CredentialSnapshot;
+import com.auth.pqcserver.repository.projection.RegistrationView;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository for managing User entities.
@@ -15,5 +22,60 @@ public interface UserRepository extends JpaRepository<User, Long> {
      * @param username The username of the user.
      * @return An Optional containing the user if found, otherwise empty.
      */
+    @Transactional(readOnly = true)
     Optional<User> findByUsername(String username);
+
+    /**
+     * Finds only the current challenge of a user.
+     *
+     * @param username The username of the user.
+     * @return An Optional containing the challenge if the user exists, otherwise empty.
+     */
+    @Transactional(readOnly = true)
+    @Query("select u.challenge from User u where u.username = :username")
+    Optional<String> findChallengeByUsername(String username);
+
+    /**
+     * Loads the cacheable part of a user and their primary credential (if any) with a single left join.
+     *
+     * @param username The username of the user.
+     * @return An Optional containing the snapshot if the user exists, otherwise empty.
+     */
+    @Transactional(readOnly = true)
+    @Query("select new com.auth.pqcserver.repository.projection.CredentialSnapshot("
+            + "u.id, u.username, u.email, c.id, c.publicKeyRSA, c.publicKeyDilithium) "
+            + "from User u left join Credential c on c.user = u "
+            + "and c.id = (select min(p.id) from Credential p where p.user = u) where u.username = :username")
+    Optional<CredentialSnapshot> findSnapshotByUsername(String username);
+
+    /**
+     * Fetches a user's challenge and how many credentials already exist, in one query.
+     *
+     * @param username The username of the user.
+     * @return An Optional containing the registration view if the user exists, otherwise empty.
+     */
+    @Transactional(readOnly = true)
+    @Query("select new com.auth.pqcserver.repository.projection.RegistrationView(u.id, u.challenge, "
+            + "(select count(c) from Credential c where c.user = u)) "
+            + "from User u where u.username = :username")
+    Optional<RegistrationView> findRegistrationViewByUsername(String username);
+
+    /**
+     * Locks a user row until the surrounding transaction ends, so concurrent writes to the user's
+     * credentials run one after another.
+     *
+     * @param id The user's ID.
+     * @return The ID if the user exists, otherwise empty.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Query(value = "select id from users where id = :id for update", nativeQuery = true)
+    Optional<Long> lockById(Long id);
+
+    /**
+     * Streams every registered username. Must be consumed inside a transaction and closed afterwards.
+     *
+     * @return A stream of all usernames.
+     */
+    @Query("select u.username from User u")
+    Stream<String> streamAllUsernames();
 }
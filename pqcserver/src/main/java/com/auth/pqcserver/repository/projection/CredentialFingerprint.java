@@ -0,0 +1,12 @@
+package com.auth.pqcserver.repository.projection;
+
+/**
+ * Identifies one credential of a user by its ID and the SHA-256 fingerprints of its public keys, without
+ * the keys themselves. Returned by a successful registration and listed by the admin endpoints.
+ *
+ * @param credentialId         The credential's ID.
+ * @param fingerprintRSA       SHA-256 of the RSA SubjectPublicKeyInfo.
+ * @param fingerprintDilithium SHA-256 of the Dilithium SubjectPublicKeyInfo.
+ */
+public record CredentialFingerprint(Long credentialId, byte[] fingerprintRSA, byte[] fingerprintDilithium) {
+}
@@ -0,0 +1,24 @@
+package com.auth.pqcserver.repository.projection;
+
+/**
+ * Immutable snapshot of a user and their primary credential (the one with the lowest ID). These fields
+ * only change when a credential is added, which invalidates the cache, so snapshots are safe to cache;
+ * the challenge is deliberately not part of it.
+ *
+ * @param userId             The user's ID.
+ * @param username           The username.
+ * @param email              The user's email address.
+ * @param credentialId       ID of the primary credential, or null if registration has not finished.
+ * @param publicKeyRSA       DER-encoded RSA public key, or null if registration has not finished.
+ * @param publicKeyDilithium DER-encoded Dilithium public key, or null if registration has not finished.
+ */
+public record CredentialSnapshot(Long userId, String username, String email, Long credentialId,
+                                 byte[] publicKeyRSA, byte[] publicKeyDilithium) {
+
+    /**
+     * @return True if the user has a stored credential.
+     */
+    public boolean hasCredential() {
+        return publicKeyRSA != null && publicKeyDilithium != null;
+    }
+}
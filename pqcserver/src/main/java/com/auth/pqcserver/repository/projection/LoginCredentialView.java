@@ -0,0 +1,20 @@
+package com.auth.pqcserver.repository.projection;
+
+/**
+ * Everything needed to verify a login with one credential, fetched with a single user/credential join.
+ *
+ * @param userId             The user's ID.
+ * @param challenge          The challenge most recently issued to the user.
+ * @param publicKeyRSA       DER-encoded RSA public key.
+ * @param publicKeyDilithium DER-encoded Dilithium public key.
+ */
+public record LoginCredentialView(Long userId, String challenge, byte[] publicKeyRSA, byte[] publicKeyDilithium) {
+
+    /**
+     * @param newChallenge The challenge to carry instead.
+     * @return A copy carrying a more recent challenge.
+     */
+    public LoginCredentialView withChallenge(String newChallenge) {
+        return new LoginCredentialView(userId, newChallenge, publicKeyRSA, publicKeyDilithium);
+    }
+}
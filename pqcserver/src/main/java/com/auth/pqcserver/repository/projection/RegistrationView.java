@@ -0,0 +1,26 @@
+package com.auth.pqcserver.repository.projection;
+
+/**
+ * Registration state of a user, fetched in one query.
+ *
+ * @param userId          The user's ID.
+ * @param challenge       The registration challenge issued to the user.
+ * @param credentialCount How many credentials are already stored for the user.
+ */
+public record RegistrationView(Long userId, String challenge, long credentialCount) {
+
+    /**
+     * @return True if at least one credential is stored, i.e. a new one would be an additional device.
+     */
+    public boolean hasCredential() {
+        return credentialCount > 0;
+    }
+
+    /**
+     * @param newChallenge The challenge to carry instead.
+     * @return A copy carrying a more recent challenge.
+     */
+    public RegistrationView withChallenge(String newChallenge) {
+        return new RegistrationView(userId, newChallenge, credentialCount);
+    }
+}
@@ -1,60 +1,154 @@
 package com.auth.pqcserver.service;
 
 import com.auth.pqcserver.dto.*;
-import com.auth.pqcserver.entity.Credential;
-import com.auth.pqcserver.entity.User;
-import com.auth.pqcserver.repository.CredentialRepository;
-import com.auth.pqcserver.repository.UserRepository;
+import com.auth.pqcserver.jfr.ChallengeIssuedEvent;
+import com.auth.pqcserver.repository.projection.CredentialFingerprint;
+import com.auth.pqcserver.repository.projection.CredentialSnapshot;
+import com.auth.pqcserver.repository.projection.LoginCredentialView;
+import com.auth.pqcserver.repository.projection.RegistrationView;
+import com.auth.pqcserver.service.HandshakeMetrics.Endpoint;
+import com.auth.pqcserver.service.HandshakeMetrics.Failure;
+import com.auth.pqcserver.service.HandshakeMetrics.Phase;
+import com.auth.pqcserver.store.CredentialStore;
 import com.auth.pqcserver.utils.SecurityUtils;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.security.GeneralSecurityException;
+import java.security.PublicKey;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
 @Service
 public class AuthService {
 
-    private final UserRepository userRepository;
-    private final CredentialRepository credentialRepository;
+    private final CredentialStore credentialStore;
+    private final PuzzleService puzzleService;
+    private final UsernameFilter usernameFilter;
+    private final CredentialCache credentialCache;
+    private final HandshakeMetrics metrics;
+    private final LoginEpochService loginEpochs;
+    private final int maxCredentialsPerUser;
 
-    public AuthService(UserRepository userRepository, CredentialRepository credentialRepository) {
-        this.userRepository = userRepository;
-        this.credentialRepository = credentialRepository;
+    public AuthService(CredentialStore credentialStore, PuzzleService puzzleService,
+                       UsernameFilter usernameFilter, CredentialCache credentialCache, HandshakeMetrics metrics,
+                       LoginEpochService loginEpochs,
+                       @Value("${credentials.max-per-user}") int maxCredentialsPerUser) {
+        this.credentialStore = credentialStore;
+        this.puzzleService = puzzleService;
+        this.usernameFilter = usernameFilter;
+        this.credentialCache = credentialCache;
+        this.metrics = metrics;
+        this.loginEpochs = loginEpochs;
+        this.maxCredentialsPerUser = maxCredentialsPerUser;
     }
 
     // ======================= Registration Methods =======================
 
     /**
-     * Generates a registration challenge for a given username.
+     * Generates a registration challenge for a given username. For an existing user the new challenge
+     * replaces the stored one; since that is also the challenge a login signs, a user who already has a
+     * credential (registering another device) must be authenticated, so nobody else can keep overwriting it.
      *
-     * @param requestDto The registration request containing username and email.
+     * @param requestDto    The registration request containing username and email.
+     * @param authenticated Whether the request carried a valid JWT for this username.
      * @return A DTO containing the generated challenge and user ID.
+     * @throws IllegalStateException If the user has a credential and the caller is not authenticated as them.
      */
-    public RegistrationChallengeDto startRegistration(RegistrationRequestDto requestDto) {
-        String challenge = SecurityUtils.generateChallenge();
+    public RegistrationChallengeDto startRegistration(RegistrationRequestDto requestDto, boolean authenticated) {
+        ChallengeIssuedEvent event = new ChallengeIssuedEvent();
+        event.begin();
+
+        String challenge = metrics.phase(Phase.CHALLENGE_GENERATION).record(SecurityUtils::generateChallenge);
+        String username = requestDto.getUsername();
 
-        User user = userRepository.findByUsername(requestDto.getUsername())
-                .orElseGet(() -> userRepository.save(new User(requestDto.getUsername(), challenge, requestDto.getEmail())));
+        Optional<CredentialSnapshot> existing = metrics.phase(Phase.DB_LOOKUP)
+                .record(() -> findForUser(username, credentialCache::get));
+        if (existing.isPresent()) {
+            if (existing.get().hasCredential() && !authenticated) {
+                metrics.failure(Endpoint.REGISTER_START, Failure.CREDENTIAL_EXISTS);
+                throw new IllegalStateException("Credential already exists for this user.");
+            }
+            credentialStore.setChallenge(username, existing.get().userId(), challenge);
+            metrics.success(Endpoint.REGISTER_START);
+            commit(event, username, "registration", null);
+            return new RegistrationChallengeDto(challenge, existing.get().userId());
+        }
 
-        return new RegistrationChallengeDto(challenge, user.getId());
+        Long createdId = credentialStore.insertUserIfAbsent(username, requestDto.getEmail(), challenge);
+        usernameFilter.add(username);
+        metrics.success(Endpoint.REGISTER_START);
+        commit(event, username, "registration", null);
+        return new RegistrationChallengeDto(challenge, createdId);
     }
 
     /**
-     * Verifies the registration response and stores the user's credential.
+     * Verifies the registration response and stores the keys as a new credential of the user, together
+     * with their fingerprints. Anyone holding the registration challenge may register a user's first
+     * credential; every further credential (another device) must be registered by a caller already
+     * authenticated as that user.
      *
-     * @param responseDto The registration response containing public keys.
-     * @param username    The username associated with the registration.
-     * @return True if registration is successful, otherwise throws an exception.
-     * @throws Exception If verification fails.
+     * @param responseDto   The registration response containing public keys.
+     * @param username      The username associated with the registration.
+     * @param authenticated Whether the request carried a valid JWT for this username.
+     * @return The new credential's ID and key fingerprints, or empty if the signatures did not verify.
+     * @throws Exception If the user may not add a credential or verification fails.
      */
-    public boolean finishRegistration(RegistrationResponseDto responseDto, String username) throws Exception {
-        User user = getUserByUsername(username);
+    public Optional<CredentialFingerprint> finishRegistration(RegistrationResponseDto responseDto, String username,
+                                             boolean authenticated) throws Exception {
+        RegistrationView registration = metrics.phase(Phase.DB_LOOKUP)
+                .record(() -> findForUser(username, credentialStore::findRegistrationView))
+                .orElse(null);
+        if (registration == null) {
+            metrics.failure(Endpoint.REGISTER_FINISH, Failure.UNKNOWN_USER);
+            throw new IllegalStateException("User not found: " + username);
+        }
 
-        if (credentialRepository.existsByUser(user)) {
+        if (registration.hasCredential() && !authenticated) {
+            metrics.failure(Endpoint.REGISTER_FINISH, Failure.CREDENTIAL_EXISTS);
             throw new IllegalStateException("Credential already exists for this user.");
         }
+        if (registration.credentialCount() >= maxCredentialsPerUser) {
+            metrics.failure(Endpoint.REGISTER_FINISH, Failure.CREDENTIAL_LIMIT);
+            throw new IllegalStateException("Credential limit reached for this user.");
+        }
 
-        Credential credential = new Credential(responseDto.getPublicKeyDilithium(), responseDto.getPublicKeyRSA(), user);
-        credentialRepository.save(credential);
+        byte[] publicKeyRSA = responseDto.getPublicKeyRSA();
+        byte[] publicKeyDilithium = responseDto.getPublicKeyDilithium();
+        boolean verified;
+        puzzleService.verificationStarted();
+        try {
+            verified = verifySignatures(responseDto.getSignatureRSA(), responseDto.getSignatureDilithium(),
+                    publicKeyRSA, publicKeyDilithium, registration.challenge());
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            metrics.failure(Endpoint.REGISTER_FINISH, Failure.MALFORMED);
+            throw e;
+        } finally {
+            puzzleService.verificationFinished();
+        }
 
-        return SecurityUtils.verifyRegistrationResponse(responseDto, credential, user.getChallenge());
+        // Only store keys that proved possession
+        if (!verified) {
+            metrics.failure(Endpoint.REGISTER_FINISH, Failure.BAD_SIGNATURE);
+            return Optional.empty();
+        }
+
+        // Re-checked by the store under the user's lock: without a token only a first credential may be stored
+        CredentialFingerprint credential = new CredentialFingerprint(SecurityUtils.generateCredentialId(),
+                SecurityUtils.fingerprint(publicKeyRSA), SecurityUtils.fingerprint(publicKeyDilithium));
+        if (!credentialStore.insertCredential(username, registration.userId(), credential.credentialId(),
+                publicKeyDilithium, publicKeyRSA, credential.fingerprintDilithium(), credential.fingerprintRSA(),
+                authenticated ? maxCredentialsPerUser : 1)) {
+            metrics.failure(Endpoint.REGISTER_FINISH, authenticated ? Failure.CREDENTIAL_LIMIT : Failure.CREDENTIAL_EXISTS);
+            throw new IllegalStateException(authenticated
+                    ? "Credential limit reached for this user."
+                    : "Credential already exists for this user.");
+        }
+        credentialCache.invalidate(username);
+        metrics.success(Endpoint.REGISTER_FINISH);
+        return Optional.of(credential);
     }
 
     // ======================= Authentication Methods =======================
@@ -63,20 +157,35 @@ public class AuthService {
      * Generates an authentication challenge for a given username.
      *
      * @param username The username requesting authentication.
-     * @return A DTO containing the generated challenge and user ID.
+     * @return A DTO containing the generated challenge, user ID and, under load, a proof-of-work puzzle.
      */
     public AuthenticationChallengeDto startAuthentication(String username) {
-        User user = getUserByUsername(username);
+        ChallengeIssuedEvent event = new ChallengeIssuedEvent();
+        event.begin();
+
+        Long userId = metrics.phase(Phase.DB_LOOKUP)
+                .record(() -> findForUser(username, credentialCache::get))
+                .map(CredentialSnapshot::userId)
+                .orElse(null);
+        if (userId == null) {
+            metrics.failure(Endpoint.LOGIN_START, Failure.UNKNOWN_USER);
+            throw new IllegalStateException("User not found: " + username);
+        }
 
-        String challenge = SecurityUtils.generateChallenge();
-        user.setChallenge(challenge);
-        userRepository.save(user); // Ensure challenge persistence
+        String challenge = metrics.phase(Phase.CHALLENGE_GENERATION).record(SecurityUtils::generateChallenge);
+        credentialStore.setChallenge(username, userId, challenge); // Ensure challenge persistence
 
-        return new AuthenticationChallengeDto(challenge, user.getId());
+        AuthenticationChallengeDto challengeDto = new AuthenticationChallengeDto(challenge, userId);
+        challengeDto.setPuzzle(puzzleService.issue(username));
+        metrics.success(Endpoint.LOGIN_START);
+        commit(event, username, "login", challengeDto.getPuzzle());
+        return challengeDto;
     }
 
     /**
-     * Verifies the authentication response using the stored credential.
+     * Verifies the authentication response using the credential the client names, fetched by its ID.
+     * The proof-of-work puzzle, if one is required, is checked first so junk requests are rejected
+     * before any lookup or signature verification; it is used up only once both signatures hold.
      *
      * @param responseDto The authentication response containing signatures.
      * @param username    The username associated with the authentication.
@@ -84,13 +193,111 @@ public class AuthService {
      * @throws Exception If verification fails.
      */
     public boolean finishAuthentication(AuthenticationResponseDto responseDto, String username) throws Exception {
-        User user = userRepository.findByUsername(username).orElse(null);
-        if (user == null) return false;
+        if (!puzzleService.verify(responseDto.getPuzzle(), username)) {
+            metrics.failure(Endpoint.LOGIN_FINISH, Failure.PUZZLE_FAILED);
+            return false;
+        }
 
-        Credential credential = credentialRepository.findByUser(user).orElse(null);
-        if (credential == null) return false;
+        Long credentialId = responseDto.getCredentialId();
+        LoginCredentialView login = metrics.phase(Phase.DB_LOOKUP)
+                .record(() -> findLoginView(username, credentialId))
+                .orElse(null);
+        if (login == null) {
+            metrics.failure(Endpoint.LOGIN_FINISH, credentialId == null ? Failure.UNKNOWN_USER : Failure.UNKNOWN_CREDENTIAL);
+            return false;
+        }
 
-        return SecurityUtils.verifyAuthenticationResponse(responseDto, credential, user.getChallenge());
+        boolean verified;
+        puzzleService.verificationStarted();
+        try {
+            verified = verifySignatures(responseDto.getSignatureRSA(), responseDto.getSignatureDilithium(),
+                    login.publicKeyRSA(), login.publicKeyDilithium(), login.challenge());
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            metrics.failure(Endpoint.LOGIN_FINISH, Failure.MALFORMED);
+            throw e;
+        } finally {
+            puzzleService.verificationFinished();
+        }
+
+        if (!verified) {
+            metrics.failure(Endpoint.LOGIN_FINISH, Failure.BAD_SIGNATURE);
+            return false;
+        }
+        // Also loses when a concurrent request carried the same solution
+        if (!puzzleService.markUsed(responseDto.getPuzzle())) {
+            metrics.failure(Endpoint.LOGIN_FINISH, Failure.PUZZLE_FAILED);
+            return false;
+        }
+        metrics.success(Endpoint.LOGIN_FINISH);
+        return true;
+    }
+
+    /**
+     * Verifies a one-round-trip login, whose signatures cover an epoch nonce, a timestamp and a client random
+     * instead of a stored challenge (see {@link LoginEpochService}). Freshness and the replay pre-check come
+     * before any lookup; the message is recorded as used only once both signatures hold. While the server
+     * demands proof of work this mode is refused, since there is no round trip to hand out a puzzle in;
+     * clients then fall back to {@code /auth/login/start}.
+     *
+     * @param requestDto The signed login message.
+     * @param username   The username associated with the authentication.
+     * @return True if authentication is successful, otherwise false.
+     * @throws Exception If verification fails.
+     */
+    public boolean finishDirectAuthentication(DirectLoginRequestDto requestDto, String username) throws Exception {
+        if (!puzzleService.verify(null, username)) {
+            metrics.failure(Endpoint.LOGIN_DIRECT, Failure.PUZZLE_FAILED);
+            return false;
+        }
+        if (username == null || !LoginEpochService.isValidClientRandom(requestDto.getClientRandom())) {
+            metrics.failure(Endpoint.LOGIN_DIRECT, Failure.MALFORMED);
+            return false;
+        }
+
+        String epochNonce = loginEpochs.acceptedNonce(requestDto.getEpoch());
+        if (epochNonce == null || !loginEpochs.isFresh(requestDto.getTimestamp())) {
+            metrics.failure(Endpoint.LOGIN_DIRECT, Failure.STALE_MESSAGE);
+            return false;
+        }
+        if (loginEpochs.wasSeen(username, requestDto.getClientRandom())) {
+            metrics.failure(Endpoint.LOGIN_DIRECT, Failure.REPLAYED);
+            return false;
+        }
+
+        Long credentialId = requestDto.getCredentialId();
+        LoginCredentialView keys = metrics.phase(Phase.DB_LOOKUP)
+                .record(() -> findLoginKeys(username, credentialId))
+                .orElse(null);
+        if (keys == null) {
+            metrics.failure(Endpoint.LOGIN_DIRECT, credentialId == null ? Failure.UNKNOWN_USER : Failure.UNKNOWN_CREDENTIAL);
+            return false;
+        }
+
+        String message = LoginEpochService.signedMessage(epochNonce, requestDto.getTimestamp(),
+                requestDto.getClientRandom(), username);
+        boolean verified;
+        puzzleService.verificationStarted();
+        try {
+            verified = verifySignatures(requestDto.getSignatureRSA(), requestDto.getSignatureDilithium(),
+                    keys.publicKeyRSA(), keys.publicKeyDilithium(), message);
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            metrics.failure(Endpoint.LOGIN_DIRECT, Failure.MALFORMED);
+            throw e;
+        } finally {
+            puzzleService.verificationFinished();
+        }
+
+        if (!verified) {
+            metrics.failure(Endpoint.LOGIN_DIRECT, Failure.BAD_SIGNATURE);
+            return false;
+        }
+        // Also loses when a concurrent request carried the same message
+        if (!loginEpochs.markSeen(username, requestDto.getClientRandom())) {
+            metrics.failure(Endpoint.LOGIN_DIRECT, Failure.REPLAYED);
+            return false;
+        }
+        metrics.success(Endpoint.LOGIN_DIRECT);
+        return true;
     }
 
     // ======================= User Credential Retrieval =======================
@@ -103,24 +310,133 @@ public class AuthService {
      * @throws IllegalStateException If the user or credentials are not found.
      */
     public UserCredentialDto getUserCredentials(String username) {
-        User user = getUserByUsername(username);
-        Credential credential = credentialRepository.findByUser(user)
+        CredentialSnapshot snapshot = findForUser(username, credentialCache::get)
+                .filter(CredentialSnapshot::hasCredential)
                 .orElseThrow(() -> new IllegalStateException("Credentials not found for user"));
 
-        return new UserCredentialDto(user.getUsername(), user.getEmail(), credential.getPublicKeyRSA(), credential.getPublicKeyDilithium());
+        return new UserCredentialDto(snapshot.username(), snapshot.email(), snapshot.publicKeyRSA(), snapshot.publicKeyDilithium());
+    }
+
+    /**
+     * Lists the IDs and key fingerprints of every credential of a user, primary first.
+     *
+     * @param username The username whose credentials are requested.
+     * @return The user's credential fingerprints, empty if the user is unknown or has none.
+     */
+    public List<CredentialFingerprint> getCredentialFingerprints(String username) {
+        return usernameFilter.mightContain(username) ? credentialStore.findFingerprints(username) : List.of();
     }
 
     // ======================= Helper Methods =======================
 
     /**
-     * Retrieves a user by username or throws an exception if not found.
+     * Verifies both signatures with {@link SecurityUtils#verifySignature}, recording key decoding and each
+     * verification as separate handshake phases. The Dilithium signature is only checked if the RSA one holds.
+     *
+     * @param signatureRSA       RSA signature bytes.
+     * @param signatureDilithium Dilithium signature bytes.
+     * @param publicKeyRSA       RSA public key as X.509 SubjectPublicKeyInfo bytes.
+     * @param publicKeyDilithium Dilithium public key as X.509 SubjectPublicKeyInfo bytes.
+     * @param challenge          Challenge string that was originally signed.
+     * @return True if both signatures are valid, false otherwise.
+     * @throws Exception If a key cannot be decoded.
+     * @throws IllegalArgumentException If a key or signature is missing.
+     */
+    private boolean verifySignatures(byte[] signatureRSA, byte[] signatureDilithium, byte[] publicKeyRSA,
+                                     byte[] publicKeyDilithium, String challenge) throws Exception {
+        if (signatureRSA == null || signatureDilithium == null || publicKeyRSA == null || publicKeyDilithium == null) {
+            throw new IllegalArgumentException("Missing key or signature");
+        }
+
+        long decodeStart = System.nanoTime();
+        PublicKey rsaKey = SecurityUtils.decodeRSAPublicKey(publicKeyRSA);
+        PublicKey dilithiumKey = SecurityUtils.decodeDilithiumPublicKey(publicKeyDilithium);
+        metrics.phase(Phase.KEY_DECODE).record(System.nanoTime() - decodeStart, TimeUnit.NANOSECONDS);
+
+        return Boolean.TRUE.equals(metrics.phase(Phase.RSA_VERIFY).recordCallable(
+                        () -> SecurityUtils.verifySignature(signatureRSA, rsaKey, "SHA256withRSA", challenge)))
+                && Boolean.TRUE.equals(metrics.phase(Phase.DILITHIUM_VERIFY).recordCallable(
+                        () -> SecurityUtils.verifySignature(signatureDilithium, dilithiumKey, "Dilithium", challenge)));
+    }
+
+    /**
+     * Resolves the keys and latest challenge needed to verify a login. Keys come from the credential
+     * cache when it holds the user and the requested credential is their primary one, so only the
+     * challenge is read from the store; otherwise the store fetches keys and challenge together.
+     *
+     * @param username     The username being authenticated.
+     * @param credentialId The credential the client signed with, or null for the primary credential.
+     * @return The login view, or empty if the user or the credential does not exist.
+     */
+    private Optional<LoginCredentialView> findLoginView(String username, Long credentialId) {
+        Optional<CredentialSnapshot> cached = credentialCache.getIfPresent(username)
+                .filter(CredentialSnapshot::hasCredential)
+                .filter(snapshot -> credentialId == null || credentialId.equals(snapshot.credentialId()));
+        if (cached.isPresent()) {
+            CredentialSnapshot snapshot = cached.get();
+            return credentialStore.getChallenge(username)
+                    .map(challenge -> new LoginCredentialView(snapshot.userId(), challenge,
+                            snapshot.publicKeyRSA(), snapshot.publicKeyDilithium()));
+        }
+
+        // Not through findForUser: a user without that credential is not a Bloom filter false positive
+        if (!usernameFilter.mightContain(username)) return Optional.empty();
+        return credentialStore.findLoginView(username, credentialId);
+    }
+
+    /**
+     * Resolves only the keys of a credential, for logins that do not use a stored challenge. The primary
+     * credential comes through the credential cache, so a warm user costs no store access at all.
+     *
+     * @param username     The username being authenticated.
+     * @param credentialId The credential the client signed with, or null for the primary credential.
+     * @return A login view whose challenge must be ignored, or empty if the user or the credential does not
+     * exist.
+     */
+    private Optional<LoginCredentialView> findLoginKeys(String username, Long credentialId) {
+        Optional<CredentialSnapshot> snapshot = findForUser(username, credentialCache::get)
+                .filter(CredentialSnapshot::hasCredential);
+        if (snapshot.isEmpty()) return Optional.empty();
+        if (credentialId != null && !credentialId.equals(snapshot.get().credentialId())) {
+            return credentialStore.findLoginView(username, credentialId);
+        }
+
+        return snapshot.map(primary -> new LoginCredentialView(primary.userId(), null,
+                primary.publicKeyRSA(), primary.publicKeyDilithium()));
+    }
+
+    /**
+     * Commits a {@link ChallengeIssuedEvent} if the running JFR recording wants it.
+     *
+     * @param event    The event, begun when the request arrived.
+     * @param username The user the challenge was issued to.
+     * @param purpose  "registration" or "login".
+     * @param puzzle   The proof-of-work puzzle sent along, or null.
+     */
+    private static void commit(ChallengeIssuedEvent event, String username, String purpose, PuzzleDto puzzle) {
+        if (!event.shouldCommit()) return;
+
+        event.username = username;
+        event.purpose = purpose;
+        event.puzzleDifficulty = puzzle == null ? 0 : puzzle.getDifficulty();
+        event.commit();
+    }
+
+    /**
+     * Runs a single lookup for a username, skipping the credential store entirely when the
+     * Bloom filter rules the username out. The lookup must find every existing user, so an empty
+     * result after the filter let the username through is counted as a false positive.
      *
      * @param username The username to search for.
-     * @return The User entity.
-     * @throws IllegalStateException If the user is not found.
+     * @param lookup   The lookup to run.
+     * @return The lookup result, or empty if the user is unknown.
      */
-    private User getUserByUsername(String username) {
-        return userRepository.findByUsername(username)
-                .orElseThrow(() -> new IllegalStateException("User not found: " + username));
+    private <T> Optional<T> findForUser(String username, Function<String, Optional<T>> lookup) {
+        if (!usernameFilter.mightContain(username)) {
+            return Optional.empty();
+        }
+        Optional<T> result = lookup.apply(username);
+        if (result.isEmpty()) usernameFilter.recordFalsePositive();
+        return result;
     }
 }
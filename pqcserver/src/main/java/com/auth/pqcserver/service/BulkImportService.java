@@ -0,0 +1,345 @@
+package com.auth.pqcserver.service;
+
+import com.auth.pqcserver.dto.ExportedCredentialDto;
+import com.auth.pqcserver.dto.ExportedUserDto;
+import com.auth.pqcserver.dto.ImportProgressDto;
+import com.auth.pqcserver.dto.ImportRowErrorDto;
+import com.auth.pqcserver.dto.UserCredentialDto;
+import com.auth.pqcserver.store.CredentialStore;
+import com.auth.pqcserver.store.ImportedUser;
+import com.auth.pqcserver.store.ImportedUser.ImportedCredential;
+import com.auth.pqcserver.utils.SecurityUtils;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Imports users from NDJSON and reports on the go. Each line is either an {@link ExportedUserDto}, as written
+ * by the NDJSON export, whose credentials are all imported with their IDs, or a {@link UserCredentialDto}
+ * (the shape {@code GET /api/user} returns), which brings one credential that gets a new ID.
+ * <p>
+ * Memory stays constant whatever the file size: at most {@code bulk-import.batch-size} lines are held at a
+ * time. Each line is handed to a pool of {@code bulk-import.validation-threads} as soon as it is read, where
+ * it is parsed and every key is decoded and fingerprinted, so validation overlaps with reading. Once a batch
+ * is complete the valid rows go to {@link CredentialStore#importUsers(List)} in one call, which the
+ * database-backed stores turn into JDBC batches.
+ * <p>
+ * The report is NDJSON as well: an {@link ImportRowErrorDto} for every rejected line, an
+ * {@link ImportProgressDto} of type "progress" after every batch, flushed so clients can follow along,
+ * and a final one of type "summary". Unlike registration, no proof of possession is required for imported
+ * keys; that is why the endpoint is admin-only. The other registration rules do apply: credential IDs must
+ * be positive and a user may bring at most {@code credentials.max-per-user} credentials.
+ */
+@Service
+public class BulkImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkImportService.class);
+
+    private final CredentialStore credentialStore;
+    private final UsernameFilter usernameFilter;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private final int maxLineBytes;
+    private final int maxCredentialsPerUser;
+    private final ExecutorService validators;
+
+    public BulkImportService(CredentialStore credentialStore,
+                             UsernameFilter usernameFilter,
+                             ObjectMapper objectMapper,
+                             @Value("${bulk-import.batch-size}") int batchSize,
+                             @Value("${bulk-import.validation-threads}") int validationThreads,
+                             @Value("${bulk-import.max-line-bytes}") int maxLineBytes,
+                             @Value("${credentials.max-per-user}") int maxCredentialsPerUser) {
+        if (batchSize < 1 || validationThreads < 1 || maxLineBytes < 1) {
+            throw new IllegalStateException("bulk-import.batch-size, validation-threads and max-line-bytes must be positive");
+        }
+        this.credentialStore = credentialStore;
+        this.usernameFilter = usernameFilter;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+        this.maxLineBytes = maxLineBytes;
+        this.maxCredentialsPerUser = maxCredentialsPerUser;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.validators = Executors.newFixedThreadPool(validationThreads, runnable -> {
+            Thread thread = new Thread(runnable, "bulk-import-validator-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Reads the whole input, imports every valid line and writes the report.
+     *
+     * @param ndjson One {@link ExportedUserDto} or {@link UserCredentialDto} per line; blank lines are ignored.
+     * @param report Receives the NDJSON report; flushed after every batch, never closed.
+     * @return The summary, also written as the last report line.
+     * @throws IOException If reading the input or writing the report fails.
+     */
+    public ImportProgressDto importUsers(InputStream ndjson, OutputStream report) throws IOException {
+        long startTime = System.nanoTime();
+        ImportProgressDto progress = new ImportProgressDto();
+        LineReader reader = new LineReader(ndjson, maxLineBytes);
+        List<CompletableFuture<Row>> batch = new ArrayList<>(batchSize);
+
+        try {
+            boolean endOfInput = false;
+            while (!endOfInput) {
+                while (batch.size() < batchSize) {
+                    byte[] line = reader.next();
+                    if (line == null) {
+                        endOfInput = true;
+                        break;
+                    }
+                    if (isBlank(line)) continue;
+
+                    long lineNumber = reader.lineNumber();
+                    batch.add(reader.truncated()
+                            ? CompletableFuture.completedFuture(
+                                    Row.rejected(lineNumber, null, "Line longer than " + maxLineBytes + " bytes"))
+                            : CompletableFuture.supplyAsync(() -> validate(lineNumber, line), validators));
+                }
+
+                if (batch.isEmpty()) continue;
+
+                importBatch(batch.stream().map(CompletableFuture::join).toList(), progress, report);
+                batch.clear();
+                progress.setType("progress");
+                progress.setElapsedMs((System.nanoTime() - startTime) / 1_000_000);
+                writeLine(report, progress);
+                report.flush();
+            }
+        } catch (RuntimeException e) {
+            // The store failed: stop here rather than reject every remaining row with the same error
+            batch.forEach(row -> row.cancel(false));
+            progress.setError(e.getMessage());
+            logger.error("[BULK IMPORT ABORTED] - After {} lines", progress.getLines(), e);
+        }
+
+        progress.setType("summary");
+        progress.setElapsedMs((System.nanoTime() - startTime) / 1_000_000);
+        writeLine(report, progress);
+        report.flush();
+
+        logger.info("[BULK IMPORT FINISHED] - Lines: {}, Imported: {}, Failed: {}, Elapsed: {} ms",
+                progress.getLines(), progress.getImported(), progress.getFailed(), progress.getElapsedMs());
+        return progress;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        validators.shutdownNow();
+    }
+
+    // ===== Pipeline =====
+
+    /**
+     * Parses one line and decodes every key. Runs on the validation pool.
+     */
+    private Row validate(long lineNumber, byte[] line) {
+        ExportedUserDto dto;
+        try {
+            JsonNode node = objectMapper.readTree(line);
+            if (node == null || !node.isObject()) return Row.rejected(lineNumber, null, "Malformed JSON: expected an object");
+            dto = node.has("credentials") ? objectMapper.treeToValue(node, ExportedUserDto.class)
+                    : fromSingleCredential(objectMapper.treeToValue(node, UserCredentialDto.class));
+        } catch (JsonProcessingException e) {
+            return Row.rejected(lineNumber, null, "Malformed JSON: " + e.getOriginalMessage());
+        } catch (IOException e) {
+            return Row.rejected(lineNumber, null, "Unreadable line");
+        }
+
+        String username = dto.getUsername();
+        if (username == null || username.isBlank()) return Row.rejected(lineNumber, null, "Missing username");
+        if (dto.getCredentials() == null) return Row.rejected(lineNumber, username, "Missing credentials");
+        if (dto.getCredentials().size() > maxCredentialsPerUser) {
+            return Row.rejected(lineNumber, username, "More than " + maxCredentialsPerUser + " credentials");
+        }
+
+        List<ImportedCredential> credentials = new ArrayList<>(dto.getCredentials().size());
+        Set<Long> credentialIds = new HashSet<>();
+        for (ExportedCredentialDto credential : dto.getCredentials()) {
+            if (credential == null || credential.getPublicKeyRSA() == null || credential.getPublicKeyDilithium() == null) {
+                return Row.rejected(lineNumber, username, "Missing public key");
+            }
+            long credentialId = credential.getCredentialId() == null
+                    ? SecurityUtils.generateCredentialId() : credential.getCredentialId();
+            // Generated IDs are always positive; zero or a negative ID never came from this server
+            if (credentialId <= 0) return Row.rejected(lineNumber, username, "Invalid credential ID");
+            if (!credentialIds.add(credentialId)) return Row.rejected(lineNumber, username, "Duplicate credential ID");
+
+            byte[] publicKeyRSA;
+            byte[] publicKeyDilithium;
+            try {
+                publicKeyRSA = Base64.getDecoder().decode(credential.getPublicKeyRSA());
+                publicKeyDilithium = Base64.getDecoder().decode(credential.getPublicKeyDilithium());
+            } catch (IllegalArgumentException e) {
+                return Row.rejected(lineNumber, username, "Public keys must be Base64");
+            }
+
+            try {
+                SecurityUtils.decodeRSAPublicKey(publicKeyRSA);
+            } catch (Exception e) {
+                return Row.rejected(lineNumber, username, "Invalid RSA public key");
+            }
+            try {
+                SecurityUtils.decodeDilithiumPublicKey(publicKeyDilithium);
+            } catch (Exception e) {
+                return Row.rejected(lineNumber, username, "Invalid Dilithium public key");
+            }
+
+            credentials.add(new ImportedCredential(credentialId, publicKeyDilithium, publicKeyRSA,
+                    SecurityUtils.fingerprint(publicKeyDilithium), SecurityUtils.fingerprint(publicKeyRSA)));
+        }
+
+        return new Row(lineNumber, username, new ImportedUser(username, dto.getEmail(), credentials), null);
+    }
+
+    /**
+     * Turns a single-credential line into the export shape, with no credential ID so a new one is generated.
+     */
+    private static ExportedUserDto fromSingleCredential(UserCredentialDto single) {
+        ExportedUserDto dto = new ExportedUserDto();
+        dto.setUsername(single.getUsername());
+        dto.setEmail(single.getEmail());
+
+        ExportedCredentialDto credential = new ExportedCredentialDto();
+        credential.setPublicKeyRSA(single.getPublicKeyRSA());
+        credential.setPublicKeyDilithium(single.getPublicKeyDilithium());
+        dto.setCredentials(List.of(credential));
+        return dto;
+    }
+
+    private void importBatch(List<Row> rows, ImportProgressDto progress, OutputStream report) throws IOException {
+        List<Row> valid = rows.stream().filter(row -> row.user() != null).toList();
+        boolean[] imported = credentialStore.importUsers(valid.stream().map(Row::user).toList());
+
+        int next = 0;
+        for (Row row : rows) {
+            progress.setLines(progress.getLines() + 1);
+
+            String reason = row.reason();
+            if (row.user() != null && imported[next++]) {
+                usernameFilter.add(row.username());
+                progress.setImported(progress.getImported() + 1);
+                continue;
+            }
+            if (reason == null) reason = "Username or credential ID already exists";
+
+            progress.setFailed(progress.getFailed() + 1);
+            writeLine(report, new ImportRowErrorDto(row.lineNumber(), row.username(), reason));
+        }
+    }
+
+    private void writeLine(OutputStream report, Object value) throws IOException {
+        report.write(objectMapper.writeValueAsBytes(value));
+        report.write('\n');
+    }
+
+    private static boolean isBlank(byte[] line) {
+        for (byte b : line) {
+            if (b != ' ' && b != '\t' && b != '\r') return false;
+        }
+        return true;
+    }
+
+    /**
+     * A validated line: either the user to import or the reason it was rejected.
+     */
+    private record Row(long lineNumber, String username, ImportedUser user, String reason) {
+        static Row rejected(long lineNumber, String username, String reason) {
+            return new Row(lineNumber, username, null, reason);
+        }
+    }
+
+    /**
+     * Splits a byte stream into lines through a fixed read buffer. A line longer than the limit is consumed
+     * but not kept, so a file without line breaks cannot exhaust memory.
+     */
+    private static final class LineReader {
+
+        private final InputStream in;
+        private final int maxLineBytes;
+        private final byte[] buffer = new byte[64 * 1024];
+        private int position;
+        private int limit;
+        private long lineNumber;
+        private boolean truncated;
+
+        LineReader(InputStream in, int maxLineBytes) {
+            this.in = in;
+            this.maxLineBytes = maxLineBytes;
+        }
+
+        /**
+         * @return The next line without its terminator, or null at the end of the input.
+         */
+        byte[] next() throws IOException {
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            truncated = false;
+            boolean any = false;
+
+            while (true) {
+                if (position == limit) {
+                    limit = Math.max(in.read(buffer), 0);
+                    position = 0;
+                    if (limit == 0) {
+                        if (!any) return null;
+                        break;
+                    }
+                }
+                any = true;
+
+                int start = position;
+                while (position < limit && buffer[position] != '\n') position++;
+                int length = position - start;
+                if (!truncated && line.size() + length <= maxLineBytes) {
+                    line.write(buffer, start, length);
+                } else {
+                    truncated = true;
+                }
+
+                if (position < limit) {
+                    position++;
+                    break;
+                }
+            }
+
+            lineNumber++;
+            return line.toByteArray();
+        }
+
+        /**
+         * @return The 1-based number of the line last returned by {@link #next()}.
+         */
+        long lineNumber() {
+            return lineNumber;
+        }
+
+        /**
+         * @return True if the line last returned by {@link #next()} exceeded the limit and was cut short.
+         */
+        boolean truncated() {
+            return truncated;
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.auth.pqcserver.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Write-behind queue for login challenges.
+ * <p>
+ * {@code startAuthentication} issues a new challenge on every login; instead of one UPDATE per login the
+ * challenge is parked in memory, keyed by username, and flushed to the users table in JDBC batches when
+ * {@code challenge-write-behind.batch-size} entries are pending or every
+ * {@code challenge-write-behind.flush-interval-ms}, whichever comes first. Repeated logins by the same
+ * user before a flush coalesce into a single row update. Readers must consult {@link #get(String)}
+ * before the database so they always see the latest challenge. Pending challenges are flushed on
+ * graceful shutdown; a crash only loses challenges, which clients recover from by starting a new login.
+ * <p>
+ * At most {@code challenge-write-behind.max-pending} users are queued. When the database falls behind and
+ * the queue is full, a challenge for a user not already queued is written through synchronously, so the
+ * login waits for its own UPDATE as it would without write-behind instead of growing the heap.
+ */
+@Component
+@ConditionalOnProperty(name = "credential-store.type", havingValue = "jpa", matchIfMissing = true)
+public class ChallengeWriteBehind {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChallengeWriteBehind.class);
+    private static final String UPDATE_CHALLENGE_SQL = "update users set challenge = ? where id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private final int maxPending;
+
+    private final Map<String, PendingChallenge> pending = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher;
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    public ChallengeWriteBehind(JdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${challenge-write-behind.enabled}") boolean enabled,
+                                @Value("${challenge-write-behind.batch-size}") int batchSize,
+                                @Value("${challenge-write-behind.flush-interval-ms}") long flushIntervalMs,
+                                @Value("${challenge-write-behind.max-pending}") int maxPending) {
+        if (maxPending < batchSize) {
+            throw new IllegalStateException("challenge-write-behind.max-pending must be at least the batch size");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.maxPending = maxPending;
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "challenge-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (enabled) {
+            flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Records a new challenge for a user. Written through immediately when write-behind is disabled or the
+     * queue is full.
+     *
+     * @param username  The username the challenge was issued to.
+     * @param userId    The user's ID.
+     * @param challenge The challenge to store.
+     */
+    public void put(String username, Long userId, String challenge) {
+        if (!enabled || isFull(username)) {
+            jdbcTemplate.update(UPDATE_CHALLENGE_SQL, challenge, userId);
+            return;
+        }
+
+        pending.put(username, new PendingChallenge(userId, challenge));
+        if (pending.size() >= batchSize && flushRequested.compareAndSet(false, true)) {
+            flusher.execute(this::flushQuietly);
+        }
+    }
+
+    /**
+     * @param username The username to look up.
+     * @return The latest challenge not yet written to the database, if any.
+     */
+    public Optional<String> get(String username) {
+        PendingChallenge entry = pending.get(username);
+        return entry == null ? Optional.empty() : Optional.of(entry.challenge());
+    }
+
+    /**
+     * Removes a user's pending challenge without writing it, so it can be handed to another queue.
+     *
+     * @param username The username to look up.
+     * @return The challenge that was pending, if any.
+     */
+    public Optional<String> take(String username) {
+        PendingChallenge entry = pending.remove(username);
+        return entry == null ? Optional.empty() : Optional.of(entry.challenge());
+    }
+
+    /**
+     * Records a challenge unless a newer one is already pending for the user. Written through immediately
+     * when write-behind is disabled or the queue is full.
+     *
+     * @param username  The username the challenge was issued to.
+     * @param userId    The user's ID.
+     * @param challenge The challenge to store.
+     */
+    public void putIfAbsent(String username, Long userId, String challenge) {
+        if (!enabled || isFull(username)) {
+            jdbcTemplate.update(UPDATE_CHALLENGE_SQL, challenge, userId);
+            return;
+        }
+
+        pending.putIfAbsent(username, new PendingChallenge(userId, challenge));
+    }
+
+    /**
+     * Writes every pending challenge to the database in batches of {@code batchSize}.
+     * Entries replaced by a newer challenge while the batch was running stay queued.
+     */
+    public synchronized void flush() {
+        flushRequested.set(false);
+        List<Map.Entry<String, PendingChallenge>> snapshot = new ArrayList<>(pending.entrySet());
+
+        for (int from = 0; from < snapshot.size(); from += batchSize) {
+            List<Map.Entry<String, PendingChallenge>> batch = snapshot.subList(from, Math.min(snapshot.size(), from + batchSize));
+            List<Object[]> arguments = new ArrayList<>(batch.size());
+            for (Map.Entry<String, PendingChallenge> entry : batch) {
+                arguments.add(new Object[] { entry.getValue().challenge(), entry.getValue().userId() });
+            }
+
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(UPDATE_CHALLENGE_SQL, arguments));
+
+            for (Map.Entry<String, PendingChallenge> entry : batch) {
+                pending.remove(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Stops the background flusher and writes out everything still pending.
+     */
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        logger.info("[CHALLENGE WRITE-BEHIND] - Flushed pending challenges on shutdown");
+    }
+
+    /**
+     * @return True if the user has no queued challenge and there is no room to queue one; a user already
+     * queued only replaces their entry, which takes no extra room.
+     */
+    private boolean isFull(String username) {
+        return pending.size() >= maxPending && !pending.containsKey(username);
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            logger.error("[CHALLENGE WRITE-BEHIND] - Flush failed, will retry", e);
+        }
+    }
+
+    private record PendingChallenge(Long userId, String challenge) {}
+}
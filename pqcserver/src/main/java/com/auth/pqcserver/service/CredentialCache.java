@@ -0,0 +1,78 @@
+package com.auth.pqcserver.service;
+
+import com.auth.pqcserver.repository.projection.CredentialSnapshot;
+import com.auth.pqcserver.store.CredentialStore;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Read-through near cache of {@link CredentialSnapshot}s keyed by username.
+ * <p>
+ * Snapshots only hold data that is fixed once registration finishes, so they can be served from memory
+ * for {@code credential-cache.ttl-seconds}. Concurrent misses on the same key are collapsed into a single
+ * database load. Anything that writes user or credential rows must call {@link #invalidate(String)}.
+ * Unknown usernames are not cached.
+ */
+@Component
+public class CredentialCache {
+
+    private final LoadingCache<String, CredentialSnapshot> cache;
+
+    public CredentialCache(CredentialStore credentialStore,
+                           MeterRegistry meterRegistry,
+                           @Value("${credential-cache.enabled}") boolean enabled,
+                           @Value("${credential-cache.maximum-size}") long maximumSize,
+                           @Value("${credential-cache.ttl-seconds}") long ttlSeconds) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(enabled ? maximumSize : 0)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build(username -> credentialStore.findSnapshot(username).orElse(null));
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "credentialCache");
+    }
+
+    /**
+     * Returns the snapshot for a username, loading it from the database on a miss.
+     *
+     * @param username The username to look up.
+     * @return An Optional containing the snapshot, or empty if the user does not exist.
+     */
+    public Optional<CredentialSnapshot> get(String username) {
+        if (username == null) return Optional.empty();
+        return Optional.ofNullable(cache.get(username));
+    }
+
+    /**
+     * Returns the snapshot for a username only if it is already cached; never touches the database.
+     *
+     * @param username The username to look up.
+     * @return An Optional containing the cached snapshot, or empty on a miss.
+     */
+    public Optional<CredentialSnapshot> getIfPresent(String username) {
+        if (username == null) return Optional.empty();
+        return Optional.ofNullable(cache.getIfPresent(username));
+    }
+
+    /**
+     * Drops the cached snapshot for a username. Call after any change to the user or their credentials.
+     *
+     * @param username The username whose snapshot is stale.
+     */
+    public void invalidate(String username) {
+        if (username != null) cache.invalidate(username);
+    }
+
+    /**
+     * Drops every cached snapshot.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+}
@@ -0,0 +1,68 @@
+package com.auth.pqcserver.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Command-line export: when {@code export.file} is set the application writes the export to that file
+ * and exits instead of serving requests. For example
+ * <pre>
+ * java -jar pqcserver.jar --spring.main.web-application-type=none \
+ *      --export.file=users.bin.gz --export.format=binary --export.gzip=true
+ * </pre>
+ * {@code export.after} resumes after a username. The runner goes first, so warm-up is skipped.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(name = "export.file")
+public class ExportRunner implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExportRunner.class);
+
+    private final ExportService exportService;
+    private final ConfigurableApplicationContext context;
+    private final Path file;
+    private final ExportService.Format format;
+    private final boolean gzip;
+    private final String afterUsername;
+
+    public ExportRunner(ExportService exportService,
+                        ConfigurableApplicationContext context,
+                        @Value("${export.file}") String file,
+                        @Value("${export.format}") String format,
+                        @Value("${export.gzip}") boolean gzip,
+                        @Value("${export.after}") String afterUsername) {
+        this.exportService = exportService;
+        this.context = context;
+        this.file = Path.of(file);
+        this.format = ExportService.Format.parse(format);
+        if (this.format == null) {
+            throw new IllegalStateException("export.format must be ndjson or binary, not " + format);
+        }
+        this.gzip = gzip;
+        this.afterUsername = afterUsername.isEmpty() ? null : afterUsername;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        logger.info("[EXPORT STARTED] - File: {}, After: {}", file.toAbsolutePath(), afterUsername);
+        try (OutputStream out = Files.newOutputStream(file)) {
+            exportService.export(out, format, gzip, afterUsername);
+        }
+
+        System.exit(SpringApplication.exit(context));
+    }
+}
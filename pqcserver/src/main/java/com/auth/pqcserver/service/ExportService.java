@@ -0,0 +1,173 @@
+package com.auth.pqcserver.service;
+
+import com.auth.pqcserver.dto.ExportedUserDto;
+import com.auth.pqcserver.store.CredentialStore;
+import com.auth.pqcserver.store.ExportedUser;
+import com.auth.pqcserver.store.ExportedUser.ExportedCredential;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams every user and credential out of the {@link CredentialStore} for backups and migrations, used by
+ * {@code GET /admin/users/export} and {@link ExportRunner}.
+ * <p>
+ * Users are written one at a time as the store's cursor produces them, in ascending username order, so
+ * memory use is the same for ten users as for ten million and an interrupted export can be resumed by
+ * passing the last username received as {@code afterUsername}. Two formats are supported, both optionally
+ * gzip-compressed:
+ * <ul>
+ *     <li>{@code ndjson}: one {@link ExportedUserDto} per line, keys in Base64.</li>
+ *     <li>{@code binary}: the magic {@code PQCX} and a version byte, then per user the byte {@code 'U'},
+ *     username, email, an int credential count and per credential its ID, Dilithium key and RSA key; then
+ *     the byte {@code 'E'} and the number of users, so a truncated file is detectable. Strings and keys are
+ *     an int length (-1 for null) followed by the bytes, strings in UTF-8; numbers are big-endian. Keys are
+ *     raw DER instead of Base64, which makes the file about a quarter smaller than the NDJSON.</li>
+ * </ul>
+ */
+@Service
+public class ExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExportService.class);
+
+    private static final byte[] BINARY_MAGIC = {'P', 'Q', 'C', 'X'};
+    private static final int BINARY_VERSION = 1;
+    private static final int USER_RECORD = 'U';
+    private static final int END_RECORD = 'E';
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        BINARY("application/octet-stream", "bin");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        /**
+         * @param name The format's name, case-insensitive.
+         * @return The format, or null if there is none by that name.
+         */
+        public static Format parse(String name) {
+            for (Format format : values()) {
+                if (format.name().equals(name.toUpperCase(Locale.ROOT))) return format;
+            }
+            return null;
+        }
+
+        /**
+         * @param gzip Whether the export is compressed.
+         * @return The media type of an export in this format.
+         */
+        public String contentType(boolean gzip) {
+            return gzip ? "application/gzip" : contentType;
+        }
+
+        /**
+         * @param gzip Whether the export is compressed.
+         * @return A file name for an export in this format.
+         */
+        public String fileName(boolean gzip) {
+            return "users." + extension + (gzip ? ".gz" : "");
+        }
+    }
+
+    private final CredentialStore credentialStore;
+    private final ObjectMapper objectMapper;
+    private final int fetchSize;
+
+    public ExportService(CredentialStore credentialStore,
+                         ObjectMapper objectMapper,
+                         @Value("${export.fetch-size}") int fetchSize) {
+        this.credentialStore = credentialStore;
+        this.objectMapper = objectMapper;
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Writes every user whose username sorts after {@code afterUsername}.
+     *
+     * @param out           Receives the export; flushed at the end, never closed.
+     * @param format        The output format.
+     * @param gzip          Whether to gzip-compress the output.
+     * @param afterUsername The last username of an interrupted export to resume after, or null for all users.
+     * @return The number of users written.
+     * @throws IOException If writing fails.
+     */
+    public long export(OutputStream out, Format format, boolean gzip, String afterUsername) throws IOException {
+        long startTime = System.nanoTime();
+        GZIPOutputStream compressor = gzip ? new GZIPOutputStream(out, BUFFER_BYTES) : null;
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(gzip ? compressor : out, BUFFER_BYTES));
+
+        if (format == Format.BINARY) {
+            data.write(BINARY_MAGIC);
+            data.writeByte(BINARY_VERSION);
+        }
+
+        long[] users = {0};
+        String[] lastUsername = {null};
+        try {
+            credentialStore.forEachExportedUser(afterUsername, fetchSize, user -> {
+                try {
+                    if (format == Format.BINARY) {
+                        writeBinary(data, user);
+                    } else {
+                        data.write(objectMapper.writeValueAsBytes(new ExportedUserDto(user)));
+                        data.write('\n');
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                users[0]++;
+                lastUsername[0] = user.username();
+            });
+        } catch (UncheckedIOException e) {
+            logger.warn("[EXPORT ABORTED] - After {} users, last username: {}", users[0], lastUsername[0]);
+            throw e.getCause();
+        }
+
+        if (format == Format.BINARY) {
+            data.writeByte(END_RECORD);
+            data.writeLong(users[0]);
+        }
+        data.flush();
+        if (compressor != null) compressor.finish();
+        out.flush();
+
+        logger.info("[EXPORT FINISHED] - Format: {}, Gzip: {}, Users: {}, Last username: {}, Elapsed: {} ms",
+                format, gzip, users[0], lastUsername[0], (System.nanoTime() - startTime) / 1_000_000);
+        return users[0];
+    }
+
+    private static void writeBinary(DataOutputStream data, ExportedUser user) throws IOException {
+        data.writeByte(USER_RECORD);
+        writeBytes(data, user.username().getBytes(StandardCharsets.UTF_8));
+        writeBytes(data, user.email() == null ? null : user.email().getBytes(StandardCharsets.UTF_8));
+        data.writeInt(user.credentials().size());
+        for (ExportedCredential credential : user.credentials()) {
+            data.writeLong(credential.credentialId());
+            writeBytes(data, credential.publicKeyDilithium());
+            writeBytes(data, credential.publicKeyRSA());
+        }
+    }
+
+    private static void writeBytes(DataOutputStream data, byte[] value) throws IOException {
+        data.writeInt(value == null ? -1 : value.length);
+        if (value != null) data.write(value);
+    }
+}
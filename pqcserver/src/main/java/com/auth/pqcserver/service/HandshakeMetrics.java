@@ -0,0 +1,131 @@
+package com.auth.pqcserver.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Micrometer meters for the registration and login handshakes, exported at {@code /actuator/prometheus}.
+ * <p>
+ * {@code pqc.auth.phase} is a timer per handshake phase with a percentile histogram, so p99 can be computed
+ * across instances. {@code pqc.auth.outcome} counts finished requests by endpoint, outcome and failure
+ * reason. Every tag value comes from a fixed enum, so the number of series stays bounded whatever clients
+ * send; all of them are registered up front so rates start from zero rather than from the first failure.
+ * <p>
+ * Only request handling is measured: the start-up warm-up calls the crypto utilities directly.
+ */
+@Component
+public class HandshakeMetrics {
+
+    public enum Phase {
+        CHALLENGE_GENERATION, DB_LOOKUP, KEY_DECODE, RSA_VERIFY, DILITHIUM_VERIFY, JWT_MINT, JWT_VALIDATE
+    }
+
+    public enum Endpoint {
+        REGISTER_START("/auth/register/start"),
+        REGISTER_FINISH("/auth/register/finish"),
+        LOGIN_START("/auth/login/start"),
+        LOGIN_FINISH("/auth/login/finish"),
+        LOGIN_DIRECT("/auth/login/direct");
+
+        private final String path;
+
+        Endpoint(String path) {
+            this.path = path;
+        }
+
+        /**
+         * @return The request path the endpoint is served at.
+         */
+        public String path() {
+            return path;
+        }
+
+        /**
+         * @return The endpoint served at the given request path, or null if it is not a handshake endpoint.
+         */
+        public static Endpoint forPath(String path) {
+            for (Endpoint endpoint : values()) {
+                if (endpoint.path.equals(path)) return endpoint;
+            }
+            return null;
+        }
+    }
+
+    public enum Failure {
+        UNKNOWN_USER, UNKNOWN_CREDENTIAL, CREDENTIAL_EXISTS, CREDENTIAL_LIMIT,
+        PUZZLE_FAILED, BAD_SIGNATURE, MALFORMED, RATE_LIMITED, STALE_MESSAGE, REPLAYED
+    }
+
+    private final Map<Phase, Timer> phaseTimers = new EnumMap<>(Phase.class);
+    private final Map<Endpoint, Counter> successCounters = new EnumMap<>(Endpoint.class);
+    private final Map<Endpoint, Map<Failure, Counter>> failureCounters = new EnumMap<>(Endpoint.class);
+
+    public HandshakeMetrics(MeterRegistry registry) {
+        for (Phase phase : Phase.values()) {
+            phaseTimers.put(phase, Timer.builder("pqc.auth.phase")
+                    .description("Time spent in one phase of a registration or login handshake")
+                    .tag("phase", tagValue(phase))
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofNanos(10_000))
+                    .maximumExpectedValue(Duration.ofSeconds(2))
+                    .register(registry));
+        }
+
+        for (Endpoint endpoint : Endpoint.values()) {
+            successCounters.put(endpoint, outcomeCounter(registry, endpoint, "success", "none"));
+
+            Map<Failure, Counter> byReason = new EnumMap<>(Failure.class);
+            for (Failure failure : Failure.values()) {
+                byReason.put(failure, outcomeCounter(registry, endpoint, "failure", tagValue(failure)));
+            }
+            failureCounters.put(endpoint, byReason);
+        }
+    }
+
+    /**
+     * @param phase The handshake phase.
+     * @return The timer recording that phase.
+     */
+    public Timer phase(Phase phase) {
+        return phaseTimers.get(phase);
+    }
+
+    /**
+     * Counts a request that completed its handshake step.
+     *
+     * @param endpoint The endpoint that served the request.
+     */
+    public void success(Endpoint endpoint) {
+        successCounters.get(endpoint).increment();
+    }
+
+    /**
+     * Counts a request that was rejected.
+     *
+     * @param endpoint The endpoint that served the request.
+     * @param failure  Why it was rejected.
+     */
+    public void failure(Endpoint endpoint, Failure failure) {
+        failureCounters.get(endpoint).get(failure).increment();
+    }
+
+    private static Counter outcomeCounter(MeterRegistry registry, Endpoint endpoint, String outcome, String reason) {
+        return Counter.builder("pqc.auth.outcome")
+                .description("Finished handshake requests by endpoint, outcome and failure reason")
+                .tag("endpoint", endpoint.path)
+                .tag("outcome", outcome)
+                .tag("reason", reason)
+                .register(registry);
+    }
+
+    private static String tagValue(Enum<?> value) {
+        return value.name().toLowerCase(Locale.ROOT);
+    }
+}
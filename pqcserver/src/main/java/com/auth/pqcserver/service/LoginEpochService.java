@@ -0,0 +1,180 @@
+package com.auth.pqcserver.service;
+
+import com.auth.pqcserver.dto.LoginEpochDto;
+import com.auth.pqcserver.utils.ExpiringSeenSet;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Base64;
+import java.util.function.LongSupplier;
+
+/**
+ * Freshness and replay checks for one-round-trip logins ({@code POST /auth/login/direct}).
+ * <p>
+ * Instead of fetching a challenge per login, the client signs a message built from a server-published epoch
+ * nonce, its own clock, a random value of its choosing and its username (see {@link #signedMessage}). The
+ * nonce changes every {@code direct-login.epoch-seconds} and is an HMAC of the epoch number under a key
+ * derived from {@code jwt.secret}, so every instance publishes the same nonce without coordination; the
+ * current and the previous epoch are accepted. It proves the message was not prepared before the epoch began.
+ * <p>
+ * A message is fresh while its timestamp is within {@code direct-login.max-clock-skew-seconds} of the
+ * server clock, so it can be accepted for at most twice that long. Replays within that time are caught by an
+ * {@link ExpiringSeenSet} of (username, client random) pairs whose generations each span twice the skew.
+ * Each generation holds at most {@code direct-login.seen-set-capacity} entries; once full, direct logins are
+ * refused until it rotates, since forgetting entries early would let replays through. The seen-set is per
+ * instance, so a replay sent to a different instance within the window is not caught; deployments that need
+ * that guarantee must route a username to the same instance. Only verified logins are recorded, so junk
+ * requests cannot fill it.
+ */
+@Service
+public class LoginEpochService {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final String MESSAGE_PREFIX = "pqc-login";
+    private static final int MIN_CLIENT_RANDOM_BYTES = 16;
+    private static final int MAX_CLIENT_RANDOM_BYTES = 64;
+
+    private final boolean enabled;
+    private final LongSupplier clock;
+    private final long epochMillis;
+    private final long maxClockSkewMillis;
+    private final SecretKeySpec nonceKey;
+    private final ExpiringSeenSet seen;
+
+    @Autowired
+    public LoginEpochService(@Value("${direct-login.enabled}") boolean enabled,
+                             @Value("${direct-login.epoch-seconds}") long epochSeconds,
+                             @Value("${direct-login.max-clock-skew-seconds}") long maxClockSkewSeconds,
+                             @Value("${direct-login.seen-set-capacity}") int seenSetCapacity,
+                             @Value("${jwt.secret}") String jwtSecret) {
+        this(enabled, epochSeconds, maxClockSkewSeconds, seenSetCapacity, jwtSecret, System::currentTimeMillis);
+    }
+
+    /**
+     * Same as the public constructor, with the clock given; for tests.
+     */
+    LoginEpochService(boolean enabled, long epochSeconds, long maxClockSkewSeconds, int seenSetCapacity,
+                      String jwtSecret, LongSupplier clock) {
+        if (epochSeconds < 1 || maxClockSkewSeconds < 1 || seenSetCapacity < 1) {
+            throw new IllegalStateException(
+                    "direct-login.epoch-seconds, max-clock-skew-seconds and seen-set-capacity must be positive");
+        }
+        this.enabled = enabled;
+        this.clock = clock;
+        this.epochMillis = epochSeconds * 1000;
+        this.maxClockSkewMillis = maxClockSkewSeconds * 1000;
+
+        // Domain-separated from the JWT signing key, which is used as is
+        SecretKeySpec jwtKey = new SecretKeySpec(jwtSecret.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM);
+        this.nonceKey = new SecretKeySpec(hmac(jwtKey, "direct-login epoch nonce key"), HMAC_ALGORITHM);
+        this.seen = new ExpiringSeenSet(2 * maxClockSkewMillis, seenSetCapacity, clock);
+    }
+
+    /**
+     * @return True if one-round-trip logins are enabled.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return The epoch nonce clients should sign right now.
+     */
+    public LoginEpochDto currentEpoch() {
+        long now = clock.getAsLong();
+        long epoch = now / epochMillis;
+        return new LoginEpochDto(epoch, nonce(epoch), (epoch + 1) * epochMillis, maxClockSkewMillis);
+    }
+
+    /**
+     * Builds the message a client signs for a one-round-trip login. The username goes last: none of the other
+     * fields can contain a colon, so the message cannot be read two ways.
+     *
+     * @param epochNonce   The nonce of the epoch the client signed in.
+     * @param timestamp    The client's clock in epoch millis.
+     * @param clientRandom Base64url-encoded random bytes chosen by the client.
+     * @param username     The user logging in.
+     * @return The message, to be signed as UTF-8.
+     */
+    public static String signedMessage(String epochNonce, long timestamp, String clientRandom, String username) {
+        return MESSAGE_PREFIX + ":" + epochNonce + ":" + timestamp + ":" + clientRandom + ":" + username;
+    }
+
+    /**
+     * @param epoch The epoch number sent by the client.
+     * @return The nonce of that epoch if it is the current or the previous one, otherwise null.
+     */
+    public String acceptedNonce(long epoch) {
+        long currentEpoch = clock.getAsLong() / epochMillis;
+        return epoch == currentEpoch || epoch == currentEpoch - 1 ? nonce(epoch) : null;
+    }
+
+    /**
+     * @param timestamp The client's clock in epoch millis.
+     * @return True if the timestamp is within the allowed clock skew.
+     */
+    public boolean isFresh(long timestamp) {
+        return Math.abs(clock.getAsLong() - timestamp) <= maxClockSkewMillis;
+    }
+
+    /**
+     * @param clientRandom The client random as sent.
+     * @return True if it is base64url and between 16 and 64 bytes long.
+     */
+    public static boolean isValidClientRandom(String clientRandom) {
+        if (clientRandom == null) return false;
+        try {
+            int length = Base64.getUrlDecoder().decode(clientRandom).length;
+            return length >= MIN_CLIENT_RANDOM_BYTES && length <= MAX_CLIENT_RANDOM_BYTES;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Cheap pre-check before signature verification.
+     *
+     * @param username     The user logging in.
+     * @param clientRandom The client random of the message.
+     * @return True if a login with this message has already been accepted.
+     */
+    public boolean wasSeen(String username, String clientRandom) {
+        return seen.contains(seenKey(username, clientRandom));
+    }
+
+    /**
+     * Records a verified login. Atomic, so of two concurrent requests with the same message only one wins.
+     *
+     * @param username     The user logging in.
+     * @param clientRandom The client random of the message.
+     * @return True if recorded; false if the message was already used or the seen-set is full.
+     */
+    public boolean markSeen(String username, String clientRandom) {
+        return seen.add(seenKey(username, clientRandom));
+    }
+
+    // ======================= Helper Methods =======================
+
+    private String nonce(long epoch) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(hmac(nonceKey, "epoch:" + epoch));
+    }
+
+    private static String seenKey(String username, String clientRandom) {
+        return clientRandom + ":" + username;
+    }
+
+    private static byte[] hmac(SecretKeySpec key, String message) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(message.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC unavailable", e);
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.auth.pqcserver.service;
+
+import com.auth.pqcserver.dto.PuzzleDto;
+import com.auth.pqcserver.utils.ExpiringSeenSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Issues and checks adaptive client puzzles that protect signature verification CPU.
+ * <p>
+ * Verification load is measured as the smoothed number of in-flight signature verifications per CPU.
+ * While it stays above {@code puzzle.load-threshold}, login challenges carry a hash-preimage puzzle whose
+ * difficulty grows by {@code puzzle.bits-per-doubling} bits every time the load doubles. Puzzles are
+ * stateless: an HMAC over (username, seed, difficulty, expiry) lets the server check a solution with two
+ * hash computations and no database access.
+ * <p>
+ * A solution is single-use: {@link #verify} rejects seeds already kept in an {@link ExpiringSeenSet}, and
+ * {@link #markUsed} records a seed for the puzzle lifetime once the login it came with has passed signature
+ * verification, as {@link LoginEpochService} does for one-round-trip logins. Filling the set therefore takes
+ * successful logins, not just solved puzzles; once {@code puzzle.seen-set-capacity} seeds are held, puzzle
+ * logins are refused until the oldest ones expire. The set is per instance.
+ */
+@Service
+public class PuzzleService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PuzzleService.class);
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final double SMOOTHING = 0.2;
+
+    private final boolean enabled;
+    private final double loadThreshold;
+    private final int minDifficulty;
+    private final int maxDifficulty;
+    private final int bitsPerDoubling;
+    private final long ttlMillis;
+    private final ExpiringSeenSet usedSeeds;
+
+    private final SecretKeySpec macKey;
+    private final SecureRandom random = new SecureRandom();
+    private final int processors = Runtime.getRuntime().availableProcessors();
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong smoothedLoadBits = new AtomicLong(Double.doubleToLongBits(0.0));
+
+    public PuzzleService(@Value("${puzzle.enabled}") boolean enabled,
+                         @Value("${puzzle.load-threshold}") double loadThreshold,
+                         @Value("${puzzle.min-difficulty}") int minDifficulty,
+                         @Value("${puzzle.max-difficulty}") int maxDifficulty,
+                         @Value("${puzzle.bits-per-doubling}") int bitsPerDoubling,
+                         @Value("${puzzle.ttl-seconds}") long ttlSeconds,
+                         @Value("${puzzle.seen-set-capacity}") int seenSetCapacity) {
+        this.enabled = enabled;
+        this.loadThreshold = loadThreshold;
+        this.minDifficulty = minDifficulty;
+        this.maxDifficulty = maxDifficulty;
+        this.bitsPerDoubling = bitsPerDoubling;
+        this.ttlMillis = ttlSeconds * 1000;
+        this.usedSeeds = new ExpiringSeenSet(ttlMillis, seenSetCapacity);
+
+        byte[] keyBytes = new byte[32];
+        random.nextBytes(keyBytes);
+        this.macKey = new SecretKeySpec(keyBytes, HMAC_ALGORITHM);
+    }
+
+    // ======================= Load Tracking =======================
+
+    /**
+     * Marks the start of a signature verification. Must be paired with {@link #verificationFinished()}.
+     */
+    public void verificationStarted() {
+        sample(inFlight.incrementAndGet());
+    }
+
+    /**
+     * Marks the end of a signature verification.
+     */
+    public void verificationFinished() {
+        sample(inFlight.decrementAndGet());
+    }
+
+    /**
+     * @return The smoothed number of in-flight verifications per available processor.
+     */
+    public double currentLoad() {
+        return Double.longBitsToDouble(smoothedLoadBits.get());
+    }
+
+    /**
+     * Computes the difficulty that should be demanded right now.
+     *
+     * @return Required number of leading zero bits, or 0 when no puzzle is needed.
+     */
+    public int currentDifficulty() {
+        double load = currentLoad();
+        if (!enabled || load < loadThreshold) return 0;
+
+        double doublings = Math.log(load / loadThreshold) / Math.log(2);
+        return (int) Math.min(maxDifficulty, minDifficulty + Math.floor(doublings * bitsPerDoubling));
+    }
+
+    private void sample(int current) {
+        double instant = (double) current / processors;
+        smoothedLoadBits.getAndUpdate(bits -> {
+            double previous = Double.longBitsToDouble(bits);
+            return Double.doubleToLongBits(previous + SMOOTHING * (instant - previous));
+        });
+    }
+
+    // ======================= Puzzle Issue / Check =======================
+
+    /**
+     * Issues a puzzle for the given user if the server is currently overloaded.
+     *
+     * @param username The username the challenge is issued to.
+     * @return A puzzle, or null when no proof of work is required.
+     */
+    public PuzzleDto issue(String username) {
+        int difficulty = currentDifficulty();
+        if (difficulty == 0) return null;
+
+        byte[] seedBytes = new byte[16];
+        random.nextBytes(seedBytes);
+        String seed = Base64.getUrlEncoder().withoutPadding().encodeToString(seedBytes);
+        long expiresAt = System.currentTimeMillis() + ttlMillis;
+
+        logger.debug("[PUZZLE ISSUED] - User: {}, Difficulty: {}, Load: {}", username, difficulty, currentLoad());
+        return new PuzzleDto(seed, difficulty, expiresAt, mac(username, seed, difficulty, expiresAt));
+    }
+
+    /**
+     * Checks a puzzle solution sent back with an authentication response. A missing puzzle is accepted only
+     * while no proof of work is required. The solution is not used up until {@link #markUsed} is called.
+     *
+     * @param puzzle   The puzzle echoed by the client, possibly null.
+     * @param username The username being authenticated.
+     * @return True if the request may proceed to signature verification.
+     */
+    public boolean verify(PuzzleDto puzzle, String username) {
+        if (puzzle == null) {
+            return currentDifficulty() == 0;
+        }
+        if (puzzle.getSeed() == null || puzzle.getMac() == null || puzzle.getSolution() == null) {
+            return false;
+        }
+        if (puzzle.getExpiresAt() < System.currentTimeMillis()) {
+            return false;
+        }
+
+        String expectedMac = mac(username, puzzle.getSeed(), puzzle.getDifficulty(), puzzle.getExpiresAt());
+        if (!MessageDigest.isEqual(expectedMac.getBytes(StandardCharsets.US_ASCII),
+                puzzle.getMac().getBytes(StandardCharsets.US_ASCII))) {
+            return false;
+        }
+
+        if (!hasLeadingZeroBits(solutionHash(puzzle.getSeed(), puzzle.getSolution()), puzzle.getDifficulty())) {
+            return false;
+        }
+
+        // Seeds are random per issue, so a seen seed means a replayed solution
+        if (usedSeeds.contains(puzzle.getSeed())) {
+            logger.debug("[PUZZLE REJECTED] - User: {}, solution already used", username);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Uses up a puzzle solution that passed {@link #verify}, once the signatures it unlocked have verified.
+     *
+     * @param puzzle The puzzle echoed by the client, possibly null.
+     * @return True if the solution was recorded, false if a concurrent login used it first or the set is full.
+     */
+    public boolean markUsed(PuzzleDto puzzle) {
+        if (puzzle == null) return true;
+        if (!usedSeeds.add(puzzle.getSeed())) {
+            logger.debug("[PUZZLE REJECTED] - Seed: {}, solution already used or seen-set full", puzzle.getSeed());
+            return false;
+        }
+        return true;
+    }
+
+    // ======================= Helper Methods =======================
+
+    private String mac(String username, String seed, int difficulty, long expiresAt) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(macKey);
+            String message = username + "|" + seed + "|" + difficulty + "|" + expiresAt;
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(mac.doFinal(message.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC unavailable", e);
+        }
+    }
+
+    private static byte[] solutionHash(String seed, String solution) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return digest.digest((seed + ":" + solution).getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 unavailable", e);
+        }
+    }
+
+    private static boolean hasLeadingZeroBits(byte[] hash, int bits) {
+        int fullBytes = bits / 8;
+        for (int i = 0; i < fullBytes; i++) {
+            if (hash[i] != 0) return false;
+        }
+        int remainingBits = bits % 8;
+        return remainingBits == 0 || (hash[fullBytes] & 0xFF) >>> (8 - remainingBits) == 0;
+    }
+}
@@ -0,0 +1,145 @@
+package com.auth.pqcserver.service;
+
+import com.auth.pqcserver.store.CredentialStore;
+import com.auth.pqcserver.utils.ScalableBloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory negative-lookup filter of registered usernames.
+ * <p>
+ * Answers "definitely not registered" without touching the database. The filter is built from the
+ * credential store once the application is ready and is updated whenever a user row is created. Until the
+ * first build completes every username is reported as possibly registered, so the filter can never
+ * turn away a real user.
+ * <p>
+ * The filter only sees users created through this instance. That is every user for the instance-local
+ * stores ({@code memory}, {@code mmap}), but with a database shared by several nodes a user registered
+ * elsewhere would be reported as unknown here. The filter is therefore refused at startup unless
+ * {@code credential-store.type} is one of the instance-local stores.
+ */
+@Component
+public class UsernameFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(UsernameFilter.class);
+
+    private final CredentialStore credentialStore;
+    private final boolean enabled;
+    private final long expectedUsers;
+    private final double falsePositiveRate;
+
+    private final Timer rebuildTimer;
+    private final Counter negativeHits;
+    private final Counter falsePositives;
+
+    private volatile ScalableBloomFilter current;
+    private ScalableBloomFilter building;
+
+    public UsernameFilter(CredentialStore credentialStore,
+                          MeterRegistry meterRegistry,
+                          @Value("${credential-store.type}") String storeType,
+                          @Value("${username-filter.enabled}") boolean enabled,
+                          @Value("${username-filter.expected-users}") long expectedUsers,
+                          @Value("${username-filter.false-positive-rate}") double falsePositiveRate) {
+        if (enabled && !storeType.equals("memory") && !storeType.equals("mmap")) {
+            throw new IllegalStateException("username-filter.enabled requires credential-store.type memory or mmap: "
+                    + "with a shared database, users registered on other nodes would be rejected");
+        }
+        this.credentialStore = credentialStore;
+        this.enabled = enabled;
+        this.expectedUsers = expectedUsers;
+        this.falsePositiveRate = falsePositiveRate;
+
+        this.rebuildTimer = Timer.builder("pqc.username.filter.rebuild")
+                .description("Time taken to rebuild the username Bloom filter from the credential store")
+                .register(meterRegistry);
+        this.negativeHits = Counter.builder("pqc.username.filter.negative")
+                .description("Lookups answered as not registered without a database query")
+                .register(meterRegistry);
+        this.falsePositives = Counter.builder("pqc.username.filter.false.positives")
+                .description("Lookups the filter passed through that the credential store did not find")
+                .register(meterRegistry);
+        Gauge.builder("pqc.username.filter.false.positive.rate", this, UsernameFilter::estimatedFalsePositiveRate)
+                .description("Estimated false-positive probability of the username Bloom filter")
+                .register(meterRegistry);
+        Gauge.builder("pqc.username.filter.size", this, f -> f.current == null ? 0 : f.current.size())
+                .description("Usernames held in the Bloom filter")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Builds the filter once the application context is fully started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled) rebuild();
+    }
+
+    /**
+     * Rebuilds the filter from the credential store and swaps it in atomically.
+     * Usernames added while the rebuild runs are written to both filters.
+     */
+    public void rebuild() {
+        ScalableBloomFilter next = new ScalableBloomFilter(expectedUsers, falsePositiveRate);
+        synchronized (this) {
+            building = next;
+        }
+
+        long start = System.nanoTime();
+        credentialStore.forEachUsername(next::add);
+        long elapsed = System.nanoTime() - start;
+        rebuildTimer.record(elapsed, TimeUnit.NANOSECONDS);
+
+        synchronized (this) {
+            current = next;
+            building = null;
+        }
+        logger.info("[USERNAME FILTER REBUILT] - Users: {}, Time: {} ms, Estimated FPR: {}",
+                next.size(), elapsed / 1_000_000, next.estimatedFalsePositiveRate());
+    }
+
+    /**
+     * @param username The username to check.
+     * @return False only if the username is definitely not registered.
+     */
+    public boolean mightContain(String username) {
+        ScalableBloomFilter filter = current;
+        if (filter == null || username == null || filter.mightContain(username)) return true;
+
+        negativeHits.increment();
+        return false;
+    }
+
+    /**
+     * Records a newly created user. Must be called after the user row has been committed.
+     *
+     * @param username The username that was registered.
+     */
+    public synchronized void add(String username) {
+        if (current != null) current.add(username);
+        if (building != null) building.add(username);
+    }
+
+    /**
+     * Records that a username passed the filter but was not found in the credential store. Ignored while
+     * no filter is in use, since every username passes then.
+     */
+    public void recordFalsePositive() {
+        if (current != null) falsePositives.increment();
+    }
+
+    private double estimatedFalsePositiveRate() {
+        ScalableBloomFilter filter = current;
+        return filter == null ? 0.0 : filter.estimatedFalsePositiveRate();
+    }
+}
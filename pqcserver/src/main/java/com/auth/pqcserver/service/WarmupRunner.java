@@ -0,0 +1,159 @@
+package com.auth.pqcserver.service;
+
+import com.auth.pqcserver.dto.AuthenticationResponseDto;
+import com.auth.pqcserver.utils.JwtUtils;
+import com.auth.pqcserver.utils.SecurityUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.bouncycastle.pqc.jcajce.spec.DilithiumParameterSpec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.Signature;
+
+/**
+ * Drives the hot login path with throwaway keys at startup so it is JIT-compiled before real traffic.
+ * <p>
+ * Each iteration does what a registration or login does after the lookup: deserialises a response body,
+ * decodes both public keys, verifies the RSA and Dilithium signatures and issues and validates a JWT.
+ * Nothing touches the credential store. Iterations run in rounds of {@code warmup.round-size}; warm-up
+ * stops once {@code warmup.stable-rounds} consecutive rounds are within {@code warmup.stability-tolerance}
+ * of each other, or when {@code warmup.max-iterations} or {@code warmup.time-budget-ms} is reached.
+ * <p>
+ * Application runners finish before Spring Boot publishes {@code ReadinessState.ACCEPTING_TRAFFIC}, so the
+ * readiness probe ({@code /actuator/health/readiness}) only reports ready once warm-up is done.
+ */
+@Component
+@ConditionalOnProperty(name = "warmup.enabled", havingValue = "true")
+public class WarmupRunner implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(WarmupRunner.class);
+    private static final String WARMUP_USERNAME = "warmup";
+    private static final int SIGNED_CHALLENGES = 8;
+
+    private final JwtUtils jwtUtils;
+    private final ObjectMapper objectMapper;
+    private final int minIterations;
+    private final int maxIterations;
+    private final int roundSize;
+    private final int stableRounds;
+    private final double stabilityTolerance;
+    private final long timeBudgetMs;
+
+    public WarmupRunner(JwtUtils jwtUtils,
+                        ObjectMapper objectMapper,
+                        @Value("${warmup.min-iterations}") int minIterations,
+                        @Value("${warmup.max-iterations}") int maxIterations,
+                        @Value("${warmup.round-size}") int roundSize,
+                        @Value("${warmup.stable-rounds}") int stableRounds,
+                        @Value("${warmup.stability-tolerance}") double stabilityTolerance,
+                        @Value("${warmup.time-budget-ms}") long timeBudgetMs) {
+        this.jwtUtils = jwtUtils;
+        this.objectMapper = objectMapper;
+        this.minIterations = minIterations;
+        this.maxIterations = maxIterations;
+        this.roundSize = roundSize;
+        this.stableRounds = stableRounds;
+        this.stabilityTolerance = stabilityTolerance;
+        this.timeBudgetMs = timeBudgetMs;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        long start = System.nanoTime();
+        long deadline = start + timeBudgetMs * 1_000_000;
+        SignedChallenge[] samples = prepare();
+
+        int iterations = 0;
+        int rounds = 0;
+        int stableStreak = 0;
+        double firstRate = 0;
+        double previousRate = 0;
+        double rate = 0;
+
+        while (iterations < maxIterations && System.nanoTime() < deadline) {
+            long roundStart = System.nanoTime();
+            for (int i = 0; i < roundSize; i++) {
+                if (!cycle(samples[(iterations + i) % samples.length])) {
+                    throw new IllegalStateException("Warm-up verification failed");
+                }
+            }
+            iterations += roundSize;
+            rounds++;
+            rate = roundSize * 1e9 / (System.nanoTime() - roundStart);
+
+            if (rounds == 1) firstRate = rate;
+            stableStreak = previousRate > 0 && Math.abs(rate - previousRate) <= stabilityTolerance * previousRate
+                    ? stableStreak + 1
+                    : 0;
+            previousRate = rate;
+
+            if (iterations >= minIterations && stableStreak >= stableRounds) break;
+        }
+
+        logger.info("[WARM-UP FINISHED] - Iterations: {}, Rounds: {}, Time: {} ms, Verify rate: {}/s (first round: {}/s), Stable: {}",
+                iterations, rounds, (System.nanoTime() - start) / 1_000_000,
+                Math.round(rate), Math.round(firstRate), stableStreak >= stableRounds);
+    }
+
+    /**
+     * One synthetic login after the lookup: parse, decode the keys and verify both signatures with the same
+     * calls AuthService makes, then issue and check a token.
+     */
+    private boolean cycle(SignedChallenge sample) throws Exception {
+        AuthenticationResponseDto response = objectMapper.readValue(sample.body(), AuthenticationResponseDto.class);
+        PublicKey rsaKey = SecurityUtils.decodeRSAPublicKey(sample.publicKeyRSA());
+        PublicKey dilithiumKey = SecurityUtils.decodeDilithiumPublicKey(sample.publicKeyDilithium());
+        boolean verified = SecurityUtils.verifySignature(response.getSignatureRSA(), rsaKey, "SHA256withRSA", sample.challenge())
+                && SecurityUtils.verifySignature(response.getSignatureDilithium(), dilithiumKey, "Dilithium", sample.challenge());
+
+        String token = jwtUtils.generateToken(WARMUP_USERNAME);
+        return verified && jwtUtils.validateToken(token, WARMUP_USERNAME);
+    }
+
+    /**
+     * Generates throwaway key pairs and a few signed challenges. Signing is client work, so it is done
+     * once up front rather than per iteration.
+     */
+    private SignedChallenge[] prepare() throws Exception {
+        SecurityUtils.generateChallenge(); // Registers the Bouncy Castle providers
+
+        KeyPairGenerator rsa = KeyPairGenerator.getInstance("RSA");
+        rsa.initialize(2048);
+        KeyPair rsaKeyPair = rsa.generateKeyPair();
+
+        KeyPairGenerator dilithium = KeyPairGenerator.getInstance("Dilithium", "BCPQC");
+        dilithium.initialize(DilithiumParameterSpec.dilithium3);
+        KeyPair dilithiumKeyPair = dilithium.generateKeyPair();
+
+        SignedChallenge[] samples = new SignedChallenge[SIGNED_CHALLENGES];
+        for (int i = 0; i < samples.length; i++) {
+            String challenge = SecurityUtils.generateChallenge();
+            AuthenticationResponseDto response = new AuthenticationResponseDto();
+            response.setSignatureRSA(sign(rsaKeyPair.getPrivate(), "SHA256withRSA", challenge));
+            response.setSignatureDilithium(sign(dilithiumKeyPair.getPrivate(), "Dilithium", challenge));
+
+            samples[i] = new SignedChallenge(challenge, objectMapper.writeValueAsBytes(response),
+                    rsaKeyPair.getPublic().getEncoded(), dilithiumKeyPair.getPublic().getEncoded());
+        }
+        return samples;
+    }
+
+    private static byte[] sign(PrivateKey key, String algorithm, String challenge) throws Exception {
+        Signature signer = Signature.getInstance(algorithm);
+        signer.initSign(key);
+        signer.update(challenge.getBytes(StandardCharsets.UTF_8));
+        return signer.sign();
+    }
+
+    private record SignedChallenge(String challenge, byte[] body, byte[] publicKeyRSA, byte[] publicKeyDilithium) {}
+}
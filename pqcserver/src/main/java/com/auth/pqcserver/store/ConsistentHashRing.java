@@ -0,0 +1,60 @@
+package com.auth.pqcserver.store;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Consistent-hash ring that maps usernames to shard names.
+ * <p>
+ * Every shard is placed on a 64-bit ring at {@code virtualNodes} pseudo-random points; a username belongs to
+ * the first point at or after its own hash. Adding or removing one shard therefore only moves the usernames
+ * between that shard's points and their predecessors, roughly {@code 1 / shardCount} of all users.
+ * <p>
+ * The hash is part of the on-disk layout: changing it would reassign every user, so it must stay stable
+ * across releases and JVMs (unlike {@link String#hashCode()}, which is only 32 bits wide anyway).
+ */
+public final class ConsistentHashRing {
+
+    private final TreeMap<Long, String> points = new TreeMap<>();
+
+    /**
+     * @param shards       Names of the shards on the ring.
+     * @param virtualNodes Points per shard.
+     */
+    public ConsistentHashRing(Collection<String> shards, int virtualNodes) {
+        if (shards.isEmpty()) throw new IllegalArgumentException("A hash ring needs at least one shard");
+
+        for (String shard : shards) {
+            for (int i = 0; i < virtualNodes; i++) {
+                points.put(hash(shard + "#" + i), shard);
+            }
+        }
+    }
+
+    /**
+     * @param username The username to place.
+     * @return The name of the shard that owns the username.
+     */
+    public String shardFor(String username) {
+        Map.Entry<Long, String> owner = points.ceilingEntry(hash(username));
+        return owner != null ? owner.getValue() : points.firstEntry().getValue();
+    }
+
+    /**
+     * 64-bit FNV-1a over the UTF-8 bytes, followed by the murmur3 finaliser to spread short keys.
+     */
+    static long hash(String value) {
+        long h = 0xCBF29CE484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h = (h ^ (b & 0xFF)) * 0x100000001B3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
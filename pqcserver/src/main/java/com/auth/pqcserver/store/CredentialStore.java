@@ -0,0 +1,129 @@
+package com.auth.pqcserver.store;
+
+import com.auth.pqcserver.repository.projection.CredentialFingerprint;
+import com.auth.pqcserver.repository.projection.CredentialSnapshot;
+import com.auth.pqcserver.repository.projection.LoginCredentialView;
+import com.auth.pqcserver.repository.projection.RegistrationView;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Storage SPI for users, credentials and login challenges used by {@code AuthService}.
+ * <p>
+ * The implementation is chosen with {@code credential-store.type}: {@code jpa} (default) keeps everything
+ * in the relational database through Spring Data, {@code memory} keeps everything in concurrent maps for
+ * benchmarking and database-less edge nodes. Implementations must be thread-safe, and the insert-if-absent
+ * operations must be atomic with respect to concurrent callers.
+ */
+public interface CredentialStore {
+
+    /**
+     * Looks up the immutable part of a user and their primary credential (the one with the lowest ID), if any.
+     *
+     * @param username The username to look up.
+     * @return An Optional containing the snapshot if the user exists, otherwise empty.
+     */
+    Optional<CredentialSnapshot> findSnapshot(String username);
+
+    /**
+     * Looks up the keys of one credential and the latest challenge needed to verify a login. A given
+     * credential ID must be resolved by primary key, never by trying the user's other credentials.
+     *
+     * @param username     The username to look up.
+     * @param credentialId The credential the client signed with, or null for the user's primary credential.
+     * @return An Optional containing the login view if the credential exists and belongs to the user, otherwise empty.
+     */
+    Optional<LoginCredentialView> findLoginView(String username, Long credentialId);
+
+    /**
+     * Looks up a user's latest challenge and how many credentials already exist.
+     *
+     * @param username The username to look up.
+     * @return An Optional containing the registration view if the user exists, otherwise empty.
+     */
+    Optional<RegistrationView> findRegistrationView(String username);
+
+    /**
+     * Lists the IDs and key fingerprints of all of a user's credentials, primary (lowest ID) first.
+     *
+     * @param username The username to look up.
+     * @return The user's credential fingerprints, empty if the user is unknown or has no credential.
+     */
+    List<CredentialFingerprint> findFingerprints(String username);
+
+    /**
+     * Creates a user unless one with the same username already exists. If it does, for instance because a
+     * concurrent registration won the race, the challenge is stored for the existing user instead, but only
+     * while that user has no credential: after that the stored challenge is the one their logins sign.
+     *
+     * @param username  The username to register.
+     * @param email     The user's email address.
+     * @param challenge The registration challenge to store, or null to leave an existing user's challenge alone.
+     * @return The ID of the new or already existing user.
+     */
+    Long insertUserIfAbsent(String username, String email, String challenge);
+
+    /**
+     * Stores a credential for a user unless the user already has {@code limit} or more. With a limit of 1
+     * this is insert-if-absent.
+     *
+     * @param username             The user's username, used by implementations that partition by username.
+     * @param userId               The user's ID.
+     * @param credentialId         The new credential's ID.
+     * @param publicKeyDilithium   DER-encoded Dilithium public key.
+     * @param publicKeyRSA         DER-encoded RSA public key.
+     * @param fingerprintDilithium SHA-256 of the Dilithium public key.
+     * @param fingerprintRSA       SHA-256 of the RSA public key.
+     * @param limit                Number of credentials the user may have at most after the insert.
+     * @return True if the credential was stored, false if the user was already at the limit.
+     */
+    boolean insertCredential(String username, Long userId, long credentialId,
+                             byte[] publicKeyDilithium, byte[] publicKeyRSA,
+                             byte[] fingerprintDilithium, byte[] fingerprintRSA, int limit);
+
+    /**
+     * Creates users together with all of their credentials, keeping the credential IDs, for bulk imports. A
+     * row is skipped if its username already exists, repeats an earlier row of the batch, loses a race with a
+     * concurrent registration or has a credential ID that is already taken.
+     * Database-backed implementations write the batch with batched statements in one transaction per database.
+     *
+     * @param users The users to create, with their credentials.
+     * @return For each row, in order, true if the user and their credentials were created.
+     */
+    boolean[] importUsers(List<ImportedUser> users);
+
+    /**
+     * @param username The username to look up.
+     * @return The latest challenge issued to the user, if any.
+     */
+    Optional<String> getChallenge(String username);
+
+    /**
+     * Stores the latest challenge issued to a user.
+     *
+     * @param username  The username the challenge was issued to.
+     * @param userId    The user's ID.
+     * @param challenge The challenge to store.
+     */
+    void setChallenge(String username, Long userId, String challenge);
+
+    /**
+     * Calls the consumer once for every registered username, without holding them all in memory.
+     *
+     * @param consumer Receives each username.
+     */
+    void forEachUsername(Consumer<String> consumer);
+
+    /**
+     * Calls the consumer once for every user, with all of their credentials, in ascending username order.
+     * Database-backed implementations read through a cursor with the given fetch size, so memory use does
+     * not grow with the number of users.
+     *
+     * @param afterUsername Only users whose username sorts after this one are exported; null for all users.
+     * @param fetchSize     Rows fetched per database round trip.
+     * @param consumer      Receives each user.
+     */
+    void forEachExportedUser(String afterUsername, int fetchSize, Consumer<ExportedUser> consumer);
+}
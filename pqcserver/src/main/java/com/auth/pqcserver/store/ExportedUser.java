@@ -0,0 +1,21 @@
+package com.auth.pqcserver.store;
+
+import java.util.List;
+
+/**
+ * A user and all of their credentials as streamed by {@link CredentialStore#forEachExportedUser}.
+ *
+ * @param username    The user's username.
+ * @param email       The user's email address.
+ * @param credentials The user's credentials by ascending ID, primary first; empty if registration never finished.
+ */
+public record ExportedUser(String username, String email, List<ExportedCredential> credentials) {
+
+    /**
+     * @param credentialId       The credential's ID.
+     * @param publicKeyDilithium DER-encoded Dilithium public key.
+     * @param publicKeyRSA       DER-encoded RSA public key.
+     */
+    public record ExportedCredential(long credentialId, byte[] publicKeyDilithium, byte[] publicKeyRSA) {
+    }
+}
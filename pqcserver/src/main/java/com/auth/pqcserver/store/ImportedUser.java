@@ -0,0 +1,27 @@
+package com.auth.pqcserver.store;
+
+import java.util.List;
+
+/**
+ * A user with their already validated credentials, as written by {@link CredentialStore#importUsers(java.util.List)}.
+ *
+ * @param username    The username to create.
+ * @param email       The user's email address.
+ * @param credentials The user's credentials; may be empty for a user whose registration never finished.
+ */
+public record ImportedUser(String username, String email, List<ImportedCredential> credentials) {
+
+    /**
+     * @param credentialId         The credential's ID.
+     * @param publicKeyDilithium   DER-encoded Dilithium public key.
+     * @param publicKeyRSA         DER-encoded RSA public key.
+     * @param fingerprintDilithium SHA-256 of the Dilithium public key.
+     * @param fingerprintRSA       SHA-256 of the RSA public key.
+     */
+    public record ImportedCredential(long credentialId,
+                                     byte[] publicKeyDilithium,
+                                     byte[] publicKeyRSA,
+                                     byte[] fingerprintDilithium,
+                                     byte[] fingerprintRSA) {
+    }
+}
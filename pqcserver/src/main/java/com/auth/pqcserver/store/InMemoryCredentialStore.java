@@ -0,0 +1,232 @@
+package com.auth.pqcserver.store;
+
+import com.auth.pqcserver.repository.projection.CredentialFingerprint;
+import com.auth.pqcserver.repository.projection.CredentialSnapshot;
+import com.auth.pqcserver.repository.projection.LoginCredentialView;
+import com.auth.pqcserver.repository.projection.RegistrationView;
+import com.auth.pqcserver.store.ExportedUser.ExportedCredential;
+import com.auth.pqcserver.store.ImportedUser.ImportedCredential;
+import com.auth.pqcserver.utils.OffHeapKeyArena;
+import com.auth.pqcserver.utils.SecurityUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * {@link CredentialStore} that keeps everything in concurrent hash maps.
+ * <p>
+ * Intended for benchmarking and for auth-only edge nodes that run without a database
+ * ({@code spring.profiles.active=memory}). Insert-if-absent is a single atomic map operation.
+ * Nothing survives a restart.
+ * <p>
+ * Public keys dominate the footprint (a Dilithium3 key is ~1.9 KB), so by default they are kept off-heap in
+ * an {@link OffHeapKeyArena} keyed by credential ID and only copied onto the heap for the request that
+ * verifies with them. Set {@code memory-store.off-heap-keys=false} to keep them as heap byte arrays.
+ * A user's credential IDs are kept sorted, so the primary credential is the first one. Key fingerprints are
+ * not kept: they are derived from the keys when listed, so a credential costs no more than its keys.
+ */
+@Component
+@ConditionalOnProperty(name = "credential-store.type", havingValue = "memory")
+public class InMemoryCredentialStore implements CredentialStore {
+
+    private static final long[] NO_CREDENTIALS = new long[0];
+
+    private final AtomicLong userIds = new AtomicLong();
+    private final Map<String, StoredUser> usersByName = new ConcurrentHashMap<>();
+    private final Map<Long, long[]> credentialIdsByUserId = new ConcurrentHashMap<>();
+    private final Map<Long, Long> userIdsByCredentialId = new ConcurrentHashMap<>();
+
+    // Exactly one of these holds the key bytes, depending on memory-store.off-heap-keys
+    private final OffHeapKeyArena keyArena;
+    private final Map<Long, StoredCredential> onHeapKeys;
+
+    public InMemoryCredentialStore(@Value("${memory-store.off-heap-keys}") boolean offHeapKeys,
+                                   @Value("${memory-store.arena-chunk-bytes}") int arenaChunkBytes,
+                                   @Value("${memory-store.expected-credentials}") int expectedCredentials) {
+        this.keyArena = offHeapKeys ? new OffHeapKeyArena(arenaChunkBytes, expectedCredentials) : null;
+        this.onHeapKeys = offHeapKeys ? null : new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public Optional<CredentialSnapshot> findSnapshot(String username) {
+        StoredUser user = usersByName.get(username);
+        if (user == null) return Optional.empty();
+
+        Long credentialId = primaryCredentialId(user.id());
+        StoredCredential credential = credentialId == null ? null : credential(credentialId);
+        return Optional.of(credential == null
+                ? new CredentialSnapshot(user.id(), user.username(), user.email(), null, null, null)
+                : new CredentialSnapshot(user.id(), user.username(), user.email(), credentialId,
+                        credential.publicKeyRSA(), credential.publicKeyDilithium()));
+    }
+
+    @Override
+    public Optional<LoginCredentialView> findLoginView(String username, Long credentialId) {
+        StoredUser user = usersByName.get(username);
+        if (user == null) return Optional.empty();
+
+        if (credentialId == null) {
+            credentialId = primaryCredentialId(user.id());
+        } else if (!user.id().equals(userIdsByCredentialId.get(credentialId))) {
+            return Optional.empty();
+        }
+        if (credentialId == null) return Optional.empty();
+
+        StoredCredential credential = credential(credentialId);
+        return Optional.of(new LoginCredentialView(user.id(), user.challenge(),
+                credential.publicKeyRSA(), credential.publicKeyDilithium()));
+    }
+
+    @Override
+    public Optional<RegistrationView> findRegistrationView(String username) {
+        StoredUser user = usersByName.get(username);
+        if (user == null) return Optional.empty();
+
+        return Optional.of(new RegistrationView(user.id(), user.challenge(),
+                credentialIdsByUserId.getOrDefault(user.id(), NO_CREDENTIALS).length));
+    }
+
+    @Override
+    public List<CredentialFingerprint> findFingerprints(String username) {
+        StoredUser user = usersByName.get(username);
+        if (user == null) return List.of();
+
+        return Arrays.stream(credentialIdsByUserId.getOrDefault(user.id(), NO_CREDENTIALS))
+                .mapToObj(credentialId -> {
+                    StoredCredential credential = credential(credentialId);
+                    return new CredentialFingerprint(credentialId, SecurityUtils.fingerprint(credential.publicKeyRSA()),
+                            SecurityUtils.fingerprint(credential.publicKeyDilithium()));
+                })
+                .toList();
+    }
+
+    @Override
+    public Long insertUserIfAbsent(String username, String email, String challenge) {
+        // An existing user gets the caller's challenge, since that is the one its client signs, unless
+        // the user has a credential and so logs in with the stored challenge
+        return usersByName.compute(username, (name, user) -> user == null
+                ? new StoredUser(userIds.incrementAndGet(), name, email, challenge)
+                : challenge == null || credentialIdsByUserId.getOrDefault(user.id(), NO_CREDENTIALS).length > 0
+                ? user : user.withChallenge(challenge)).id();
+    }
+
+    @Override
+    public boolean insertCredential(String username, Long userId, long credentialId,
+                                    byte[] publicKeyDilithium, byte[] publicKeyRSA,
+                                    byte[] fingerprintDilithium, byte[] fingerprintRSA, int limit) {
+        boolean[] stored = {false};
+        // The count check and the insert happen under the user's map entry, so the limit holds under races.
+        // Keys are stored before the ID is published, so a reader that finds the ID always finds the keys.
+        credentialIdsByUserId.compute(userId, (id, ids) -> {
+            long[] current = ids == null ? NO_CREDENTIALS : ids;
+            if (current.length >= limit || !storeKeys(credentialId, publicKeyDilithium, publicKeyRSA)) return ids;
+
+            userIdsByCredentialId.put(credentialId, userId);
+            long[] updated = Arrays.copyOf(current, current.length + 1);
+            updated[current.length] = credentialId;
+            Arrays.sort(updated);
+            stored[0] = true;
+            return updated;
+        });
+        return stored[0];
+    }
+
+    @Override
+    public boolean[] importUsers(List<ImportedUser> users) {
+        boolean[] imported = new boolean[users.size()];
+        for (int i = 0; i < users.size(); i++) {
+            ImportedUser user = users.get(i);
+            if (user.credentials().stream().anyMatch(credential -> userIdsByCredentialId.containsKey(credential.credentialId()))) {
+                continue;
+            }
+
+            boolean[] created = {false};
+            StoredUser stored = usersByName.computeIfAbsent(user.username(), name -> {
+                created[0] = true;
+                return new StoredUser(userIds.incrementAndGet(), name, user.email(), null);
+            });
+            imported[i] = created[0];
+            for (ImportedCredential credential : user.credentials()) {
+                imported[i] &= created[0] && insertCredential(user.username(), stored.id(), credential.credentialId(),
+                        credential.publicKeyDilithium(), credential.publicKeyRSA(), credential.fingerprintDilithium(),
+                        credential.fingerprintRSA(), user.credentials().size());
+            }
+        }
+        return imported;
+    }
+
+    @Override
+    public Optional<String> getChallenge(String username) {
+        StoredUser user = usersByName.get(username);
+        return user == null ? Optional.empty() : Optional.ofNullable(user.challenge());
+    }
+
+    @Override
+    public void setChallenge(String username, Long userId, String challenge) {
+        usersByName.computeIfPresent(username, (name, user) -> user.withChallenge(challenge));
+    }
+
+    @Override
+    public void forEachUsername(Consumer<String> consumer) {
+        usersByName.keySet().forEach(consumer);
+    }
+
+    /**
+     * Sorts a copy of the usernames, which is small next to the keys this store already holds.
+     */
+    @Override
+    public void forEachExportedUser(String afterUsername, int fetchSize, Consumer<ExportedUser> consumer) {
+        usersByName.keySet().stream()
+                .filter(username -> afterUsername == null || username.compareTo(afterUsername) > 0)
+                .sorted()
+                .forEach(username -> {
+                    StoredUser user = usersByName.get(username);
+                    if (user == null) return;
+
+                    List<ExportedCredential> credentials = Arrays.stream(
+                                    credentialIdsByUserId.getOrDefault(user.id(), NO_CREDENTIALS))
+                            .mapToObj(credentialId -> {
+                                StoredCredential credential = credential(credentialId);
+                                return new ExportedCredential(credentialId,
+                                        credential.publicKeyDilithium(), credential.publicKeyRSA());
+                            })
+                            .toList();
+                    consumer.accept(new ExportedUser(username, user.email(), credentials));
+                });
+    }
+
+    private Long primaryCredentialId(Long userId) {
+        long[] ids = credentialIdsByUserId.get(userId);
+        return ids == null ? null : ids[0];
+    }
+
+    /**
+     * @return False if the credential ID is already taken.
+     */
+    private boolean storeKeys(long credentialId, byte[] publicKeyDilithium, byte[] publicKeyRSA) {
+        if (keyArena != null) return keyArena.putIfAbsent(credentialId, publicKeyDilithium, publicKeyRSA);
+        return onHeapKeys.putIfAbsent(credentialId, new StoredCredential(publicKeyDilithium, publicKeyRSA)) == null;
+    }
+
+    private StoredCredential credential(long credentialId) {
+        if (keyArena == null) return onHeapKeys.get(credentialId);
+
+        return new StoredCredential(keyArena.publicKeyDilithium(credentialId), keyArena.publicKeyRSA(credentialId));
+    }
+
+    private record StoredUser(Long id, String username, String email, String challenge) {
+        StoredUser withChallenge(String newChallenge) {
+            return new StoredUser(id, username, email, newChallenge);
+        }
+    }
+
+    private record StoredCredential(byte[] publicKeyDilithium, byte[] publicKeyRSA) {}
+}
@@ -0,0 +1,101 @@
+package com.auth.pqcserver.store;
+
+import com.auth.pqcserver.store.ExportedUser.ExportedCredential;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Streams the users of one database, with their credentials, through a JDBC cursor. Users are joined to
+ * their credentials and ordered by username, so the rows of one user are adjacent and can be folded into an
+ * {@link ExportedUser} as they go by; only one user is held in memory at a time. The username index makes
+ * resuming after a username a range scan.
+ * <p>
+ * Drivers such as PostgreSQL only honour the fetch size inside a transaction, so callers must consume the
+ * stream within one.
+ */
+final class JdbcUserExporter {
+
+    private static final String EXPORT_SQL = "select u.username, u.email, c.id, c.public_key_dilithium, c.public_key_rsa "
+            + "from users u left join credential c on c.user_id = u.id ";
+    private static final String ORDER_BY = " order by u.username, c.id";
+
+    private static final RowMapper<Row> ROW_MAPPER = (resultSet, row) -> {
+        Long credentialId = resultSet.getObject(3, Long.class);
+        return new Row(resultSet.getString(1), resultSet.getString(2), credentialId == null ? null
+                : new ExportedCredential(credentialId, resultSet.getBytes(4), resultSet.getBytes(5)));
+    };
+
+    private JdbcUserExporter() {}
+
+    /**
+     * @param jdbcTemplate  JDBC access to the database to read.
+     * @param afterUsername Only users whose username sorts after this one are returned; null for all.
+     * @param fetchSize     Rows fetched per round trip.
+     * @return The users in ascending username order. Must be closed to release the cursor.
+     */
+    static Stream<ExportedUser> streamUsers(JdbcTemplate jdbcTemplate, String afterUsername, int fetchSize) {
+        Stream<Row> rows = jdbcTemplate.queryForStream(connection -> {
+            PreparedStatement statement = connection.prepareStatement(afterUsername == null
+                    ? EXPORT_SQL + ORDER_BY
+                    : EXPORT_SQL + "where u.username > ?" + ORDER_BY);
+            statement.setFetchSize(fetchSize);
+            if (afterUsername != null) statement.setString(1, afterUsername);
+            return statement;
+        }, ROW_MAPPER);
+
+        Iterator<ExportedUser> users = new UserIterator(rows.iterator());
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(users, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(rows::close);
+    }
+
+    /**
+     * One row of the join: a user with one of their credentials, or with none if they have no credential.
+     */
+    private record Row(String username, String email, ExportedCredential credential) {}
+
+    /**
+     * Folds runs of rows with the same username into one user.
+     */
+    private static final class UserIterator implements Iterator<ExportedUser> {
+
+        private final Iterator<Row> rows;
+        private Row pending;
+
+        UserIterator(Iterator<Row> rows) {
+            this.rows = rows;
+            this.pending = rows.hasNext() ? rows.next() : null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return pending != null;
+        }
+
+        @Override
+        public ExportedUser next() {
+            if (pending == null) throw new NoSuchElementException();
+
+            Row first = pending;
+            List<ExportedCredential> credentials = new ArrayList<>();
+            Row row = first;
+            do {
+                if (row.credential() != null) credentials.add(row.credential());
+                row = rows.hasNext() ? rows.next() : null;
+            } while (row != null && row.username().equals(first.username()));
+
+            pending = row;
+            return new ExportedUser(first.username(), first.email(), credentials);
+        }
+    }
+}
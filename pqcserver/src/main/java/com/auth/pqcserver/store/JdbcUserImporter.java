@@ -0,0 +1,117 @@
+package com.auth.pqcserver.store;
+
+import com.auth.pqcserver.store.ImportedUser.ImportedCredential;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writes a batch of {@link ImportedUser}s to one database with a fixed number of round trips, whatever the
+ * batch size: one existence check per {@value #IN_LIST_SIZE} usernames, one JDBC batch of user inserts, one
+ * ID lookup per {@value #IN_LIST_SIZE} usernames and one JDBC batch of all their credential inserts, all in a single
+ * transaction. Update counts are never read, since some drivers report batched rows as "success, no info".
+ * <p>
+ * A concurrent registration of the same username, or a credential ID that is already taken, makes a batch
+ * fail on a unique index and rolls the whole batch back. The batch is then retried row by row, so only the
+ * conflicting rows are skipped.
+ */
+final class JdbcUserImporter {
+
+    // Keeps IN lists well below the bind-parameter limits of common databases
+    private static final int IN_LIST_SIZE = 1000;
+
+    private static final String INSERT_CREDENTIAL_SQL = "insert into credential "
+            + "(id, user_id, public_key_dilithium, public_key_rsa, fingerprint_dilithium, fingerprint_rsa) "
+            + "values (?, ?, ?, ?, ?, ?)";
+
+    private JdbcUserImporter() {}
+
+    /**
+     * @param jdbcTemplate        JDBC access to the database that receives the rows.
+     * @param transactionTemplate Read-write transactions on the same database.
+     * @param insertUserSql       Inserts one user from (username, email) and assigns its ID.
+     * @param users               The users to create.
+     * @return For each row, in order, true if it was created.
+     */
+    static boolean[] importUsers(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                                 String insertUserSql, List<ImportedUser> users) {
+        try {
+            return importBatch(jdbcTemplate, transactionTemplate, insertUserSql, users);
+        } catch (DuplicateKeyException e) {
+            boolean[] imported = new boolean[users.size()];
+            for (int i = 0; i < users.size(); i++) {
+                try {
+                    imported[i] = importBatch(jdbcTemplate, transactionTemplate, insertUserSql, List.of(users.get(i)))[0];
+                } catch (DuplicateKeyException rowConflict) {
+                    imported[i] = false;
+                }
+            }
+            return imported;
+        }
+    }
+
+    private static boolean[] importBatch(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                                         String insertUserSql, List<ImportedUser> users) {
+        boolean[] imported = new boolean[users.size()];
+        if (users.isEmpty()) return imported;
+
+        return transactionTemplate.execute(status -> {
+            Set<String> taken = new HashSet<>(
+                    findUserIds(jdbcTemplate, users.stream().map(ImportedUser::username).toList()).keySet());
+
+            List<ImportedUser> fresh = new ArrayList<>();
+            for (int i = 0; i < users.size(); i++) {
+                if (taken.add(users.get(i).username())) {
+                    fresh.add(users.get(i));
+                    imported[i] = true;
+                }
+            }
+            if (fresh.isEmpty()) return imported;
+
+            jdbcTemplate.batchUpdate(insertUserSql, fresh, fresh.size(), (statement, user) -> {
+                statement.setString(1, user.username());
+                statement.setString(2, user.email());
+            });
+
+            Map<String, Long> userIds = findUserIds(jdbcTemplate, fresh.stream().map(ImportedUser::username).toList());
+            List<Map.Entry<Long, ImportedCredential>> credentials = new ArrayList<>();
+            fresh.forEach(user -> user.credentials().forEach(credential ->
+                    credentials.add(Map.entry(userIds.get(user.username()), credential))));
+            if (credentials.isEmpty()) return imported;
+
+            jdbcTemplate.batchUpdate(INSERT_CREDENTIAL_SQL, credentials, credentials.size(), (statement, row) -> {
+                statement.setLong(1, row.getValue().credentialId());
+                statement.setLong(2, row.getKey());
+                statement.setBytes(3, row.getValue().publicKeyDilithium());
+                statement.setBytes(4, row.getValue().publicKeyRSA());
+                statement.setBytes(5, row.getValue().fingerprintDilithium());
+                statement.setBytes(6, row.getValue().fingerprintRSA());
+            });
+            return imported;
+        });
+    }
+
+    /**
+     * @return The IDs of those of the usernames that exist.
+     */
+    private static Map<String, Long> findUserIds(JdbcTemplate jdbcTemplate, List<String> usernames) {
+        Map<String, Long> ids = new HashMap<>();
+        for (int from = 0; from < usernames.size(); from += IN_LIST_SIZE) {
+            List<String> chunk = usernames.subList(from, Math.min(from + IN_LIST_SIZE, usernames.size()));
+            String sql = "select username, id from users where username in ("
+                    + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")";
+            jdbcTemplate.query(sql, resultSet -> {
+                ids.put(resultSet.getString(1), resultSet.getLong(2));
+            }, chunk.toArray());
+        }
+        return ids;
+    }
+}
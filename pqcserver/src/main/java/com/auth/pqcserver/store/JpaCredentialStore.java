@@ -0,0 +1,150 @@
+package com.auth.pqcserver.store;
+
+import com.auth.pqcserver.entity.User;
+import com.auth.pqcserver.repository.CredentialRepository;
+import com.auth.pqcserver.repository.UserRepository;
+import com.auth.pqcserver.repository.projection.CredentialFingerprint;
+import com.auth.pqcserver.repository.projection.CredentialSnapshot;
+import com.auth.pqcserver.repository.projection.LoginCredentialView;
+import com.auth.pqcserver.repository.projection.RegistrationView;
+import com.auth.pqcserver.service.ChallengeWriteBehind;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Default {@link CredentialStore} backed by the relational database through Spring Data JPA.
+ * Login challenges go through the {@link ChallengeWriteBehind} queue. Lookups run in read-only
+ * transactions and may be served by a replica, except for users written within the
+ * {@link ReadYourWritesTracker} window. Bulk imports and exports bypass JPA and go through batched statements and a JDBC cursor.
+ */
+@Component
+@ConditionalOnProperty(name = "credential-store.type", havingValue = "jpa", matchIfMissing = true)
+public class JpaCredentialStore implements CredentialStore {
+
+    private static final String IMPORT_USER_SQL = "insert into users (username, email) values (?, ?)";
+
+    private final UserRepository userRepository;
+    private final CredentialRepository credentialRepository;
+    private final ChallengeWriteBehind challengeWriteBehind;
+    private final ReadYourWritesTracker readYourWrites;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final TransactionTemplate writeTransaction;
+
+    public JpaCredentialStore(UserRepository userRepository,
+                              CredentialRepository credentialRepository,
+                              ChallengeWriteBehind challengeWriteBehind,
+                              ReadYourWritesTracker readYourWrites,
+                              JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager) {
+        this.userRepository = userRepository;
+        this.credentialRepository = credentialRepository;
+        this.challengeWriteBehind = challengeWriteBehind;
+        this.readYourWrites = readYourWrites;
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public Optional<CredentialSnapshot> findSnapshot(String username) {
+        return readYourWrites.read(username, () -> userRepository.findSnapshotByUsername(username));
+    }
+
+    @Override
+    public Optional<LoginCredentialView> findLoginView(String username, Long credentialId) {
+        // Read the queue first: a challenge flushed in between is then already in the joined row
+        Optional<String> pendingChallenge = challengeWriteBehind.get(username);
+
+        return readYourWrites.read(username, () -> credentialId == null
+                        ? credentialRepository.findPrimaryLoginViewByUsername(username)
+                        : credentialRepository.findLoginViewById(credentialId, username))
+                .map(view -> pendingChallenge.map(view::withChallenge).orElse(view));
+    }
+
+    @Override
+    public Optional<RegistrationView> findRegistrationView(String username) {
+        // Registration challenges for additional devices go through the queue like login challenges
+        Optional<String> pendingChallenge = challengeWriteBehind.get(username);
+
+        return readYourWrites.read(username, () -> userRepository.findRegistrationViewByUsername(username))
+                .map(view -> pendingChallenge.map(view::withChallenge).orElse(view));
+    }
+
+    @Override
+    public List<CredentialFingerprint> findFingerprints(String username) {
+        return readYourWrites.read(username, () -> credentialRepository.findFingerprintsByUsername(username));
+    }
+
+    @Override
+    public Long insertUserIfAbsent(String username, String email, String challenge) {
+        readYourWrites.recordWrite(username);
+        try {
+            return userRepository.save(new User(username, challenge, email)).getId();
+        } catch (DataIntegrityViolationException e) {
+            // Lost a race on the unique username index; the other insert won, but this caller's challenge
+            // is the one its client will sign, unless the user can already log in
+            CredentialSnapshot existing = findSnapshot(username).orElseThrow(() -> e);
+            if (challenge != null && !existing.hasCredential()) setChallenge(username, existing.userId(), challenge);
+            return existing.userId();
+        }
+    }
+
+    @Override
+    public boolean insertCredential(String username, Long userId, long credentialId,
+                                    byte[] publicKeyDilithium, byte[] publicKeyRSA,
+                                    byte[] fingerprintDilithium, byte[] fingerprintRSA, int limit) {
+        readYourWrites.recordWrite(username);
+        // Concurrent inserts for the same user queue on the user row, so each one counts the others
+        return Boolean.TRUE.equals(writeTransaction.execute(status -> userRepository.lockById(userId).isPresent()
+                && credentialRepository.insertIfBelowLimit(credentialId, userId, publicKeyDilithium, publicKeyRSA,
+                fingerprintDilithium, fingerprintRSA, limit) == 1));
+    }
+
+    @Override
+    public boolean[] importUsers(List<ImportedUser> users) {
+        users.forEach(user -> readYourWrites.recordWrite(user.username()));
+        return JdbcUserImporter.importUsers(jdbcTemplate, writeTransaction, IMPORT_USER_SQL, users);
+    }
+
+    @Override
+    public Optional<String> getChallenge(String username) {
+        return challengeWriteBehind.get(username)
+                .or(() -> readYourWrites.read(username, () -> userRepository.findChallengeByUsername(username)));
+    }
+
+    @Override
+    public void setChallenge(String username, Long userId, String challenge) {
+        readYourWrites.recordWrite(username);
+        challengeWriteBehind.put(username, userId, challenge);
+    }
+
+    @Override
+    public void forEachUsername(Consumer<String> consumer) {
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<String> usernames = userRepository.streamAllUsernames()) {
+                usernames.forEach(consumer);
+            }
+        });
+    }
+
+    @Override
+    public void forEachExportedUser(String afterUsername, int fetchSize, Consumer<ExportedUser> consumer) {
+        // Read-only, so with replicas enabled an export runs against a replica
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<ExportedUser> users = JdbcUserExporter.streamUsers(jdbcTemplate, afterUsername, fetchSize)) {
+                users.forEach(consumer);
+            }
+        });
+    }
+}
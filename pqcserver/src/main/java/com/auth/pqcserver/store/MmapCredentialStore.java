@@ -0,0 +1,520 @@
+package com.auth.pqcserver.store;
+
+import com.auth.pqcserver.repository.projection.CredentialFingerprint;
+import com.auth.pqcserver.repository.projection.CredentialSnapshot;
+import com.auth.pqcserver.repository.projection.LoginCredentialView;
+import com.auth.pqcserver.repository.projection.RegistrationView;
+import com.auth.pqcserver.store.ExportedUser.ExportedCredential;
+import com.auth.pqcserver.store.ImportedUser.ImportedCredential;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * {@link CredentialStore} backed by an append-only, memory-mapped {@link SegmentLog}.
+ * <p>
+ * Users and credentials are written once as CRC-checked records and never updated in place. Hash indexes
+ * from username and from credential ID to record positions are kept on the heap and rebuilt at startup by
+ * scanning the segments in order, so a lookup is a map probe or two plus reads from the page cache. Login
+ * challenges change on every login and are only kept in memory; after a restart clients simply start a new
+ * login. A user's registration challenge is part of the user record so an interrupted registration can
+ * still finish.
+ * <p>
+ * When a scan finds more than {@code mmap-store.compaction-threshold} of the log occupied by superseded or
+ * unreadable records, the live records are rewritten into fresh segments and the old ones deleted. Compaction
+ * only runs at startup because nothing else creates dead space: at runtime records are only ever added, never
+ * updated or deleted, so the log grows with the number of users and credentials and nothing more. Dead
+ * records come from torn writes and interrupted compactions, and the startup scan finds both.
+ * Selected with {@code credential-store.type=mmap}.
+ */
+@Component
+@ConditionalOnProperty(name = "credential-store.type", havingValue = "mmap")
+public class MmapCredentialStore implements CredentialStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(MmapCredentialStore.class);
+
+    private static final byte USER_RECORD = 1;
+    private static final byte CREDENTIAL_RECORD = 4;
+    // A record is only stale while a compaction drops its segment; after that the index points at the copy
+    private static final int STALE_READ_RETRIES = 3;
+
+    private final SegmentLog log;
+    private final double compactionThreshold;
+
+    private final Map<String, IndexEntry> index = new ConcurrentHashMap<>();
+    private final Map<Long, CredentialEntry> credentials = new ConcurrentHashMap<>();
+    private final Map<Long, String> usernamesById = new ConcurrentHashMap<>();
+    private final Map<String, String> challenges = new ConcurrentHashMap<>();
+    private final AtomicLong userIds = new AtomicLong();
+    private long liveBytes;
+
+    public MmapCredentialStore(@Value("${mmap-store.directory}") String directory,
+                               @Value("${mmap-store.segment-size-bytes}") int segmentSizeBytes,
+                               @Value("${mmap-store.sync-on-write}") boolean syncOnWrite,
+                               @Value("${mmap-store.compaction-threshold}") double compactionThreshold) {
+        this.log = new SegmentLog(Path.of(directory), segmentSizeBytes, syncOnWrite);
+        this.compactionThreshold = compactionThreshold;
+
+        long start = System.nanoTime();
+        long scannedBytes = log.scan(this::replay);
+        logger.info("[MMAP STORE OPENED] - Users: {}, Segments: {}, Live: {} of {} bytes, Time: {} ms",
+                index.size(), log.segmentCount(), liveBytes, scannedBytes, (System.nanoTime() - start) / 1_000_000);
+
+        if (scannedBytes > 0 && 1.0 - (double) liveBytes / scannedBytes > compactionThreshold) {
+            compact();
+        }
+    }
+
+    // ===== Lookups =====
+
+    @Override
+    public Optional<CredentialSnapshot> findSnapshot(String username) {
+        return lookup(username, entry -> {
+            UserRecord user = readUser(entry.userPosition());
+            if (user == null) return null;
+            if (entry.credentialCount() == 0) {
+                return new CredentialSnapshot(user.id(), user.username(), user.email(), null, null, null);
+            }
+
+            CredentialRecord credential = readCredential(credentials.get(entry.primaryCredentialId()));
+            if (credential == null) return null;
+
+            return new CredentialSnapshot(user.id(), user.username(), user.email(), entry.primaryCredentialId(),
+                    credential.publicKeyRSA(), credential.publicKeyDilithium());
+        });
+    }
+
+    @Override
+    public Optional<LoginCredentialView> findLoginView(String username, Long credentialId) {
+        return lookup(username, entry -> {
+            if (credentialId == null && entry.credentialCount() == 0) return Optional.<LoginCredentialView>empty();
+
+            // A credential ID of another user must not match
+            CredentialEntry credentialEntry = credentials.get(credentialId == null ? entry.primaryCredentialId() : credentialId);
+            if (credentialEntry == null || credentialEntry.userId() != entry.userId()) {
+                return Optional.<LoginCredentialView>empty();
+            }
+
+            UserRecord user = readUser(entry.userPosition());
+            CredentialRecord credential = readCredential(credentialEntry);
+            if (user == null || credential == null) return null;
+
+            return Optional.of(new LoginCredentialView(entry.userId(), challenges.getOrDefault(username, user.challenge()),
+                    credential.publicKeyRSA(), credential.publicKeyDilithium()));
+        }).flatMap(Function.identity());
+    }
+
+    @Override
+    public Optional<RegistrationView> findRegistrationView(String username) {
+        return lookup(username, entry -> {
+            UserRecord user = readUser(entry.userPosition());
+            if (user == null) return null;
+
+            return new RegistrationView(entry.userId(), challenges.getOrDefault(username, user.challenge()),
+                    entry.credentialCount());
+        });
+    }
+
+    /**
+     * Scans the credential index for the user's entries, so it costs time proportional to all credentials;
+     * meant for occasional admin listings, not for request paths.
+     */
+    @Override
+    public List<CredentialFingerprint> findFingerprints(String username) {
+        return lookup(username, entry -> {
+            List<CredentialFingerprint> fingerprints = new ArrayList<>(entry.credentialCount());
+            for (Map.Entry<Long, CredentialEntry> credential : credentials.entrySet()) {
+                if (credential.getValue().userId() != entry.userId()) continue;
+
+                CredentialFingerprint fingerprint = readFingerprint(credential.getKey(), credential.getValue());
+                if (fingerprint == null) return null;
+                fingerprints.add(fingerprint);
+            }
+            fingerprints.sort(Comparator.comparing(CredentialFingerprint::credentialId));
+            return fingerprints;
+        }).orElse(List.of());
+    }
+
+    @Override
+    public Optional<String> getChallenge(String username) {
+        String challenge = challenges.get(username);
+        if (challenge != null) return Optional.of(challenge);
+
+        return findRegistrationView(username).map(RegistrationView::challenge);
+    }
+
+    @Override
+    public void forEachUsername(Consumer<String> consumer) {
+        index.keySet().forEach(consumer);
+    }
+
+    /**
+     * Groups the credential index by user once and sorts a copy of the usernames; both are small next to the
+     * indexes this store already holds in memory. Keys are read from the log one user at a time.
+     */
+    @Override
+    public void forEachExportedUser(String afterUsername, int fetchSize, Consumer<ExportedUser> consumer) {
+        Map<Long, List<Long>> credentialIdsByUserId = new HashMap<>();
+        credentials.forEach((credentialId, entry) ->
+                credentialIdsByUserId.computeIfAbsent(entry.userId(), userId -> new ArrayList<>()).add(credentialId));
+
+        index.keySet().stream()
+                .filter(username -> afterUsername == null || username.compareTo(afterUsername) > 0)
+                .sorted()
+                .forEach(username -> lookup(username, entry -> {
+                    UserRecord user = readUser(entry.userPosition());
+                    if (user == null) return null;
+
+                    List<Long> credentialIds = credentialIdsByUserId.getOrDefault(entry.userId(), List.of());
+                    List<ExportedCredential> exported = new ArrayList<>(credentialIds.size());
+                    for (long credentialId : credentialIds.stream().sorted().toList()) {
+                        CredentialRecord credential = readCredential(credentials.get(credentialId));
+                        if (credential == null) return null;
+                        exported.add(new ExportedCredential(credentialId,
+                                credential.publicKeyDilithium(), credential.publicKeyRSA()));
+                    }
+                    return new ExportedUser(username, user.email(), exported);
+                }).ifPresent(consumer));
+    }
+
+    // ===== Writes =====
+
+    @Override
+    public Long insertUserIfAbsent(String username, String email, String challenge) {
+        IndexEntry existing = index.get(username);
+        if (existing != null) return existingUser(username, existing, challenge);
+
+        // Writers share the log's monitor so an index update is atomic with its append
+        synchronized (log) {
+            existing = index.get(username);
+            if (existing != null) return existingUser(username, existing, challenge);
+
+            long userId = userIds.incrementAndGet();
+            ByteBuffer record = encodeUser(new UserRecord(userId, username, email, challenge));
+            int size = SegmentLog.HEADER_BYTES + record.remaining();
+            long position = log.append(record);
+
+            usernamesById.put(userId, username);
+            index.put(username, new IndexEntry(userId, position, 0, 0));
+            liveBytes += size;
+            return userId;
+        }
+    }
+
+    @Override
+    public boolean insertCredential(String username, Long userId, long credentialId,
+                                    byte[] publicKeyDilithium, byte[] publicKeyRSA,
+                                    byte[] fingerprintDilithium, byte[] fingerprintRSA, int limit) {
+        synchronized (log) {
+            IndexEntry entry = index.get(username);
+            if (entry == null) throw new IllegalStateException("User not found: " + username);
+            if (entry.credentialCount() >= limit || credentials.containsKey(credentialId)) return false;
+
+            ByteBuffer record = encodeCredential(userId, credentialId, publicKeyDilithium, publicKeyRSA,
+                    fingerprintDilithium, fingerprintRSA);
+            int size = SegmentLog.HEADER_BYTES + record.remaining();
+            long position = log.append(record);
+
+            // Publish the credential before the user's entry points at it
+            credentials.put(credentialId, new CredentialEntry(userId, position));
+            index.put(username, entry.withCredential(credentialId));
+            liveBytes += size;
+            return true;
+        }
+    }
+
+    @Override
+    public boolean[] importUsers(List<ImportedUser> users) {
+        boolean[] imported = new boolean[users.size()];
+        // One monitor acquisition per batch; the appends themselves are the same as for a registration
+        synchronized (log) {
+            for (int i = 0; i < users.size(); i++) {
+                ImportedUser user = users.get(i);
+                if (index.containsKey(user.username())) continue;
+                if (user.credentials().stream().anyMatch(credential -> credentials.containsKey(credential.credentialId()))) {
+                    continue;
+                }
+
+                Long userId = insertUserIfAbsent(user.username(), user.email(), null);
+                imported[i] = true;
+                for (ImportedCredential credential : user.credentials()) {
+                    imported[i] &= insertCredential(user.username(), userId, credential.credentialId(),
+                            credential.publicKeyDilithium(), credential.publicKeyRSA(), credential.fingerprintDilithium(),
+                            credential.fingerprintRSA(), user.credentials().size());
+                }
+            }
+        }
+        return imported;
+    }
+
+    @Override
+    public void setChallenge(String username, Long userId, String challenge) {
+        if (index.containsKey(username)) challenges.put(username, challenge);
+    }
+
+    /**
+     * Stores the caller's challenge for a user that already existed, since that is the one its client signs,
+     * unless the user has a credential and so logs in with the stored challenge.
+     */
+    private Long existingUser(String username, IndexEntry existing, String challenge) {
+        if (challenge != null && existing.credentialCount() == 0) challenges.put(username, challenge);
+        return existing.userId();
+    }
+
+    // ===== Maintenance =====
+
+    /**
+     * Rewrites every live record into fresh segments and deletes the old ones. Writers are blocked for the
+     * duration; readers keep going and re-resolve positions that point into a dropped segment.
+     */
+    public void compact() {
+        synchronized (log) {
+            long start = System.nanoTime();
+            int firstNewSegment = log.roll();
+            long copiedBytes = 0;
+
+            // Users first, so a replay always sees a credential's user before the credential
+            for (Map.Entry<String, IndexEntry> entry : index.entrySet()) {
+                IndexEntry old = entry.getValue();
+                ByteBuffer user = log.read(old.userPosition());
+                copiedBytes += SegmentLog.HEADER_BYTES + user.remaining();
+                entry.setValue(old.withUserPosition(log.append(user)));
+            }
+            for (Map.Entry<Long, CredentialEntry> entry : credentials.entrySet()) {
+                CredentialEntry old = entry.getValue();
+                ByteBuffer credential = log.read(old.position());
+                copiedBytes += SegmentLog.HEADER_BYTES + credential.remaining();
+                entry.setValue(new CredentialEntry(old.userId(), log.append(credential)));
+            }
+
+            log.force();
+            log.dropSegmentsBefore(firstNewSegment);
+            liveBytes = copiedBytes;
+            logger.info("[MMAP STORE COMPACTED] - Users: {}, Segments: {}, Live: {} bytes, Time: {} ms",
+                    index.size(), log.segmentCount(), copiedBytes, (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    /**
+     * Forces all segments to disk on shutdown.
+     */
+    @PreDestroy
+    public void close() {
+        log.close();
+    }
+
+    // ===== Index =====
+
+    /**
+     * Replays one record found by the startup scan. Later copies of a record (left behind by an
+     * interrupted compaction) win over earlier ones; the earlier bytes are counted as dead.
+     */
+    private void replay(long position, ByteBuffer payload) {
+        int size = SegmentLog.HEADER_BYTES + payload.remaining();
+        byte type = payload.get(0);
+
+        if (type == USER_RECORD) {
+            UserRecord user = decodeUser(payload);
+            IndexEntry previous = index.get(user.username());
+            if (previous != null) liveBytes -= recordSize(previous.userPosition());
+            index.put(user.username(), previous == null
+                    ? new IndexEntry(user.id(), position, 0, 0)
+                    : previous.withUserPosition(position));
+            usernamesById.put(user.id(), user.username());
+            userIds.accumulateAndGet(user.id(), Math::max);
+            liveBytes += size;
+        } else if (type == CREDENTIAL_RECORD) {
+            long userId = payload.getLong(1);
+            long credentialId = payload.getLong(1 + Long.BYTES);
+            String username = usernamesById.get(userId);
+            IndexEntry entry = username == null ? null : index.get(username);
+            if (entry == null) {
+                logger.warn("[CREDENTIAL LOG] - Credential record for unknown user {} ignored", userId);
+                return;
+            }
+
+            CredentialEntry previous = credentials.put(credentialId, new CredentialEntry(userId, position));
+            if (previous != null) {
+                liveBytes -= recordSize(previous.position());
+            } else {
+                index.put(username, entry.withCredential(credentialId));
+            }
+            liveBytes += size;
+        } else {
+            logger.warn("[CREDENTIAL LOG] - Unknown record type {} ignored", type);
+        }
+    }
+
+    private long recordSize(long position) {
+        return SegmentLog.HEADER_BYTES + log.read(position).remaining();
+    }
+
+    /**
+     * Resolves a username and applies the reader to its index entry. A reader returns null when a record
+     * position has gone stale because compaction dropped its segment; the entry is then looked up again, a
+     * few times without locking and finally under the log's monitor, where no compaction can run.
+     */
+    private <T> Optional<T> lookup(String username, Function<IndexEntry, T> reader) {
+        if (username == null) return Optional.empty();
+
+        for (int attempt = 0; attempt < STALE_READ_RETRIES; attempt++) {
+            IndexEntry entry = index.get(username);
+            if (entry == null) return Optional.empty();
+
+            T result = reader.apply(entry);
+            if (result != null) return Optional.of(result);
+        }
+
+        synchronized (log) {
+            IndexEntry entry = index.get(username);
+            if (entry == null) return Optional.empty();
+
+            T result = reader.apply(entry);
+            if (result == null) throw new IllegalStateException("Credential log index is inconsistent for user: " + username);
+            return Optional.of(result);
+        }
+    }
+
+    /**
+     * @param userId              The user's ID.
+     * @param userPosition        Log position of the user record.
+     * @param credentialCount     Number of credentials the user has.
+     * @param primaryCredentialId Lowest credential ID of the user; meaningless while the count is 0.
+     */
+    private record IndexEntry(long userId, long userPosition, int credentialCount, long primaryCredentialId) {
+        IndexEntry withUserPosition(long position) {
+            return new IndexEntry(userId, position, credentialCount, primaryCredentialId);
+        }
+
+        IndexEntry withCredential(long credentialId) {
+            return new IndexEntry(userId, userPosition, credentialCount + 1,
+                    credentialCount == 0 ? credentialId : Math.min(primaryCredentialId, credentialId));
+        }
+    }
+
+    /**
+     * @param userId   ID of the user the credential belongs to.
+     * @param position Log position of the credential record.
+     */
+    private record CredentialEntry(long userId, long position) {}
+
+    // ===== Record encoding =====
+
+    private record UserRecord(long id, String username, String email, String challenge) {}
+
+    private record CredentialRecord(byte[] publicKeyDilithium, byte[] publicKeyRSA) {}
+
+    private UserRecord readUser(long position) {
+        ByteBuffer payload = log.read(position);
+        return payload == null ? null : decodeUser(payload);
+    }
+
+    /**
+     * @return The credential, or null if its entry is gone or its segment has been dropped.
+     */
+    private CredentialRecord readCredential(CredentialEntry entry) {
+        ByteBuffer payload = entry == null ? null : log.read(entry.position());
+        if (payload == null) return null;
+
+        payload.position(1 + 2 * Long.BYTES);
+        return new CredentialRecord(readBytes(payload), readBytes(payload));
+    }
+
+    /**
+     * @return The credential's fingerprints, or null if its segment has been dropped.
+     */
+    private CredentialFingerprint readFingerprint(long credentialId, CredentialEntry entry) {
+        ByteBuffer payload = log.read(entry.position());
+        if (payload == null) return null;
+
+        // Skip both keys to reach the fingerprints
+        payload.position(1 + 2 * Long.BYTES);
+        skipBytes(payload);
+        skipBytes(payload);
+        byte[] fingerprintDilithium = readBytes(payload);
+        return new CredentialFingerprint(credentialId, readBytes(payload), fingerprintDilithium);
+    }
+
+    private static ByteBuffer encodeUser(UserRecord user) {
+        byte[] username = bytes(user.username());
+        byte[] email = bytes(user.email());
+        byte[] challenge = bytes(user.challenge());
+
+        ByteBuffer buffer = ByteBuffer.allocate(1 + Long.BYTES + 3 * Integer.BYTES
+                + length(username) + length(email) + length(challenge));
+        buffer.put(USER_RECORD).putLong(user.id());
+        writeBytes(buffer, username);
+        writeBytes(buffer, email);
+        writeBytes(buffer, challenge);
+        return buffer.flip();
+    }
+
+    private static UserRecord decodeUser(ByteBuffer payload) {
+        payload.position(1);
+        long id = payload.getLong();
+        return new UserRecord(id, string(readBytes(payload)), string(readBytes(payload)), string(readBytes(payload)));
+    }
+
+    private static ByteBuffer encodeCredential(long userId, long credentialId, byte[] publicKeyDilithium, byte[] publicKeyRSA,
+                                               byte[] fingerprintDilithium, byte[] fingerprintRSA) {
+        ByteBuffer buffer = ByteBuffer.allocate(1 + 2 * Long.BYTES + 4 * Integer.BYTES
+                + publicKeyDilithium.length + publicKeyRSA.length + fingerprintDilithium.length + fingerprintRSA.length);
+        buffer.put(CREDENTIAL_RECORD).putLong(userId).putLong(credentialId);
+        writeBytes(buffer, publicKeyDilithium);
+        writeBytes(buffer, publicKeyRSA);
+        writeBytes(buffer, fingerprintDilithium);
+        writeBytes(buffer, fingerprintRSA);
+        return buffer.flip();
+    }
+
+    /**
+     * Writes a length-prefixed byte array; null is encoded as length -1.
+     */
+    private static void writeBytes(ByteBuffer buffer, byte[] value) {
+        buffer.putInt(value == null ? -1 : value.length);
+        if (value != null) buffer.put(value);
+    }
+
+    private static byte[] readBytes(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) return null;
+
+        byte[] value = new byte[length];
+        buffer.get(value);
+        return value;
+    }
+
+    private static void skipBytes(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length > 0) buffer.position(buffer.position() + length);
+    }
+
+    private static int length(byte[] value) {
+        return value == null ? 0 : value.length;
+    }
+
+    private static byte[] bytes(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(byte[] value) {
+        return value == null ? null : new String(value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,60 @@
+package com.auth.pqcserver.store;
+
+import com.auth.pqcserver.config.ReplicaRoutingDataSource;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Gives a user read-your-writes consistency when reads may be served by replicas.
+ * <p>
+ * Every write for a username opens a sticky window of {@code replicas.sticky-window-ms}; reads for that
+ * username inside the window are pinned to the primary. Since replicas lagging more than
+ * {@code replicas.max-lag-ms} are out of rotation and the window also covers the challenge write-behind
+ * delay, any replica still serving reads has applied the write once the window closes. Windows are tracked per node, so the
+ * guarantee holds for requests that land on the node that did the write. Does nothing when replicas are
+ * disabled.
+ */
+@Component
+public class ReadYourWritesTracker {
+
+    private final boolean enabled;
+    private final Cache<String, Boolean> recentWrites;
+
+    public ReadYourWritesTracker(@Value("${replicas.enabled:false}") boolean enabled,
+                                 @Value("${replicas.sticky-window-ms:5000}") long stickyWindowMs) {
+        this.enabled = enabled;
+        this.recentWrites = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(stickyWindowMs))
+                .maximumSize(1_000_000)
+                .build();
+    }
+
+    /**
+     * Opens (or extends) the sticky window for a username. Call before writing.
+     *
+     * @param username The username being written.
+     */
+    public void recordWrite(String username) {
+        if (enabled && username != null) recentWrites.put(username, Boolean.TRUE);
+    }
+
+    /**
+     * Runs a read for a username on the primary if it was written recently, otherwise wherever the
+     * transaction's read-only flag routes it.
+     *
+     * @param username The username being read.
+     * @param read     The read to run.
+     * @return The read's result.
+     */
+    public <T> T read(String username, Supplier<T> read) {
+        if (enabled && username != null && recentWrites.getIfPresent(username) != null) {
+            return ReplicaRoutingDataSource.onPrimary(read);
+        }
+        return read.get();
+    }
+}
@@ -0,0 +1,291 @@
+package com.auth.pqcserver.store;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log of opaque records spread over fixed-size, memory-mapped segment files.
+ * <p>
+ * Each record is laid out as {@code [int payloadLength][int crc32c(payload)][payload]}. Segment files are
+ * pre-sized and zero-filled, so a zero length marks the end of the written part of a segment. A record is
+ * addressed by a 64-bit position: the segment number in the high 32 bits and the byte offset in the low 32.
+ * New segments get the configured size; existing segment files longer than that, written before the size
+ * was lowered, are mapped at their own length and never truncated.
+ * <p>
+ * Appends, rolls and scans synchronise on this object; reads are lock-free and only use
+ * absolute accessors on the shared mappings, so any number of threads may read while one appends.
+ * Checksums are verified once, by {@link #scan}, when the log is opened.
+ */
+final class SegmentLog implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SegmentLog.class);
+
+    static final int HEADER_BYTES = 8;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    /**
+     * Receives every valid record found while scanning.
+     */
+    @FunctionalInterface
+    interface RecordVisitor {
+        void accept(long position, ByteBuffer payload);
+    }
+
+    private final Path directory;
+    private final int segmentSize;
+    private final boolean syncOnWrite;
+
+    private final ConcurrentSkipListMap<Integer, MappedByteBuffer> segments = new ConcurrentSkipListMap<>();
+    private int writeSegment;
+    private int writeOffset;
+
+    /**
+     * @param directory   Directory holding the segment files; created if missing.
+     * @param segmentSize Size of each new segment file in bytes.
+     * @param syncOnWrite Whether to force every append to disk before returning.
+     */
+    SegmentLog(Path directory, int segmentSize, boolean syncOnWrite) {
+        if (segmentSize <= HEADER_BYTES) {
+            throw new IllegalArgumentException("Segment size too small: " + segmentSize);
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.syncOnWrite = syncOnWrite;
+
+        try {
+            Files.createDirectories(directory);
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : files.filter(SegmentLog::isSegmentFile).toList()) {
+                    int number = segmentNumber(file);
+                    segments.put(number, map(file));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open credential log in " + directory, e);
+        }
+    }
+
+    /**
+     * Reads every segment sequentially, passing each valid record to the visitor, and positions the
+     * writer after the last valid record. A bad record in the newest segment is treated as a torn write:
+     * the rest of that segment is zeroed and later appends overwrite it. A bad record in an older segment
+     * skips the remainder of that segment only.
+     *
+     * @param visitor Receives each record's position and a read-only view of its payload.
+     * @return The number of bytes occupied by valid records, headers included.
+     */
+    synchronized long scan(RecordVisitor visitor) {
+        long bytes = 0;
+        writeSegment = 0;
+        writeOffset = 0;
+        int newest = segments.isEmpty() ? 0 : segments.lastKey();
+
+        for (Map.Entry<Integer, MappedByteBuffer> segment : segments.entrySet()) {
+            MappedByteBuffer buffer = segment.getValue();
+            int size = buffer.capacity();
+            int offset = 0;
+
+            while (offset + HEADER_BYTES <= size) {
+                int length = buffer.getInt(offset);
+                if (length == 0) break;
+
+                if (length < 0 || length > size - offset - HEADER_BYTES
+                        || checksum(buffer, offset + HEADER_BYTES, length) != buffer.getInt(offset + 4)) {
+                    logger.warn("[CREDENTIAL LOG] - Corrupt record in segment {} at offset {}, discarding rest of segment",
+                            segment.getKey(), offset);
+                    if (segment.getKey() == newest) zero(buffer, offset);
+                    break;
+                }
+
+                visitor.accept(position(segment.getKey(), offset), buffer.slice(offset + HEADER_BYTES, length).asReadOnlyBuffer());
+                offset += HEADER_BYTES + length;
+                bytes += HEADER_BYTES + length;
+            }
+
+            writeSegment = segment.getKey();
+            writeOffset = offset;
+        }
+        return bytes;
+    }
+
+    /**
+     * Appends one record, starting a new segment if it does not fit in the current one.
+     *
+     * @param payload The record payload, read from its position to its limit.
+     * @return The position of the new record.
+     */
+    synchronized long append(ByteBuffer payload) {
+        int length = payload.remaining();
+        if (length == 0 || length > segmentSize - HEADER_BYTES) {
+            throw new IllegalArgumentException("Record size out of range: " + length);
+        }
+        if (segments.isEmpty() || writeOffset + HEADER_BYTES + length > segments.get(writeSegment).capacity()) {
+            roll();
+        }
+
+        MappedByteBuffer buffer = segments.get(writeSegment);
+        int offset = writeOffset;
+        buffer.put(offset + HEADER_BYTES, payload, payload.position(), length);
+        buffer.putInt(offset + 4, checksum(buffer, offset + HEADER_BYTES, length));
+        // Length goes last: a zero length still reads as end-of-segment until the record is complete
+        buffer.putInt(offset, length);
+        if (syncOnWrite) buffer.force(offset, HEADER_BYTES + length);
+
+        writeOffset = offset + HEADER_BYTES + length;
+        return position(writeSegment, offset);
+    }
+
+    /**
+     * @param position A position returned by {@link #append} or passed to a {@link RecordVisitor}.
+     * @return A read-only view of the record's payload, or null if its segment has been dropped.
+     */
+    ByteBuffer read(long position) {
+        MappedByteBuffer buffer = segments.get(segmentOf(position));
+        if (buffer == null) return null;
+
+        int offset = offsetOf(position);
+        return buffer.slice(offset + HEADER_BYTES, buffer.getInt(offset)).asReadOnlyBuffer();
+    }
+
+    /**
+     * Closes the current segment and starts a fresh one, so that every record appended afterwards lives
+     * in a segment numbered at or above the returned value.
+     *
+     * @return The number of the new segment.
+     */
+    synchronized int roll() {
+        int next = segments.isEmpty() ? 1 : writeSegment + 1;
+        try {
+            segments.put(next, map(directory.resolve(segmentFileName(next))));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create credential log segment " + next, e);
+        }
+        writeSegment = next;
+        writeOffset = 0;
+        return next;
+    }
+
+    /**
+     * Forgets and deletes every segment numbered below {@code firstKept}. Readers holding a position in a
+     * dropped segment get null from {@link #read} and must look the record up again.
+     *
+     * @param firstKept The lowest segment number to keep.
+     */
+    synchronized void dropSegmentsBefore(int firstKept) {
+        List<Integer> dropped = segments.keySet().stream().filter(number -> number < firstKept).toList();
+        for (Integer number : dropped) {
+            segments.remove(number);
+            Path file = directory.resolve(segmentFileName(number));
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                // Mapped files cannot be deleted on some platforms; duplicates are ignored on the next scan
+                logger.warn("[CREDENTIAL LOG] - Could not delete {}, will retry on exit", file);
+                file.toFile().deleteOnExit();
+            }
+        }
+    }
+
+    /**
+     * Forces every segment to disk.
+     */
+    synchronized void force() {
+        segments.values().forEach(MappedByteBuffer::force);
+    }
+
+    /**
+     * @return The number of segment files currently in use.
+     */
+    int segmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * @return The number of bytes reserved on disk by the segment files.
+     */
+    long allocatedBytes() {
+        return segments.values().stream().mapToLong(MappedByteBuffer::capacity).sum();
+    }
+
+    @Override
+    public void close() {
+        force();
+    }
+
+    // ===== Helpers =====
+
+    private MappedByteBuffer map(Path file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            // Only new or short files are sized: a longer one holds records past the configured size
+            long length = raf.length();
+            if (length > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Credential log segment " + file + " is larger than 2 GiB");
+            }
+            if (length < segmentSize) {
+                raf.setLength(segmentSize);
+                length = segmentSize;
+            } else if (length > segmentSize) {
+                logger.info("[CREDENTIAL LOG] - Segment {} is {} bytes, larger than the configured {}; keeping its size",
+                        file.getFileName(), length, segmentSize);
+            }
+            // The mapping stays valid after the channel is closed
+            return raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, length);
+        }
+    }
+
+    private static void zero(MappedByteBuffer buffer, int from) {
+        byte[] zeros = new byte[8192];
+        int size = buffer.capacity();
+        for (int offset = from; offset < size; offset += zeros.length) {
+            buffer.put(offset, zeros, 0, Math.min(zeros.length, size - offset));
+        }
+        buffer.force();
+    }
+
+    private static int checksum(ByteBuffer buffer, int offset, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(offset, length));
+        return (int) crc.getValue();
+    }
+
+    static long position(int segment, int offset) {
+        return ((long) segment << 32) | (offset & 0xFFFFFFFFL);
+    }
+
+    static int segmentOf(long position) {
+        return (int) (position >>> 32);
+    }
+
+    static int offsetOf(long position) {
+        return (int) position;
+    }
+
+    private static boolean isSegmentFile(Path file) {
+        String name = file.getFileName().toString();
+        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+    }
+
+    private static int segmentNumber(Path file) {
+        String name = file.getFileName().toString();
+        return Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static String segmentFileName(int number) {
+        return String.format("%s%08d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX);
+    }
+}
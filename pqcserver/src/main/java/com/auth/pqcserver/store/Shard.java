@@ -0,0 +1,31 @@
+package com.auth.pqcserver.store;
+
+import com.auth.pqcserver.service.ChallengeWriteBehind;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * One database of the sharded credential store with its own connection pool and challenge queue.
+ *
+ * @param name                The shard's name from {@code sharding.shards}.
+ * @param dataSource          Connection pool for the shard.
+ * @param jdbcTemplate        JDBC access bound to the pool.
+ * @param transactionTemplate Transactions on the shard's own transaction manager.
+ * @param challenges          Write-behind queue for login challenges of users on this shard.
+ */
+record Shard(String name,
+             HikariDataSource dataSource,
+             JdbcTemplate jdbcTemplate,
+             TransactionTemplate transactionTemplate,
+             ChallengeWriteBehind challenges) implements AutoCloseable {
+
+    /**
+     * Flushes pending challenges and closes the pool.
+     */
+    @Override
+    public void close() {
+        challenges.shutdown();
+        dataSource.close();
+    }
+}
@@ -0,0 +1,163 @@
+package com.auth.pqcserver.store;
+
+import com.auth.pqcserver.config.ShardingProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moves users whose owner changed after a ring change to their new shard, one user at a time.
+ * <p>
+ * Each user is copied into the new owner (user row and credentials in one transaction, keeping all IDs)
+ * while its row on the old shard is locked, and only then deleted from the old shard, so with {@code sharding.previous-ring} set the user is always
+ * readable from one of the two. Copies are insert-if-absent, so an interrupted run can simply be restarted.
+ * <p>
+ * Resharding procedure:
+ * <ol>
+ *     <li>Define the new shard under {@code sharding.shards}, set {@code sharding.previous-ring} to the
+ *     current ring, add the shard to {@code sharding.ring} and set {@code sharding.rebalance-on-startup=true}.</li>
+ *     <li>Roll the new configuration out to every node; the first node to start moves the rows.</li>
+ *     <li>Once "[SHARD REBALANCE FINISHED]" is logged, clear {@code sharding.previous-ring} and roll out again.</li>
+ * </ol>
+ */
+@Component
+@ConditionalOnProperty(name = "credential-store.type", havingValue = "sharded")
+public class ShardRebalancer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardRebalancer.class);
+
+    private final ShardedCredentialStore store;
+    private final boolean rebalanceOnStartup;
+    private final int batchSize;
+
+    public ShardRebalancer(ShardedCredentialStore store, ShardingProperties properties) {
+        this.store = store;
+        this.rebalanceOnStartup = properties.isRebalanceOnStartup();
+        this.batchSize = properties.getRebalanceBatchSize();
+    }
+
+    /**
+     * Starts a background rebalance once the application is ready, if configured.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!rebalanceOnStartup) return;
+
+        Thread thread = new Thread(() -> {
+            try {
+                rebalance();
+            } catch (RuntimeException e) {
+                logger.error("[SHARD REBALANCE FAILED] - Restart the node to resume", e);
+            }
+        }, "shard-rebalancer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Scans every shard and moves each user that the current ring assigns elsewhere.
+     *
+     * @return The number of users moved.
+     */
+    public long rebalance() {
+        long start = System.nanoTime();
+        long moved = 0;
+
+        for (Shard source : store.shards()) {
+            long shardMoved = 0;
+            long lastId = Long.MIN_VALUE;
+
+            while (true) {
+                List<Map<String, Object>> users = source.jdbcTemplate().queryForList(
+                        "select id, username from users where id > ? order by id limit ?", lastId, batchSize);
+                if (users.isEmpty()) break;
+
+                // Queued challenges must reach the source rows before those rows are copied
+                source.challenges().flush();
+
+                for (Map<String, Object> user : users) {
+                    long userId = ((Number) user.get("ID")).longValue();
+                    Shard target = store.owner((String) user.get("USERNAME"));
+                    if (target != source && move(source, target, userId)) shardMoved++;
+                    lastId = userId;
+                }
+            }
+
+            if (shardMoved > 0) logger.info("[SHARD REBALANCE] - Moved {} users off {}", shardMoved, source.name());
+            moved += shardMoved;
+        }
+
+        logger.info("[SHARD REBALANCE FINISHED] - Moved: {}, Time: {} ms", moved, (System.nanoTime() - start) / 1_000_000);
+        return moved;
+    }
+
+    /**
+     * Moves one user inside a source transaction that holds the user row's lock from the first read to the
+     * delete, so writes routed to the source meanwhile wait for the move instead of landing on rows that are
+     * about to go. Once the copy commits, {@code holder()} finds the user on the target and new writes go
+     * there; the source's pending challenge is then handed to the target's queue unless a newer one is
+     * already there. Only the credentials that were copied are deleted, and the user row only once none are
+     * left, so a credential that still reached the source is copied by another pass instead of being lost.
+     */
+    private boolean move(Shard source, Shard target, long userId) {
+        Boolean moved = source.transactionTemplate().execute(status -> {
+            Map<String, Object> user = source.jdbcTemplate()
+                    .queryForList("select id, username, challenge, email from users where id = ? for update", userId)
+                    .stream().findFirst().orElse(null);
+            if (user == null) return false; // Already moved by another node
+
+            String username = (String) user.get("USERNAME");
+            List<Map<String, Object>> credentials = source.jdbcTemplate().queryForList(
+                    "select id, public_key_dilithium, public_key_rsa, fingerprint_dilithium, fingerprint_rsa "
+                            + "from credential where user_id = ?", userId);
+
+            Boolean copied = target.transactionTemplate().execute(targetStatus -> {
+                Long existingId = target.jdbcTemplate()
+                        .queryForList("select id from users where username = ?", Long.class, username)
+                        .stream().findFirst().orElse(null);
+                if (existingId != null && existingId != userId) return false;
+
+                if (existingId == null) {
+                    target.jdbcTemplate().update(ShardedCredentialStore.INSERT_USER_SQL,
+                            userId, username, user.get("CHALLENGE"), user.get("EMAIL"));
+                }
+                for (Map<String, Object> credential : credentials) {
+                    target.jdbcTemplate().update(ShardedCredentialStore.COPY_CREDENTIAL_SQL, credential.get("ID"), userId,
+                            credential.get("PUBLIC_KEY_DILITHIUM"), credential.get("PUBLIC_KEY_RSA"),
+                            credential.get("FINGERPRINT_DILITHIUM"), credential.get("FINGERPRINT_RSA"), credential.get("ID"));
+                }
+                return true;
+            });
+
+            if (!Boolean.TRUE.equals(copied)) {
+                logger.warn("[SHARD REBALANCE] - {} already exists on {} with another ID, left on {}",
+                        username, target.name(), source.name());
+                return false;
+            }
+
+            source.challenges().take(username)
+                    .ifPresent(challenge -> target.challenges().putIfAbsent(username, userId, challenge));
+
+            for (Map<String, Object> credential : credentials) {
+                source.jdbcTemplate().update("delete from credential where id = ?", credential.get("ID"));
+            }
+            int deleted = source.jdbcTemplate().update(
+                    "delete from users where id = ? and not exists (select 1 from credential where user_id = ?)",
+                    userId, userId);
+            if (deleted == 0) {
+                logger.info("[SHARD REBALANCE] - {} got a credential on {} while moving, copying again",
+                        username, source.name());
+            }
+            return deleted == 1 ? Boolean.TRUE : null;
+        });
+
+        // null: the user row stayed behind with a credential that was not copied yet
+        return moved == null ? move(source, target, userId) : moved;
+    }
+}
@@ -0,0 +1,409 @@
+package com.auth.pqcserver.store;
+
+import com.auth.pqcserver.config.ShardingProperties;
+import com.auth.pqcserver.repository.projection.CredentialFingerprint;
+import com.auth.pqcserver.repository.projection.CredentialSnapshot;
+import com.auth.pqcserver.repository.projection.LoginCredentialView;
+import com.auth.pqcserver.repository.projection.RegistrationView;
+import com.auth.pqcserver.service.ChallengeWriteBehind;
+import com.auth.pqcserver.store.ImportedUser.ImportedCredential;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PreDestroy;
+import org.flywaydb.core.Flyway;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * {@link CredentialStore} that spreads users over several databases by a consistent hash of the username.
+ * <p>
+ * Each shard has its own Hikari pool, Flyway-managed schema and challenge write-behind queue. All rows of a
+ * user (the user row and its credential) live on the shard that owns the username, so every operation is a
+ * single-shard query. User IDs come from a per-shard sequence that only hands out IDs congruent to the
+ * shard's ID modulo {@value #ID_STRIDE}, which keeps them globally unique without coordination and lets
+ * rows keep their ID when they move. Credential IDs are random, so they need no such scheme; a login by
+ * credential ID is a primary-key lookup on the username's shard.
+ * <p>
+ * During a reshard {@code sharding.previous-ring} holds the old ring. Lookups go to the new owner first and
+ * fall back to the old owner, and inserts check both, so users stay visible while {@link ShardRebalancer}
+ * copies their rows across and then deletes the originals. Selected with {@code credential-store.type=sharded}.
+ */
+@Component
+@ConditionalOnProperty(name = "credential-store.type", havingValue = "sharded")
+@EnableConfigurationProperties(ShardingProperties.class)
+public class ShardedCredentialStore implements CredentialStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardedCredentialStore.class);
+
+    static final int ID_STRIDE = 1024;
+
+    private static final String PRIMARY_CREDENTIAL = "(select min(p.id) from credential p where p.user_id = u.id)";
+    private static final String SNAPSHOT_SQL = "select u.id, u.username, u.email, c.id, c.public_key_rsa, c.public_key_dilithium "
+            + "from users u left join credential c on c.user_id = u.id and c.id = " + PRIMARY_CREDENTIAL
+            + " where u.username = ?";
+    private static final String LOGIN_VIEW_SQL = "select u.id, u.challenge, c.public_key_rsa, c.public_key_dilithium "
+            + "from credential c join users u on u.id = c.user_id where c.id = ? and u.username = ?";
+    private static final String PRIMARY_LOGIN_VIEW_SQL = "select u.id, u.challenge, c.public_key_rsa, c.public_key_dilithium "
+            + "from credential c join users u on u.id = c.user_id where u.username = ? and c.id = " + PRIMARY_CREDENTIAL;
+    private static final String REGISTRATION_VIEW_SQL = "select u.id, u.challenge, "
+            + "(select count(*) from credential c where c.user_id = u.id) from users u where u.username = ?";
+    private static final String FINGERPRINTS_SQL = "select c.id, c.fingerprint_rsa, c.fingerprint_dilithium "
+            + "from credential c join users u on u.id = c.user_id where u.username = ? order by c.id";
+    private static final String CHALLENGE_SQL = "select challenge from users where username = ?";
+    private static final String NEXT_USER_ID_SQL = "select next value for user_id_seq";
+    static final String INSERT_USER_SQL = "insert into users (id, username, challenge, email) values (?, ?, ?, ?)";
+    private static final String IMPORT_USER_SQL = "insert into users (id, username, email) "
+            + "values (next value for user_id_seq, ?, ?)";
+    private static final String LOCK_USER_SQL = "select id from users where id = ? for update";
+    private static final String INSERT_CREDENTIAL_SQL = "insert into credential "
+            + "(id, user_id, public_key_dilithium, public_key_rsa, fingerprint_dilithium, fingerprint_rsa) "
+            + "select ?, ?, ?, ?, ?, ? where (select count(*) from credential where user_id = ?) < ?";
+    static final String COPY_CREDENTIAL_SQL = "insert into credential "
+            + "(id, user_id, public_key_dilithium, public_key_rsa, fingerprint_dilithium, fingerprint_rsa) "
+            + "select ?, ?, ?, ?, ?, ? where not exists (select 1 from credential where id = ?)";
+
+    private final Map<String, Shard> shards = new LinkedHashMap<>();
+    private final ConsistentHashRing ring;
+    private final ConsistentHashRing previousRing;
+
+    public ShardedCredentialStore(ShardingProperties properties,
+                                  @Value("${challenge-write-behind.enabled}") boolean writeBehindEnabled,
+                                  @Value("${challenge-write-behind.batch-size}") int writeBehindBatchSize,
+                                  @Value("${challenge-write-behind.flush-interval-ms}") long writeBehindFlushIntervalMs,
+                                  @Value("${challenge-write-behind.max-pending}") int writeBehindMaxPending) {
+        validate(properties);
+
+        properties.getShards().forEach((name, config) -> {
+            HikariConfig pool = new HikariConfig();
+            pool.setPoolName("shard-" + name);
+            pool.setJdbcUrl(config.getUrl());
+            pool.setUsername(config.getUsername());
+            pool.setPassword(config.getPassword());
+            pool.setMaximumPoolSize(config.getMaximumPoolSize());
+            HikariDataSource dataSource = new HikariDataSource(pool);
+
+            Flyway.configure()
+                    .dataSource(dataSource)
+                    .locations("classpath:db/migration", "classpath:db/shard")
+                    .placeholders(Map.of("shardId", String.valueOf(config.getId()), "idStride", String.valueOf(ID_STRIDE)))
+                    .load()
+                    .migrate();
+
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+            DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+            shards.put(name, new Shard(name, dataSource, jdbcTemplate, new TransactionTemplate(transactionManager),
+                    new ChallengeWriteBehind(jdbcTemplate, transactionManager,
+                            writeBehindEnabled, writeBehindBatchSize, writeBehindFlushIntervalMs, writeBehindMaxPending)));
+        });
+
+        this.ring = new ConsistentHashRing(properties.getRing(), properties.getVirtualNodes());
+        this.previousRing = properties.getPreviousRing().isEmpty()
+                ? null
+                : new ConsistentHashRing(properties.getPreviousRing(), properties.getVirtualNodes());
+
+        logger.info("[SHARDED STORE OPENED] - Shards: {}, Ring: {}, Previous ring: {}",
+                shards.keySet(), properties.getRing(), properties.getPreviousRing());
+    }
+
+    // ===== Lookups =====
+
+    @Override
+    public Optional<CredentialSnapshot> findSnapshot(String username) {
+        return read(username, (shard, name) -> shard.jdbcTemplate().query(SNAPSHOT_SQL, (resultSet, row) ->
+                new CredentialSnapshot(resultSet.getLong(1), resultSet.getString(2), resultSet.getString(3),
+                        resultSet.getObject(4, Long.class), resultSet.getBytes(5), resultSet.getBytes(6)),
+                name).stream().findFirst());
+    }
+
+    @Override
+    public Optional<LoginCredentialView> findLoginView(String username, Long credentialId) {
+        // Read the queue first: a challenge flushed in between is then already in the joined row
+        Optional<String> pendingChallenge = pendingChallenge(username);
+        RowMapper<LoginCredentialView> mapper = (resultSet, row) -> new LoginCredentialView(resultSet.getLong(1),
+                pendingChallenge.orElse(resultSet.getString(2)), resultSet.getBytes(3), resultSet.getBytes(4));
+
+        return read(username, (shard, name) -> (credentialId == null
+                ? shard.jdbcTemplate().query(PRIMARY_LOGIN_VIEW_SQL, mapper, name)
+                : shard.jdbcTemplate().query(LOGIN_VIEW_SQL, mapper, credentialId, name)).stream().findFirst());
+    }
+
+    @Override
+    public Optional<RegistrationView> findRegistrationView(String username) {
+        Optional<String> pendingChallenge = pendingChallenge(username);
+
+        return read(username, (shard, name) -> shard.jdbcTemplate().query(REGISTRATION_VIEW_SQL, (resultSet, row) ->
+                new RegistrationView(resultSet.getLong(1), pendingChallenge.orElse(resultSet.getString(2)),
+                        resultSet.getLong(3)), name).stream().findFirst());
+    }
+
+    @Override
+    public List<CredentialFingerprint> findFingerprints(String username) {
+        return read(username, (shard, name) -> Optional.of(shard.jdbcTemplate().query(FINGERPRINTS_SQL, (resultSet, row) ->
+                new CredentialFingerprint(resultSet.getLong(1), resultSet.getBytes(2), resultSet.getBytes(3)), name))
+                .filter(fingerprints -> !fingerprints.isEmpty()))
+                .orElse(List.of());
+    }
+
+    @Override
+    public Optional<String> getChallenge(String username) {
+        return pendingChallenge(username).or(() -> read(username, (shard, name) ->
+                shard.jdbcTemplate().queryForList(CHALLENGE_SQL, String.class, name).stream().findFirst()));
+    }
+
+    @Override
+    public void forEachUsername(Consumer<String> consumer) {
+        for (Shard shard : shards.values()) {
+            shard.jdbcTemplate().query("select username from users", resultSet -> {
+                consumer.accept(resultSet.getString(1));
+            });
+        }
+    }
+
+    /**
+     * Opens a cursor on every shard, each in its own transaction, and merges them by username. A user that
+     * is being moved by the rebalancer can be on two shards at once; only the first copy is exported.
+     */
+    @Override
+    public void forEachExportedUser(String afterUsername, int fetchSize, Consumer<ExportedUser> consumer) {
+        exportMerged(List.copyOf(shards.values()), new ArrayList<>(), afterUsername, fetchSize, consumer);
+    }
+
+    // ===== Writes =====
+
+    @Override
+    public Long insertUserIfAbsent(String username, String email, String challenge) {
+        Shard previous = previousOwner(username);
+        if (previous != null) {
+            // Mid-reshard the user may not have been moved yet; never create a second copy on the new owner
+            Optional<CredentialSnapshot> existing = findSnapshot(username);
+            if (existing.isPresent()) return existingUser(username, existing.get(), challenge);
+        }
+
+        Shard owner = owner(username);
+        try {
+            Long userId = owner.jdbcTemplate().queryForObject(NEXT_USER_ID_SQL, Long.class);
+            owner.jdbcTemplate().update(INSERT_USER_SQL, userId, username, challenge, email);
+            return userId;
+        } catch (DuplicateKeyException e) {
+            // Lost a race on the unique username index; the other insert won
+            return existingUser(username, findSnapshot(username).orElseThrow(() -> e), challenge);
+        }
+    }
+
+    @Override
+    public boolean insertCredential(String username, Long userId, long credentialId,
+                                    byte[] publicKeyDilithium, byte[] publicKeyRSA,
+                                    byte[] fingerprintDilithium, byte[] fingerprintRSA, int limit) {
+        Shard holder = holder(username);
+        // Concurrent inserts for the same user queue on the user row, so each one counts the others
+        return Boolean.TRUE.equals(holder.transactionTemplate().execute(status ->
+                !holder.jdbcTemplate().queryForList(LOCK_USER_SQL, Long.class, userId).isEmpty()
+                        && holder.jdbcTemplate().update(INSERT_CREDENTIAL_SQL, credentialId, userId, publicKeyDilithium,
+                        publicKeyRSA, fingerprintDilithium, fingerprintRSA, userId, limit) == 1));
+    }
+
+    @Override
+    public boolean[] importUsers(List<ImportedUser> users) {
+        boolean[] imported = new boolean[users.size()];
+        Map<Shard, List<Integer>> rowsByOwner = new LinkedHashMap<>();
+        for (int i = 0; i < users.size(); i++) {
+            String username = users.get(i).username();
+            if (previousOwner(username) == null) {
+                rowsByOwner.computeIfAbsent(owner(username), shard -> new ArrayList<>()).add(i);
+            } else {
+                // Mid-reshard the user may still live on the old owner; take the checked single-row path
+                imported[i] = importUser(users.get(i));
+            }
+        }
+
+        // One batch, and so one transaction, per shard
+        rowsByOwner.forEach((shard, rows) -> {
+            boolean[] shardImported = JdbcUserImporter.importUsers(shard.jdbcTemplate(), shard.transactionTemplate(),
+                    IMPORT_USER_SQL, rows.stream().map(users::get).toList());
+            for (int i = 0; i < rows.size(); i++) {
+                imported[rows.get(i)] = shardImported[i];
+            }
+        });
+        return imported;
+    }
+
+    @Override
+    public void setChallenge(String username, Long userId, String challenge) {
+        holder(username).challenges().put(username, userId, challenge);
+    }
+
+    /**
+     * Flushes pending challenges and closes every shard's pool.
+     */
+    @PreDestroy
+    public void close() {
+        shards.values().forEach(Shard::close);
+    }
+
+    /**
+     * Stores the caller's challenge for a user that already existed, since that is the one its client signs,
+     * unless the user has a credential and so logs in with the stored challenge.
+     */
+    private Long existingUser(String username, CredentialSnapshot existing, String challenge) {
+        if (challenge != null && !existing.hasCredential()) setChallenge(username, existing.userId(), challenge);
+        return existing.userId();
+    }
+
+    private boolean importUser(ImportedUser user) {
+        if (findSnapshot(user.username()).isPresent()) return false;
+
+        Long userId = insertUserIfAbsent(user.username(), user.email(), null);
+        boolean imported = true;
+        for (ImportedCredential credential : user.credentials()) {
+            imported &= insertCredential(user.username(), userId, credential.credentialId(),
+                    credential.publicKeyDilithium(), credential.publicKeyRSA(), credential.fingerprintDilithium(),
+                    credential.fingerprintRSA(), user.credentials().size());
+        }
+        return imported;
+    }
+
+    /**
+     * Opens the cursor of the next shard inside its transaction and recurses, so every cursor stays open
+     * while the merge runs in the innermost call.
+     */
+    private void exportMerged(List<Shard> remaining, List<Iterator<ExportedUser>> cursors,
+                              String afterUsername, int fetchSize, Consumer<ExportedUser> consumer) {
+        if (remaining.isEmpty()) {
+            merge(cursors, consumer);
+            return;
+        }
+
+        Shard shard = remaining.get(0);
+        shard.transactionTemplate().executeWithoutResult(status -> {
+            try (Stream<ExportedUser> users =
+                         JdbcUserExporter.streamUsers(shard.jdbcTemplate(), afterUsername, fetchSize)) {
+                cursors.add(users.iterator());
+                exportMerged(remaining.subList(1, remaining.size()), cursors, afterUsername, fetchSize, consumer);
+            }
+        });
+    }
+
+    private static void merge(List<Iterator<ExportedUser>> cursors, Consumer<ExportedUser> consumer) {
+        record Head(ExportedUser user, Iterator<ExportedUser> cursor) {}
+
+        PriorityQueue<Head> heads = new PriorityQueue<>(Comparator.comparing((Head head) -> head.user().username()));
+        for (Iterator<ExportedUser> cursor : cursors) {
+            if (cursor.hasNext()) heads.add(new Head(cursor.next(), cursor));
+        }
+
+        String previous = null;
+        while (!heads.isEmpty()) {
+            Head head = heads.poll();
+            if (!head.user().username().equals(previous)) consumer.accept(head.user());
+            previous = head.user().username();
+            if (head.cursor().hasNext()) heads.add(new Head(head.cursor().next(), head.cursor()));
+        }
+    }
+
+    // ===== Routing =====
+
+    /**
+     * @return Every configured shard, including ones that are being drained.
+     */
+    Collection<Shard> shards() {
+        return shards.values();
+    }
+
+    /**
+     * @param username The username to place.
+     * @return The shard that owns the username on the current ring.
+     */
+    Shard owner(String username) {
+        return shards.get(ring.shardFor(username));
+    }
+
+    /**
+     * @return The owner on the previous ring if a reshard is in progress and it differs, otherwise null.
+     */
+    private Shard previousOwner(String username) {
+        if (previousRing == null) return null;
+
+        Shard previous = shards.get(previousRing.shardFor(username));
+        return previous == owner(username) ? null : previous;
+    }
+
+    /**
+     * Runs a lookup on the owner and, mid-reshard, on the previous owner if the first one finds nothing.
+     */
+    private <T> Optional<T> read(String username, BiFunction<Shard, String, Optional<T>> query) {
+        if (username == null) return Optional.empty();
+
+        Optional<T> result = query.apply(owner(username), username);
+        if (result.isPresent()) return result;
+
+        Shard previous = previousOwner(username);
+        return previous == null ? result : query.apply(previous, username);
+    }
+
+    /**
+     * @return The shard that currently holds the user's row: the owner unless the row has not moved yet.
+     */
+    private Shard holder(String username) {
+        Shard owner = owner(username);
+        Shard previous = previousOwner(username);
+        if (previous == null) return owner;
+
+        Integer onOwner = owner.jdbcTemplate().queryForObject("select count(*) from users where username = ?", Integer.class, username);
+        return onOwner != null && onOwner > 0 ? owner : previous;
+    }
+
+    private Optional<String> pendingChallenge(String username) {
+        Optional<String> pending = owner(username).challenges().get(username);
+        Shard previous = previousOwner(username);
+        return previous == null ? pending : pending.or(() -> previous.challenges().get(username));
+    }
+
+    private static void validate(ShardingProperties properties) {
+        if (properties.getRing().isEmpty()) {
+            throw new IllegalStateException("sharding.ring must list at least one shard");
+        }
+
+        Set<String> referenced = new LinkedHashSet<>(properties.getRing());
+        referenced.addAll(properties.getPreviousRing());
+        for (String name : referenced) {
+            if (!properties.getShards().containsKey(name)) {
+                throw new IllegalStateException("Shard " + name + " is on a ring but not defined under sharding.shards");
+            }
+        }
+
+        Set<Integer> ids = new HashSet<>();
+        properties.getShards().forEach((name, config) -> {
+            if (config.getUrl() == null) {
+                throw new IllegalStateException("sharding.shards." + name + ".url must be set");
+            }
+            if (config.getId() < 1 || config.getId() >= ID_STRIDE || !ids.add(config.getId())) {
+                throw new IllegalStateException("sharding.shards." + name + ".id must be unique and in [1, " + (ID_STRIDE - 1) + "]");
+            }
+        });
+    }
+}
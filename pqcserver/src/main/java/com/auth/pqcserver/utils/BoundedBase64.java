@@ -0,0 +1,25 @@
+package com.auth.pqcserver.utils;
+
+import com.fasterxml.jackson.annotation.JacksonAnnotationsInside;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a {@code byte[]} DTO field that arrives as Base64 text (JSON) or as a byte string (CBOR), and caps
+ * its decoded length. See {@link BoundedBase64Deserializer}.
+ */
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.RUNTIME)
+@JacksonAnnotationsInside
+@JsonDeserialize(using = BoundedBase64Deserializer.class)
+public @interface BoundedBase64 {
+
+    /**
+     * @return The largest accepted value in decoded bytes.
+     */
+    int maxBytes();
+}
@@ -0,0 +1,119 @@
+package com.auth.pqcserver.utils;
+
+import com.fasterxml.jackson.core.Base64Variant;
+import com.fasterxml.jackson.core.Base64Variants;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.BeanProperty;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.deser.ContextualDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Reads a {@link BoundedBase64} field straight into a {@code byte[]}.
+ * <p>
+ * Jackson's default path for a Base64 string materialises the text first, as a {@code char[]} in the
+ * parser's text buffer and then as a {@code String}, before anything decodes it. Here the parser decodes
+ * the Base64 chunk by chunk out of its input buffer into a per-thread scratch buffer, and the result is
+ * copied out once at its exact size, so the encoded text is never copied and the only allocation is the
+ * value itself; a CBOR byte string takes the same path. The decoded length is checked on every chunk, and
+ * the parse fails as soon as it passes the cap, before the rest of an oversized value is decoded.
+ */
+public class BoundedBase64Deserializer extends StdDeserializer<byte[]> implements ContextualDeserializer {
+
+    // Same alphabet as Base64.getDecoder(), which also accepts values without padding
+    private static final Base64Variant BASE64 = Base64Variants.MIME_NO_LINEFEEDS
+            .withReadPadding(Base64Variant.PaddingReadBehaviour.PADDING_ALLOWED);
+
+    private static final int INITIAL_BUFFER_BYTES = 1024;
+    // A scratch buffer that grew past this for an uncapped field is not kept for the next value
+    private static final int MAX_RETAINED_BUFFER_BYTES = 64 * 1024;
+
+    private static final ThreadLocal<ScratchBuffer> SCRATCH = ThreadLocal.withInitial(ScratchBuffer::new);
+
+    private final int maxBytes;
+
+    public BoundedBase64Deserializer() {
+        this(Integer.MAX_VALUE);
+    }
+
+    private BoundedBase64Deserializer(int maxBytes) {
+        super(byte[].class);
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public JsonDeserializer<?> createContextual(DeserializationContext ctxt, BeanProperty property) {
+        BoundedBase64 bounds = property == null ? null : property.getAnnotation(BoundedBase64.class);
+        return bounds == null ? this : new BoundedBase64Deserializer(bounds.maxBytes());
+    }
+
+    @Override
+    public byte[] deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        JsonToken token = p.currentToken();
+        if (token != JsonToken.VALUE_STRING && token != JsonToken.VALUE_EMBEDDED_OBJECT) {
+            return (byte[]) ctxt.handleUnexpectedToken(byte[].class, p);
+        }
+
+        ScratchBuffer buffer = SCRATCH.get();
+        buffer.reset(maxBytes);
+        try {
+            p.readBinaryValue(BASE64, buffer);
+            return buffer.toByteArray();
+        } catch (LimitExceededException e) {
+            throw MismatchedInputException.from(p, byte[].class,
+                    "Value of '" + p.currentName() + "' exceeds " + maxBytes + " bytes");
+        } finally {
+            buffer.release();
+        }
+    }
+
+    /**
+     * Collects decoded bytes up to a limit. Reused by every value parsed on its thread, growing by doubling.
+     */
+    private static final class ScratchBuffer extends OutputStream {
+
+        private byte[] bytes = new byte[INITIAL_BUFFER_BYTES];
+        private int size;
+        private int maxBytes;
+
+        void reset(int maxBytes) {
+            this.maxBytes = maxBytes;
+            this.size = 0;
+        }
+
+        void release() {
+            if (bytes.length > MAX_RETAINED_BUFFER_BYTES) bytes = new byte[INITIAL_BUFFER_BYTES];
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] chunk, int offset, int length) throws IOException {
+            if (length > maxBytes - size) throw new LimitExceededException();
+            if (size + length > bytes.length) {
+                bytes = Arrays.copyOf(bytes, (int) Math.min(maxBytes, Math.max(2L * bytes.length, size + length)));
+            }
+            System.arraycopy(chunk, offset, bytes, size, length);
+            size += length;
+        }
+
+        /**
+         * @return A copy of the bytes written.
+         */
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, size);
+        }
+    }
+
+    private static final class LimitExceededException extends IOException {}
+}
@@ -0,0 +1,118 @@
+package com.auth.pqcserver.utils;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded set of recently used one-time values (nonces, puzzle seeds, ...) for replay checks.
+ * <p>
+ * Keys live in two generations that each span {@code generationMillis}. A generation is dropped only after
+ * it has been the previous one for a full span, so a key is remembered for at least {@code generationMillis}
+ * after it was added: callers pick that span to cover the time a value stays acceptable. Rotation is lazy,
+ * on access; after an idle period longer than two spans both generations are dropped at once.
+ * <p>
+ * Each generation holds at most {@code capacity} keys. Once the current one is full {@link #add} refuses
+ * every key until it rotates, since forgetting keys early would let replays through.
+ */
+public final class ExpiringSeenSet {
+
+    private final long generationMillis;
+    private final int capacity;
+    private final LongSupplier clock;
+
+    private final Object rotationLock = new Object();
+    private volatile Generation current;
+    private volatile Generation previous;
+
+    /**
+     * @param generationMillis How long a generation stays current; the minimum time a key is remembered.
+     * @param capacity         Keys per generation.
+     */
+    public ExpiringSeenSet(long generationMillis, int capacity) {
+        this(generationMillis, capacity, System::currentTimeMillis);
+    }
+
+    /**
+     * @param generationMillis How long a generation stays current; the minimum time a key is remembered.
+     * @param capacity         Keys per generation.
+     * @param clock            Source of the current time in epoch millis.
+     */
+    public ExpiringSeenSet(long generationMillis, int capacity, LongSupplier clock) {
+        if (generationMillis < 1 || capacity < 1) {
+            throw new IllegalArgumentException("generationMillis and capacity must be positive");
+        }
+        this.generationMillis = generationMillis;
+        this.capacity = capacity;
+        this.clock = clock;
+
+        long now = clock.getAsLong();
+        this.current = new Generation(now);
+        this.previous = new Generation(now);
+    }
+
+    /**
+     * @param key The value to look up.
+     * @return True if the value has been added and not forgotten yet.
+     */
+    public boolean contains(String key) {
+        rotateIfDue();
+        return current.contains(key) || previous.contains(key);
+    }
+
+    /**
+     * Records a value. Atomic, so of two concurrent calls with the same key only one wins.
+     *
+     * @param key The value to record.
+     * @return True if recorded; false if the value was already present or the current generation is full.
+     */
+    public boolean add(String key) {
+        rotateIfDue();
+        return !previous.contains(key) && current.add(key, capacity);
+    }
+
+    // ======================= Helper Methods =======================
+
+    private void rotateIfDue() {
+        long now = clock.getAsLong();
+        if (now - current.startedAt < generationMillis) return;
+
+        synchronized (rotationLock) {
+            if (now - current.startedAt < generationMillis) return;
+
+            // After a long idle period the current generation is itself stale and can go as well
+            previous = now - current.startedAt < 2 * generationMillis ? current : new Generation(now);
+            current = new Generation(now);
+        }
+    }
+
+    /**
+     * One generation of keys.
+     */
+    private static final class Generation {
+
+        private final long startedAt;
+        private final Set<String> keys = ConcurrentHashMap.newKeySet();
+        private final AtomicInteger size = new AtomicInteger();
+
+        Generation(long startedAt) {
+            this.startedAt = startedAt;
+        }
+
+        boolean contains(String key) {
+            return keys.contains(key);
+        }
+
+        boolean add(String key, int capacity) {
+            if (size.incrementAndGet() > capacity) {
+                size.decrementAndGet();
+                return false;
+            }
+            if (keys.add(key)) return true;
+
+            size.decrementAndGet();
+            return false;
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.auth.pqcserver.utils;
 
+import com.auth.pqcserver.jfr.TokenMintedEvent;
+import com.auth.pqcserver.jfr.TokenValidatedEvent;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
@@ -39,12 +41,21 @@ public class JwtUtils {
      * @return the generated JWT token
      */
     public String generateToken(String username) {
-        return Jwts.builder()
+        TokenMintedEvent event = new TokenMintedEvent();
+        event.begin();
+
+        String token = Jwts.builder()
                 .setSubject(username)
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
                 .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
+
+        if (event.shouldCommit()) {
+            event.username = username;
+            event.commit();
+        }
+        return token;
     }
 
     /**
@@ -55,13 +66,24 @@ public class JwtUtils {
      * @return true if the token is valid and matches the username; false otherwise
      */
     public boolean validateToken(String token, String username) {
+        TokenValidatedEvent event = new TokenValidatedEvent();
+        event.begin();
+
+        boolean valid;
         try {
             final String extractedUsername = extractUsername(token);
-            return (extractedUsername.equals(username) && !isTokenExpired(token));
+            valid = extractedUsername.equals(username) && !isTokenExpired(token);
         } catch (JwtException | IllegalArgumentException e) {
             // Log the exception or handle it as needed
-            return false;
+            valid = false;
+        }
+
+        if (event.shouldCommit()) {
+            event.username = username;
+            event.valid = valid;
+            event.commit();
         }
+        return valid;
     }
 
     /**
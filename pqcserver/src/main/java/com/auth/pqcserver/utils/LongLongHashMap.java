@@ -0,0 +1,162 @@
+package com.auth.pqcserver.utils;
+
+/**
+ * Open-addressing hash map from {@code long} to {@code long} with linear probing.
+ * <p>
+ * Keys and values live in two parallel primitive arrays, so a map with millions of entries is two objects
+ * the garbage collector never has to trace. Entries cannot be removed. Not thread-safe: callers provide
+ * their own synchronisation.
+ */
+public class LongLongHashMap {
+
+    private static final float LOAD_FACTOR = 0.6f;
+    private static final long EMPTY = 0L;
+
+    private long[] keys;
+    private long[] values;
+    private int mask;
+    private int size;
+    private int resizeAt;
+
+    // Key 0 marks an empty slot, so its mapping is held separately
+    private boolean hasZeroKey;
+    private long zeroValue;
+
+    /**
+     * @param expectedSize Number of entries to size the table for without resizing.
+     */
+    public LongLongHashMap(int expectedSize) {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    /**
+     * @param key          The key to look up.
+     * @param defaultValue The value to return if the key is absent.
+     * @return The value mapped to the key, or {@code defaultValue}.
+     */
+    public long get(long key, long defaultValue) {
+        if (key == EMPTY) return hasZeroKey ? zeroValue : defaultValue;
+
+        for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+            long current = keys[slot];
+            if (current == key) return values[slot];
+            if (current == EMPTY) return defaultValue;
+        }
+    }
+
+    /**
+     * Looks up a key while a writer may be changing the map, for callers that validate an optimistic read
+     * afterwards. The table is read once and checked to be consistent before it is indexed, and the probe is
+     * bounded by the table size, so a concurrent resize can only produce a wrong answer, never an exception
+     * or an endless loop.
+     *
+     * @param key          The key to look up.
+     * @param defaultValue The value to return if the key is absent or the table was caught mid-resize.
+     * @return The value mapped to the key, or {@code defaultValue}; only meaningful if no write overlapped.
+     */
+    public long getConcurrently(long key, long defaultValue) {
+        if (key == EMPTY) return hasZeroKey ? zeroValue : defaultValue;
+
+        long[] keys = this.keys;
+        long[] values = this.values;
+        int mask = this.mask;
+        if (keys.length != values.length || mask != keys.length - 1) return defaultValue;
+
+        int slot = slot(key, mask);
+        for (int probes = 0; probes < keys.length; probes++, slot = (slot + 1) & mask) {
+            long current = keys[slot];
+            if (current == key) return values[slot];
+            if (current == EMPTY) return defaultValue;
+        }
+        return defaultValue;
+    }
+
+    /**
+     * @param key The key to look up.
+     * @return True if the key is mapped.
+     */
+    public boolean containsKey(long key) {
+        if (key == EMPTY) return hasZeroKey;
+
+        for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+            long current = keys[slot];
+            if (current == key) return true;
+            if (current == EMPTY) return false;
+        }
+    }
+
+    /**
+     * Maps the key to the value unless the key is already mapped.
+     *
+     * @param key   The key.
+     * @param value The value.
+     * @return True if the mapping was added, false if the key was already present.
+     */
+    public boolean putIfAbsent(long key, long value) {
+        if (key == EMPTY) {
+            if (hasZeroKey) return false;
+            hasZeroKey = true;
+            zeroValue = value;
+            size++;
+            return true;
+        }
+
+        int slot = slot(key);
+        for (; keys[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) return false;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size >= resizeAt) rehash(keys.length << 1);
+        return true;
+    }
+
+    /**
+     * @return The number of mappings.
+     */
+    public int size() {
+        return size;
+    }
+
+    private int slot(long key) {
+        return slot(key, mask);
+    }
+
+    private static int slot(long key, int mask) {
+        // murmur3 finaliser spreads sequential ids across the table
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return (int) h & mask;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        allocate(capacity);
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key == EMPTY) continue;
+
+            int slot = slot(key);
+            while (keys[slot] != EMPTY) slot = (slot + 1) & mask;
+            keys[slot] = key;
+            values[slot] = oldValues[i];
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        long needed = (long) Math.ceil(Math.max(2, expectedSize) / LOAD_FACTOR);
+        if (needed > 1 << 30) throw new IllegalArgumentException("Too many entries: " + expectedSize);
+        return Integer.highestOneBit((int) needed - 1) << 1;
+    }
+}
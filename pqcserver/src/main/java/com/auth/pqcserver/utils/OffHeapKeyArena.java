@@ -0,0 +1,160 @@
+package com.auth.pqcserver.utils;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Off-heap arena of public-key pairs keyed by credential ID.
+ * <p>
+ * Key bytes are appended to large direct {@link ByteBuffer} chunks, laid out as
+ * {@code [int dilithiumLength][int rsaLength][dilithium][rsa]}, and located through a primitive
+ * {@link LongLongHashMap} from credential ID to a packed {@code (chunk, offset)} address. Millions of
+ * ~2 KB Dilithium keys therefore cost the garbage collector a handful of objects instead of millions of
+ * arrays. Chunks are allocated as the arena grows and are never freed or compacted; entries are immutable.
+ * <p>
+ * Writers take a write lock; readers use an optimistic read of the index and only fall back to a read
+ * lock if a writer raced them. Key bytes themselves are read with absolute accessors and need no lock.
+ */
+public class OffHeapKeyArena {
+
+    private static final int ENTRY_HEADER_BYTES = 2 * Integer.BYTES;
+    private static final long ABSENT = -1L;
+
+    private final int chunkSize;
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+    private final LongLongHashMap index;
+    private final StampedLock lock = new StampedLock();
+
+    private volatile ByteBuffer[] readableChunks = new ByteBuffer[0];
+    private int writeOffset;
+
+    /**
+     * @param chunkSize    Size in bytes of each direct buffer.
+     * @param expectedKeys Number of entries to size the index for.
+     */
+    public OffHeapKeyArena(int chunkSize, int expectedKeys) {
+        this.chunkSize = chunkSize;
+        this.index = new LongLongHashMap(expectedKeys);
+    }
+
+    /**
+     * Copies a key pair into the arena unless the credential ID is already present.
+     *
+     * @param credentialId       The credential ID.
+     * @param publicKeyDilithium DER-encoded Dilithium public key.
+     * @param publicKeyRSA       DER-encoded RSA public key.
+     * @return True if the keys were stored, false if the ID was already present.
+     */
+    public boolean putIfAbsent(long credentialId, byte[] publicKeyDilithium, byte[] publicKeyRSA) {
+        int entrySize = ENTRY_HEADER_BYTES + publicKeyDilithium.length + publicKeyRSA.length;
+        if (entrySize > chunkSize) {
+            throw new IllegalArgumentException("Key pair of " + entrySize + " bytes does not fit in a chunk");
+        }
+
+        long stamp = lock.writeLock();
+        try {
+            if (index.containsKey(credentialId)) return false;
+
+            if (chunks.isEmpty() || writeOffset + entrySize > chunkSize) {
+                chunks.add(ByteBuffer.allocateDirect(chunkSize));
+                readableChunks = chunks.toArray(new ByteBuffer[0]);
+                writeOffset = 0;
+            }
+            int chunk = chunks.size() - 1;
+            int offset = writeOffset;
+
+            ByteBuffer buffer = chunks.get(chunk);
+            buffer.putInt(offset, publicKeyDilithium.length);
+            buffer.putInt(offset + Integer.BYTES, publicKeyRSA.length);
+            buffer.put(offset + ENTRY_HEADER_BYTES, publicKeyDilithium);
+            buffer.put(offset + ENTRY_HEADER_BYTES + publicKeyDilithium.length, publicKeyRSA);
+
+            index.putIfAbsent(credentialId, ((long) chunk << 32) | offset);
+            writeOffset = offset + entrySize;
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * @param credentialId The credential ID.
+     * @return True if the arena holds keys for the credential.
+     */
+    public boolean contains(long credentialId) {
+        return address(credentialId) != ABSENT;
+    }
+
+    /**
+     * Copies a credential's Dilithium public key out of the arena.
+     *
+     * @param credentialId The credential ID.
+     * @return The DER-encoded key, or null if the ID is unknown.
+     */
+    public byte[] publicKeyDilithium(long credentialId) {
+        long address = address(credentialId);
+        if (address == ABSENT) return null;
+
+        ByteBuffer buffer = readableChunks[(int) (address >>> 32)];
+        int offset = (int) address;
+        return copy(buffer, offset + ENTRY_HEADER_BYTES, buffer.getInt(offset));
+    }
+
+    /**
+     * Copies a credential's RSA public key out of the arena.
+     *
+     * @param credentialId The credential ID.
+     * @return The DER-encoded key, or null if the ID is unknown.
+     */
+    public byte[] publicKeyRSA(long credentialId) {
+        long address = address(credentialId);
+        if (address == ABSENT) return null;
+
+        ByteBuffer buffer = readableChunks[(int) (address >>> 32)];
+        int offset = (int) address;
+        return copy(buffer, offset + ENTRY_HEADER_BYTES + buffer.getInt(offset), buffer.getInt(offset + Integer.BYTES));
+    }
+
+    /**
+     * @return The number of key pairs stored.
+     */
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return index.size();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * @return The number of off-heap bytes reserved by the arena's chunks.
+     */
+    public long allocatedBytes() {
+        return (long) readableChunks.length * chunkSize;
+    }
+
+    private long address(long credentialId) {
+        // A zero stamp means a writer holds the lock, so the optimistic probe would be wasted
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            long address = index.getConcurrently(credentialId, ABSENT);
+            if (lock.validate(stamp)) return address;
+        }
+
+        stamp = lock.readLock();
+        try {
+            return index.get(credentialId, ABSENT);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private static byte[] copy(ByteBuffer buffer, int offset, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(offset, bytes);
+        return bytes;
+    }
+}
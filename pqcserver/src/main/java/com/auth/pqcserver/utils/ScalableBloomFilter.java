@@ -0,0 +1,167 @@
+package com.auth.pqcserver.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe scalable Bloom filter for strings (Almeida et al.).
+ * <p>
+ * The filter starts with one stage sized for {@code initialCapacity} entries. When a stage is full a new
+ * stage is appended with {@link #GROWTH} times the capacity and a tighter error target, so the compound
+ * false-positive rate stays below the configured one however many entries are added. Lookups never return
+ * a false negative. Bits are set with CAS, so {@link #add} and {@link #mightContain} are lock-free.
+ */
+public class ScalableBloomFilter {
+
+    private static final int GROWTH = 2;
+    private static final double TIGHTENING = 0.5;
+
+    private volatile Stage[] stages;
+    private final AtomicLong size = new AtomicLong();
+
+    /**
+     * @param initialCapacity   Expected number of entries for the first stage.
+     * @param falsePositiveRate Target compound false-positive probability.
+     */
+    public ScalableBloomFilter(long initialCapacity, double falsePositiveRate) {
+        if (initialCapacity <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Invalid Bloom filter parameters");
+        }
+        // The stage error rates form a geometric series that sums to falsePositiveRate
+        this.stages = new Stage[] { new Stage(initialCapacity, falsePositiveRate * (1 - TIGHTENING)) };
+    }
+
+    /**
+     * @param value The value to test.
+     * @return False if the value was definitely never added, true if it may have been.
+     */
+    public boolean mightContain(String value) {
+        long hash1 = hash(value, 0x9E3779B97F4A7C15L);
+        long hash2 = hash(value, 0xC2B2AE3D27D4EB4FL);
+        for (Stage stage : stages) {
+            if (stage.mightContain(hash1, hash2)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Adds a value to the filter.
+     *
+     * @param value The value to add.
+     */
+    public void add(String value) {
+        long hash1 = hash(value, 0x9E3779B97F4A7C15L);
+        long hash2 = hash(value, 0xC2B2AE3D27D4EB4FL);
+
+        Stage[] current = stages;
+        for (Stage stage : current) {
+            if (stage.mightContain(hash1, hash2)) return;
+        }
+        Stage last = current[current.length - 1];
+        if (last.count.get() >= last.capacity) {
+            last = grow(current);
+        }
+        last.add(hash1, hash2);
+        size.incrementAndGet();
+    }
+
+    /**
+     * @return The number of distinct values added (approximate under concurrent duplicate inserts).
+     */
+    public long size() {
+        return size.get();
+    }
+
+    /**
+     * Estimates the current false-positive probability from the fill ratio of each stage.
+     *
+     * @return The estimated probability that {@link #mightContain} returns true for an absent value.
+     */
+    public double estimatedFalsePositiveRate() {
+        double allMiss = 1.0;
+        for (Stage stage : stages) {
+            allMiss *= 1.0 - stage.estimatedFalsePositiveRate();
+        }
+        return 1.0 - allMiss;
+    }
+
+    private synchronized Stage grow(Stage[] seen) {
+        Stage[] current = stages;
+        Stage last = current[current.length - 1];
+        if (current != seen || last.count.get() < last.capacity) {
+            return last;
+        }
+        Stage next = new Stage(last.capacity * GROWTH, last.falsePositiveRate * TIGHTENING);
+        Stage[] grown = new Stage[current.length + 1];
+        System.arraycopy(current, 0, grown, 0, current.length);
+        grown[current.length] = next;
+        stages = grown;
+        return next;
+    }
+
+    /**
+     * Seeded 64-bit hash over the UTF-16 code units of a string (murmur3 finaliser on an FNV-style mix).
+     */
+    private static long hash(String value, long seed) {
+        long h = seed;
+        for (int i = 0; i < value.length(); i++) {
+            h = (h ^ value.charAt(i)) * 0x100000001B3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * One fixed-size Bloom filter using Kirsch-Mitzenmacher double hashing.
+     */
+    private static final class Stage {
+        private final long capacity;
+        private final double falsePositiveRate;
+        private final long bitCount;
+        private final int hashCount;
+        private final AtomicLongArray words;
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong bitsSet = new AtomicLong();
+
+        Stage(long capacity, double falsePositiveRate) {
+            this.capacity = capacity;
+            this.falsePositiveRate = falsePositiveRate;
+            double ln2 = Math.log(2);
+            long bits = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (ln2 * ln2));
+            this.bitCount = Math.max(64, (bits + 63) & ~63L);
+            this.hashCount = Math.max(1, (int) Math.round((double) bitCount / capacity * ln2));
+            this.words = new AtomicLongArray(Math.toIntExact(bitCount >>> 6));
+        }
+
+        boolean mightContain(long hash1, long hash2) {
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(hash1 + i * hash2, bitCount);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) return false;
+            }
+            return true;
+        }
+
+        void add(long hash1, long hash2) {
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(hash1 + i * hash2, bitCount);
+                int index = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long word;
+                do {
+                    word = words.get(index);
+                    if ((word & mask) != 0) break;
+                } while (!words.compareAndSet(index, word, word | mask));
+                if ((word & mask) == 0) bitsSet.incrementAndGet();
+            }
+            count.incrementAndGet();
+        }
+
+        double estimatedFalsePositiveRate() {
+            return Math.pow((double) bitsSet.get() / bitCount, hashCount);
+        }
+    }
+}
@@ -1,8 +1,6 @@
 package com.auth.pqcserver.utils;
 
-import com.auth.pqcserver.dto.AuthenticationResponseDto;
-import com.auth.pqcserver.dto.RegistrationResponseDto;
-import com.auth.pqcserver.entity.Credential;
+import com.auth.pqcserver.jfr.SignatureVerifiedEvent;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import org.bouncycastle.pqc.jcajce.provider.BouncyCastlePQCProvider;
 
@@ -13,6 +11,12 @@ import java.util.Base64;
 
 public class SecurityUtils {
 
+    // Caps on keys and signatures in requests: RSA up to 16384 bits, Dilithium up to level 5
+    public static final int MAX_RSA_BYTES = 4096;
+    public static final int MAX_DILITHIUM_BYTES = 8192;
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
     static {
         // Register Bouncy Castle providers for cryptographic operations
         Security.addProvider(new BouncyCastlePQCProvider());
@@ -31,122 +35,107 @@ public class SecurityUtils {
     }
 
     /**
-     * Verifies both RSA and Dilithium signatures for authentication or registration responses.
+     * Generates a random credential ID. IDs are positive 63-bit values, so they fit a BIGINT primary key
+     * and collisions stay negligible without any coordination between nodes or shards.
      *
-     * @param signatureRSA       RSA signature in Base64 format.
-     * @param signatureDilithium Dilithium signature in Base64 format.
-     * @param credential         User's credential containing public keys.
-     * @param challenge          Challenge string that was originally signed.
-     * @return True if both signatures are valid, false otherwise.
-     * @throws Exception If cryptographic operations fail.
+     * @return A random, non-zero credential ID.
      */
-    public static boolean verifyResponse(String signatureRSA, String signatureDilithium, Credential credential, String challenge) throws Exception {
-        return verifySignature(signatureRSA, credential.getPublicKeyRSA(), "SHA256withRSA", challenge) &&
-                verifySignature(signatureDilithium, credential.getPublicKeyDilithium(), "Dilithium", challenge);
+    public static long generateCredentialId() {
+        SecureRandom random = new SecureRandom();
+        long credentialId;
+        do {
+            credentialId = random.nextLong() & Long.MAX_VALUE;
+        } while (credentialId == 0);
+        return credentialId;
     }
 
     /**
-     * Verifies a digital signature using the given algorithm and public key.
+     * Verifies a digital signature against a public key decoded with {@link #decodeRSAPublicKey(byte[])} or
+     * {@link #decodeDilithiumPublicKey(byte[])}, so callers can time decoding and verification separately.
      *
-     * @param signature  Signature in Base64 format.
-     * @param publicKey  Public key in Base64 format.
+     * @param signature  Signature bytes.
+     * @param publicKey  Decoded public key.
      * @param algorithm  Signature algorithm ("SHA256withRSA" or "Dilithium").
      * @param challenge  Challenge string that was originally signed.
      * @return True if the signature is valid, false otherwise.
      * @throws Exception If cryptographic operations fail.
      */
-    private static boolean verifySignature(String signature, String publicKey, String algorithm, String challenge) throws Exception {
-        PublicKey decodedKey = algorithm.equals("SHA256withRSA")
-                ? decodeRSAPublicKey(publicKey)
-                : decodeDilithiumPublicKey(publicKey);
+    public static boolean verifySignature(byte[] signature, PublicKey publicKey, String algorithm, String challenge) throws Exception {
+        SignatureVerifiedEvent event = new SignatureVerifiedEvent();
+        event.begin();
 
         Signature verifier = Signature.getInstance(algorithm);
-        verifier.initVerify(decodedKey);
+        verifier.initVerify(publicKey);
         verifier.update(challenge.getBytes(StandardCharsets.UTF_8));
+        boolean valid = verifier.verify(signature);
 
-        return verifier.verify(Base64.getDecoder().decode(signature));
-    }
-
-    /**
-     * Verifies a registration response by checking both RSA and Dilithium signatures.
-     *
-     * @param responseDto Registration response DTO.
-     * @param credential  User's credential containing public keys.
-     * @param challenge   Challenge string that was originally signed.
-     * @return True if both signatures are valid, false otherwise.
-     * @throws Exception If cryptographic operations fail.
-     */
-    public static boolean verifyRegistrationResponse(RegistrationResponseDto responseDto, Credential credential, String challenge) throws Exception {
-        return verifyResponse(responseDto.getSignatureRSA(), responseDto.getSignatureDilithium(), credential, challenge);
-    }
-
-    /**
-     * Verifies an authentication response by checking both RSA and Dilithium signatures.
-     *
-     * @param responseDto Authentication response DTO.
-     * @param credential  User's credential containing public keys.
-     * @param challenge   Challenge string that was originally signed.
-     * @return True if both signatures are valid, false otherwise.
-     * @throws Exception If cryptographic operations fail.
-     */
-    public static boolean verifyAuthenticationResponse(AuthenticationResponseDto responseDto, Credential credential, String challenge) throws Exception {
-        return verifyResponse(responseDto.getSignatureRSA(), responseDto.getSignatureDilithium(), credential, challenge);
+        if (event.shouldCommit()) {
+            event.algorithm = algorithm;
+            event.valid = valid;
+            event.commit();
+        }
+        return valid;
     }
 
     // ======================= Key Decoding Methods =======================
 
     /**
-     * Decodes a Base64-encoded Dilithium public key.
+     * Decodes a DER-encoded Dilithium public key.
      *
-     * @param base64PublicKey Public key in Base64 format.
+     * @param publicKeyBytes Public key as X.509 SubjectPublicKeyInfo bytes.
      * @return Decoded PublicKey object.
      * @throws Exception If decoding fails.
      */
-    public static PublicKey decodeDilithiumPublicKey(String base64PublicKey) throws Exception {
-        byte[] publicKeyBytes = Base64.getDecoder().decode(base64PublicKey);
+    public static PublicKey decodeDilithiumPublicKey(byte[] publicKeyBytes) throws Exception {
         KeyFactory keyFactory = KeyFactory.getInstance("Dilithium", "BCPQC");
         return keyFactory.generatePublic(new X509EncodedKeySpec(publicKeyBytes));
     }
 
     /**
-     * Decodes a Base64-encoded RSA public key.
+     * Decodes a DER-encoded RSA public key.
      *
-     * @param base64PublicKey Public key in Base64 format.
+     * @param publicKeyBytes Public key as X.509 SubjectPublicKeyInfo bytes.
      * @return Decoded PublicKey object.
      * @throws Exception If decoding fails.
      */
-    public static PublicKey decodeRSAPublicKey(String base64PublicKey) throws Exception {
-        byte[] publicKeyBytes = Base64.getDecoder().decode(base64PublicKey);
+    public static PublicKey decodeRSAPublicKey(byte[] publicKeyBytes) throws Exception {
         KeyFactory keyFactory = KeyFactory.getInstance("RSA");
         return keyFactory.generatePublic(new X509EncodedKeySpec(publicKeyBytes));
     }
 
-    // ======================= Utility Methods =======================
+    // ======================= Fingerprint Methods =======================
 
     /**
-     * Formats a Base64-encoded key for display by converting it to a shortened hex format.
+     * Computes a public key's fingerprint: the SHA-256 digest of its SubjectPublicKeyInfo encoding.
      *
-     * @param base64Key Base64-encoded key string.
-     * @return A truncated hex representation of the key.
+     * @param publicKey Public key as X.509 SubjectPublicKeyInfo bytes.
+     * @return The 32-byte fingerprint.
      */
-    public static String formatKey(String base64Key) {
-        if (base64Key == null || base64Key.isEmpty()) return "N/A";
-
-        String hexKey = bytesToHex(Base64.getDecoder().decode(base64Key));
-        return (hexKey.length() <= 20) ? hexKey : hexKey.substring(0, 20) + " ... " + hexKey.substring(hexKey.length() - 20);
+    public static byte[] fingerprint(byte[] publicKey) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(publicKey);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
     }
 
+    // ======================= Utility Methods =======================
+
     /**
-     * Converts a byte array into a hexadecimal string.
+     * Converts a byte array into a lowercase hexadecimal string.
      *
-     * @param bytes Byte array to convert.
-     * @return Hexadecimal representation of the byte array.
+     * @param bytes Byte array to convert, may be null.
+     * @return Hexadecimal representation of the byte array, or null.
      */
-    private static String bytesToHex(byte[] bytes) {
-        StringBuilder hexString = new StringBuilder();
-        for (byte b : bytes) {
-            hexString.append(String.format("%02x", b));
+    public static String bytesToHex(byte[] bytes) {
+        if (bytes == null) return null;
+
+        char[] hex = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            int b = bytes[i] & 0xFF;
+            hex[i * 2] = HEX_DIGITS[b >>> 4];
+            hex[i * 2 + 1] = HEX_DIGITS[b & 0x0F];
         }
-        return hexString.toString();
+        return new String(hex);
     }
 }
@@ -0,0 +1,104 @@
+package com.auth.pqcserver.utils;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free token-bucket rate limiter striped over a fixed number of slots.
+ * <p>
+ * Each key (username, client IP, ...) is hashed onto one of {@code stripes} slots. A slot holds a single
+ * {@code long}: the theoretical arrival time of the next request (GCRA formulation of a token bucket),
+ * updated with a CAS loop. Keys never allocate memory, so the footprint stays constant no matter how many
+ * distinct keys an attacker sends; colliding keys simply share a bucket, which only ever makes the limit
+ * stricter.
+ */
+public class TokenBucketRateLimiter {
+
+    private final AtomicLongArray slots;
+    private final int mask;
+    private final int seed;
+
+    private final int capacity;
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+
+    /**
+     * Creates a rate limiter.
+     *
+     * @param capacity        Maximum burst size (bucket capacity).
+     * @param refillPerSecond Tokens added to each bucket per second.
+     * @param stripes         Number of buckets; rounded up to a power of two.
+     */
+    public TokenBucketRateLimiter(int capacity, double refillPerSecond, int stripes) {
+        if (capacity <= 0 || refillPerSecond <= 0 || stripes <= 0) {
+            throw new IllegalArgumentException("capacity, refillPerSecond and stripes must be positive");
+        }
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.slots = new AtomicLongArray(size);
+        this.mask = size - 1;
+        this.seed = ThreadLocalRandom.current().nextInt();
+        this.capacity = capacity;
+        this.emissionIntervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / refillPerSecond);
+        this.burstToleranceNanos = emissionIntervalNanos * capacity;
+    }
+
+    /**
+     * Attempts to take one token from the bucket the key hashes to.
+     *
+     * @param key The key to rate limit (must not be null).
+     * @return The outcome, including remaining tokens and retry delay.
+     */
+    public Decision tryAcquire(String key) {
+        long now = System.nanoTime();
+        int index = stripe(key);
+        while (true) {
+            long stored = slots.get(index);
+            // A zero slot has never been used; treat it as a full bucket.
+            long tat = (stored == 0L || stored - now < 0) ? now : stored;
+            long newTat = tat + emissionIntervalNanos;
+            long backlog = newTat - now;
+
+            if (backlog > burstToleranceNanos) {
+                long retryAfterNanos = backlog - burstToleranceNanos;
+                return new Decision(false, capacity, 0, retryAfterNanos);
+            }
+            if (slots.compareAndSet(index, stored, newTat)) {
+                int remaining = (int) ((burstToleranceNanos - backlog) / emissionIntervalNanos);
+                return new Decision(true, capacity, remaining, 0L);
+            }
+        }
+    }
+
+    /**
+     * Maps a key onto a slot using a per-instance seed so collisions cannot be precomputed offline.
+     */
+    private int stripe(String key) {
+        int h = seed;
+        for (int i = 0; i < key.length(); i++) {
+            h = (h ^ key.charAt(i)) * 0x01000193;
+        }
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        return h & mask;
+    }
+
+    /**
+     * Result of a rate limit check.
+     *
+     * @param allowed          Whether the request may proceed.
+     * @param limit            Bucket capacity.
+     * @param remaining        Tokens left after this request.
+     * @param retryAfterNanos  Time until a token becomes available (0 when allowed).
+     */
+    public record Decision(boolean allowed, int limit, int remaining, long retryAfterNanos) {
+
+        /**
+         * @return The retry delay rounded up to whole seconds, as used by the {@code Retry-After} header.
+         */
+        public long retryAfterSeconds() {
+            return Math.max(1L, (retryAfterNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        }
+    }
+}
@@ -0,0 +1,20 @@
+-- Users: one row per registered username
+CREATE TABLE users (
+    id        BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    username  VARCHAR(255) NOT NULL,
+    challenge VARCHAR(255),
+    email     VARCHAR(255)
+);
+
+CREATE UNIQUE INDEX ux_users_username ON users (username);
+
+-- Credentials: public keys stored as raw X.509 SubjectPublicKeyInfo bytes
+CREATE TABLE credential (
+    id                   BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id              BIGINT          NOT NULL,
+    public_key_dilithium VARBINARY(4096) NOT NULL,
+    public_key_rsa       VARBINARY(1024) NOT NULL,
+    CONSTRAINT fk_credential_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
+
+CREATE INDEX ix_credential_user_id ON credential (user_id);
@@ -0,0 +1,8 @@
+-- Heartbeat stamped on the primary and read back from each replica to measure replication lag
+-- (see ReplicaLagMonitor). A single row, id = 1.
+CREATE TABLE replica_heartbeat (
+    id          INT    PRIMARY KEY,
+    beat_millis BIGINT NOT NULL
+);
+
+INSERT INTO replica_heartbeat (id, beat_millis) VALUES (1, 0);
@@ -0,0 +1,4 @@
+-- Credentials: a user may now have several (one per device). New credential IDs are random 63-bit values
+-- chosen by the server and handed to the client, so the column no longer generates them. Existing rows
+-- keep their IDs; the lowest ID is a user's primary credential, used when a client sends no ID.
+ALTER TABLE credential ALTER COLUMN id DROP IDENTITY;
@@ -0,0 +1,10 @@
+-- Credentials: SHA-256 fingerprints of both public keys (over the stored SubjectPublicKeyInfo bytes), computed
+-- once at registration so logs and admin listings can identify a key without decoding or hex-dumping it.
+ALTER TABLE credential ADD COLUMN fingerprint_dilithium VARBINARY(32);
+ALTER TABLE credential ADD COLUMN fingerprint_rsa VARBINARY(32);
+
+UPDATE credential SET fingerprint_dilithium = HASH('SHA-256', public_key_dilithium),
+                      fingerprint_rsa = HASH('SHA-256', public_key_rsa);
+
+ALTER TABLE credential ALTER COLUMN fingerprint_dilithium SET NOT NULL;
+ALTER TABLE credential ALTER COLUMN fingerprint_rsa SET NOT NULL;
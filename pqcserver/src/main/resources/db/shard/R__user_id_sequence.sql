@@ -0,0 +1,4 @@
+-- Shard-local user ID sequence. Every shard hands out IDs congruent to its own shard ID modulo the stride,
+-- so IDs stay globally unique and rows keep their ID when the rebalancer moves them to another shard.
+-- Placeholders are supplied by ShardedCredentialStore from sharding.shards.<name>.id.
+CREATE SEQUENCE IF NOT EXISTS user_id_seq START WITH ${shardId} INCREMENT BY ${idStride};
@@ -1,13 +1,22 @@
 package com.auth.pqcserver;
 
+import com.auth.pqcserver.service.WarmupRunner;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+// Warm-up is off for the other tests; here it runs, so a failing warm-up still fails the build
+@SpringBootTest(properties = "warmup.enabled=true")
 class PqcserverApplicationTests {
 
+	@Autowired
+	private WarmupRunner warmupRunner;
+
 	@Test
 	void contextLoads() {
+		assertNotNull(warmupRunner);
 	}
 
 }
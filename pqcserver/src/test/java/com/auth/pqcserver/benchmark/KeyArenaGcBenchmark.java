@@ -0,0 +1,97 @@
+package com.auth.pqcserver.benchmark;
+
+import com.auth.pqcserver.repository.projection.LoginCredentialView;
+import com.auth.pqcserver.store.InMemoryCredentialStore;
+import com.sun.management.GarbageCollectionNotificationInfo;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Compares heap footprint and GC pauses of {@link InMemoryCredentialStore} with public keys on the heap
+ * versus in the off-heap key arena.
+ * <p>
+ * Run with {@code ./mvnw test -Pbenchmark -Dtest=KeyArenaGcBenchmark}. The user count defaults to 200k so
+ * it fits the default heap; larger runs need a bigger heap, e.g.
+ * {@code -Dbenchmark.users=5000000 -DargLine="-Xmx16g -XX:MaxDirectMemorySize=16g"}.
+ */
+@Tag("benchmark")
+class KeyArenaGcBenchmark {
+
+    private static final int DILITHIUM3_KEY_BYTES = 1952;
+    private static final int RSA2048_KEY_BYTES = 294;
+    private static final int LOOKUPS = 2_000_000;
+
+    @Test
+    void gcPausesOnHeapVersusOffHeap() throws Exception {
+        int users = Integer.parseInt(System.getProperty("benchmark.users", "200000"));
+        run("on-heap", false, users);
+        run("off-heap", true, users);
+    }
+
+    private static void run(String label, boolean offHeapKeys, int users) throws Exception {
+        System.gc(); // Clear out the previous run's store so it is not charged to this one
+        InMemoryCredentialStore store = new InMemoryCredentialStore(offHeapKeys, 256 << 20, users);
+        for (long id = 1; id <= users; id++) {
+            String username = UserLookupBenchmark.username(id);
+            Long userId = store.insertUserIfAbsent(username, username + "@example.com", "challenge-" + id);
+            store.insertCredential(username, userId, id, new byte[DILITHIUM3_KEY_BYTES], new byte[RSA2048_KEY_BYTES],
+                    new byte[32], new byte[32], 1);
+        }
+
+        long fullGcStart = System.nanoTime();
+        System.gc();
+        long fullGcMillis = (System.nanoTime() - fullGcStart) / 1_000_000;
+        long heapUsed = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+
+        // Each lookup wraps the keys in X509EncodedKeySpecs (which copy them), as a login verification would
+        LatencySamples pauses = new LatencySamples(100_000);
+        NotificationListener listener = (notification, handback) -> {
+            if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) return;
+            GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+            pauses.record(info.getGcInfo().getDuration() * 1_000_000);
+        };
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            ((NotificationEmitter) collector).addNotificationListener(listener, null, null);
+        }
+
+        long gcCountBefore = gcCount();
+        long gcMillisBefore = gcMillis();
+        long lookupStart = System.nanoTime();
+        long checksum = 0;
+        try {
+            for (int i = 0; i < LOOKUPS; i++) {
+                long id = ThreadLocalRandom.current().nextLong(1, users + 1);
+                LoginCredentialView login = store.findLoginView(UserLookupBenchmark.username(id), id).orElseThrow();
+                checksum += new X509EncodedKeySpec(login.publicKeyDilithium()).getEncoded().length
+                        + new X509EncodedKeySpec(login.publicKeyRSA()).getEncoded().length;
+            }
+            Thread.sleep(200); // GC notifications are delivered asynchronously
+        } finally {
+            for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+                ((NotificationEmitter) collector).removeNotificationListener(listener);
+            }
+        }
+        long lookupMillis = (System.nanoTime() - lookupStart) / 1_000_000;
+
+        System.out.printf("[%,d users] %-8s heap after full GC=%,d MB, full GC=%d ms%n",
+                users, label, heapUsed >> 20, fullGcMillis);
+        System.out.printf("[%,d users] %-8s %,d lookups (%,d key bytes) in %d ms, %d collections taking %d ms, pauses %s%n",
+                users, label, LOOKUPS, checksum, lookupMillis, gcCount() - gcCountBefore, gcMillis() - gcMillisBefore, pauses.summary());
+    }
+
+    private static long gcCount() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream().mapToLong(GarbageCollectorMXBean::getCollectionCount).sum();
+    }
+
+    private static long gcMillis() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream().mapToLong(GarbageCollectorMXBean::getCollectionTime).sum();
+    }
+}
@@ -0,0 +1,36 @@
+package com.auth.pqcserver.benchmark;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size recorder of latency samples with percentile reporting, shared by the benchmarks.
+ */
+final class LatencySamples {
+
+    private final long[] nanos;
+    private int count;
+
+    LatencySamples(int capacity) {
+        this.nanos = new long[capacity];
+    }
+
+    void record(long elapsedNanos) {
+        if (count < nanos.length) nanos[count++] = elapsedNanos;
+    }
+
+    /**
+     * @return A one-line summary in microseconds, e.g. "n=1000 p50=12.3us p99=40.1us p99.9=88.0us max=120.4us".
+     */
+    String summary() {
+        long[] sorted = Arrays.copyOf(nanos, count);
+        Arrays.sort(sorted);
+        return String.format("n=%d p50=%.1fus p99=%.1fus p99.9=%.1fus max=%.1fus",
+                count, micros(sorted, 0.50), micros(sorted, 0.99), micros(sorted, 0.999), micros(sorted, 1.0));
+    }
+
+    private static double micros(long[] sorted, double percentile) {
+        if (sorted.length == 0) return 0;
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1_000.0;
+    }
+}
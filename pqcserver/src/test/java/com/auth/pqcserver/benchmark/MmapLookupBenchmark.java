@@ -0,0 +1,106 @@
+package com.auth.pqcserver.benchmark;
+
+import com.auth.pqcserver.store.MmapCredentialStore;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Compares login lookup latency of {@link MmapCredentialStore} with the equivalent H2 join, and measures
+ * how long the mmap store takes to rebuild its index on restart.
+ * <p>
+ * Run with {@code ./mvnw test -Pbenchmark -Dtest=MmapLookupBenchmark}. The user count defaults to 1M and
+ * can be changed with {@code -Dbenchmark.users=100000}.
+ */
+@Tag("benchmark")
+class MmapLookupBenchmark {
+
+    private static final int SEGMENT_SIZE = 64 << 20;
+    private static final int WARMUP_LOOKUPS = 20_000;
+    private static final int MEASURED_LOOKUPS = 100_000;
+
+    @Test
+    void mmapVersusH2LoginLookup() throws Exception {
+        long users = Long.parseLong(System.getProperty("benchmark.users", "1000000"));
+        Path directory = Files.createTempDirectory("pqc-mmap-bench");
+        Path logDirectory = directory.resolve("log");
+        String url = "jdbc:h2:file:" + directory.resolve("bench") + ";CACHE_SIZE=262144";
+
+        try {
+            Flyway.configure().dataSource(url, "sa", "").load().migrate();
+            try (Connection connection = DriverManager.getConnection(url, "sa", "")) {
+                UserLookupBenchmark.populate(connection, users);
+                measureH2(connection, users);
+            }
+
+            byte[] dummyKey = new byte[32];
+            MmapCredentialStore store = open(logDirectory);
+            long loadStart = System.nanoTime();
+            for (long id = 1; id <= users; id++) {
+                String username = UserLookupBenchmark.username(id);
+                Long userId = store.insertUserIfAbsent(username, username + "@example.com", "challenge-" + id);
+                store.insertCredential(username, userId, id, dummyKey, dummyKey, new byte[32], new byte[32], 1);
+            }
+            store.close();
+            System.out.printf("[%,d users] mmap loaded in %d ms%n", users, (System.nanoTime() - loadStart) / 1_000_000);
+
+            long reopenStart = System.nanoTime();
+            store = open(logDirectory);
+            System.out.printf("[%,d users] mmap index rebuilt in %d ms%n", users, (System.nanoTime() - reopenStart) / 1_000_000);
+            measureMmap(store, users);
+            store.close();
+        } finally {
+            UserLookupBenchmark.deleteRecursively(directory);
+        }
+    }
+
+    private static MmapCredentialStore open(Path logDirectory) {
+        return new MmapCredentialStore(logDirectory.toString(), SEGMENT_SIZE, false, 0.5);
+    }
+
+    private static void measureH2(Connection connection, long users) throws Exception {
+        LatencySamples samples = new LatencySamples(MEASURED_LOOKUPS);
+
+        try (PreparedStatement statement = connection.prepareStatement(
+                "select u.id, u.challenge, c.public_key_rsa, c.public_key_dilithium "
+                        + "from credential c join users u on u.id = c.user_id where u.username = ?")) {
+            for (int i = 0; i < WARMUP_LOOKUPS + MEASURED_LOOKUPS; i++) {
+                statement.setString(1, randomUsername(users));
+
+                long start = System.nanoTime();
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    if (!resultSet.next()) throw new IllegalStateException("Missing row for lookup");
+                    resultSet.getBytes(3);
+                    resultSet.getBytes(4);
+                }
+                if (i >= WARMUP_LOOKUPS) samples.record(System.nanoTime() - start);
+            }
+        }
+        System.out.printf("[%,d users] %-15s %s%n", users, "h2 login join", samples.summary());
+    }
+
+    private static void measureMmap(MmapCredentialStore store, long users) {
+        LatencySamples samples = new LatencySamples(MEASURED_LOOKUPS);
+
+        for (int i = 0; i < WARMUP_LOOKUPS + MEASURED_LOOKUPS; i++) {
+            String username = randomUsername(users);
+
+            long start = System.nanoTime();
+            if (store.findLoginView(username, null).isEmpty()) throw new IllegalStateException("Missing record for lookup");
+            if (i >= WARMUP_LOOKUPS) samples.record(System.nanoTime() - start);
+        }
+        System.out.printf("[%,d users] %-15s %s%n", users, "mmap login", samples.summary());
+    }
+
+    private static String randomUsername(long users) {
+        return UserLookupBenchmark.username(ThreadLocalRandom.current().nextLong(1, users + 1));
+    }
+}
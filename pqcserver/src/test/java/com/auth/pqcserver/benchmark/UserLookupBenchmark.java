@@ -0,0 +1,121 @@
+package com.auth.pqcserver.benchmark;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+
+/**
+ * Measures username and login-join lookup latency against the migrated schema at large user counts.
+ * <p>
+ * Run with {@code ./mvnw test -Pbenchmark -Dtest=UserLookupBenchmark}. Sizes default to 1M and 10M users
+ * and can be changed with {@code -Dbenchmark.users=100000,1000000}. Credential rows use small dummy keys
+ * so the database stays on disk-friendly sizes; only index behaviour is being measured.
+ */
+@Tag("benchmark")
+class UserLookupBenchmark {
+
+    private static final int BATCH_SIZE = 10_000;
+    private static final int WARMUP_LOOKUPS = 20_000;
+    private static final int MEASURED_LOOKUPS = 100_000;
+
+    @Test
+    void lookupLatencyAtScale() throws Exception {
+        long[] sizes = Arrays.stream(System.getProperty("benchmark.users", "1000000,10000000").split(","))
+                .mapToLong(size -> Long.parseLong(size.trim()))
+                .toArray();
+
+        for (long users : sizes) {
+            Path directory = Files.createTempDirectory("pqc-lookup-bench");
+            String url = "jdbc:h2:file:" + directory.resolve("bench") + ";CACHE_SIZE=262144";
+
+            Flyway.configure().dataSource(url, "sa", "").load().migrate();
+
+            try (Connection connection = DriverManager.getConnection(url, "sa", "")) {
+                long loadStart = System.nanoTime();
+                populate(connection, users);
+                System.out.printf("[%,d users] loaded in %d s%n", users, (System.nanoTime() - loadStart) / 1_000_000_000L);
+
+                measure(connection, users, "username -> id",
+                        "select u.id from users u where u.username = ?");
+                measure(connection, users, "login join",
+                        "select u.id, u.challenge, c.public_key_rsa, c.public_key_dilithium "
+                                + "from credential c join users u on u.id = c.user_id where u.username = ?");
+            } finally {
+                deleteRecursively(directory);
+            }
+        }
+    }
+
+    static void populate(Connection connection, long users) throws Exception {
+        connection.setAutoCommit(false);
+        byte[] dummyKey = new byte[32];
+
+        try (PreparedStatement insertUser = connection.prepareStatement(
+                     "insert into users (id, username, challenge, email) values (?, ?, ?, ?)");
+             PreparedStatement insertCredential = connection.prepareStatement(
+                     "insert into credential (id, user_id, public_key_dilithium, public_key_rsa, fingerprint_dilithium, fingerprint_rsa) "
+                             + "values (?, ?, ?, ?, ?, ?)")) {
+
+            for (long id = 1; id <= users; id++) {
+                insertUser.setLong(1, id);
+                insertUser.setString(2, username(id));
+                insertUser.setString(3, "challenge-" + id);
+                insertUser.setString(4, username(id) + "@example.com");
+                insertUser.addBatch();
+
+                insertCredential.setLong(1, id);
+                insertCredential.setLong(2, id);
+                insertCredential.setBytes(3, dummyKey);
+                insertCredential.setBytes(4, dummyKey);
+                insertCredential.setBytes(5, dummyKey);
+                insertCredential.setBytes(6, dummyKey);
+                insertCredential.addBatch();
+
+                if (id % BATCH_SIZE == 0 || id == users) {
+                    insertUser.executeBatch();
+                    insertCredential.executeBatch();
+                    connection.commit();
+                }
+            }
+        }
+        connection.setAutoCommit(true);
+    }
+
+    private static void measure(Connection connection, long users, String label, String sql) throws Exception {
+        LatencySamples samples = new LatencySamples(MEASURED_LOOKUPS);
+
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < WARMUP_LOOKUPS + MEASURED_LOOKUPS; i++) {
+                statement.setString(1, username(ThreadLocalRandom.current().nextLong(1, users + 1)));
+
+                long start = System.nanoTime();
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    if (!resultSet.next()) throw new IllegalStateException("Missing row for lookup");
+                }
+                if (i >= WARMUP_LOOKUPS) samples.record(System.nanoTime() - start);
+            }
+        }
+        System.out.printf("[%,d users] %-15s %s%n", users, label, samples.summary());
+    }
+
+    static void deleteRecursively(Path directory) throws Exception {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    static String username(long id) {
+        return "user" + id;
+    }
+}
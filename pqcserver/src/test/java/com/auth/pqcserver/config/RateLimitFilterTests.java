@@ -0,0 +1,66 @@
+package com.auth.pqcserver.config;
+
+import com.auth.pqcserver.service.HandshakeMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Requests must be matched against the limiters by their decoded path, like the controllers see them.
+ */
+class RateLimitFilterTests {
+
+    private static final String LOGIN_START = "/auth/login/start";
+
+    @Test
+    void percentEncodedPathSharesTheLimiter() throws Exception {
+        RateLimitFilter filter = filter(1);
+
+        assertEquals(HttpStatus.OK.value(), send(filter, LOGIN_START, LOGIN_START));
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), send(filter, "/auth/login/%73tart", LOGIN_START));
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), send(filter, "/auth/login/st%61rt", LOGIN_START));
+    }
+
+    @Test
+    void contextPathIsNotPartOfTheKey() throws Exception {
+        RateLimitFilter filter = filter(1);
+
+        MockHttpServletRequest first = request("/app" + LOGIN_START, LOGIN_START);
+        first.setContextPath("/app");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(first, response, new MockFilterChain());
+        assertEquals(HttpStatus.OK.value(), response.getStatus());
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), send(filter, LOGIN_START, LOGIN_START));
+    }
+
+    private static int send(RateLimitFilter filter, String requestUri, String servletPath) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request(requestUri, servletPath), response, new MockFilterChain());
+        return response.getStatus();
+    }
+
+    private static MockHttpServletRequest request(String requestUri, String servletPath) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", requestUri);
+        request.setServletPath(servletPath);
+        request.setRemoteAddr("192.0.2.1");
+        return request;
+    }
+
+    private static RateLimitFilter filter(int ipCapacity) {
+        RateLimitProperties.Endpoint endpoint = new RateLimitProperties.Endpoint();
+        endpoint.setPath(LOGIN_START);
+        endpoint.getIp().setCapacity(ipCapacity);
+        endpoint.getIp().setRefillPerSecond(0.001);
+
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setStripes(16);
+        properties.getEndpoints().put("login-start", endpoint);
+        return new RateLimitFilter(properties, new HandshakeMetrics(new SimpleMeterRegistry()));
+    }
+}
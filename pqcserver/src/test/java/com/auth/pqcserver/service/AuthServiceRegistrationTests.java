@@ -0,0 +1,95 @@
+package com.auth.pqcserver.service;
+
+import com.auth.pqcserver.dto.AuthenticationChallengeDto;
+import com.auth.pqcserver.dto.AuthenticationResponseDto;
+import com.auth.pqcserver.dto.RegistrationChallengeDto;
+import com.auth.pqcserver.dto.RegistrationRequestDto;
+import com.auth.pqcserver.dto.RegistrationResponseDto;
+import com.auth.pqcserver.store.CredentialStore;
+import org.bouncycastle.pqc.jcajce.provider.BouncyCastlePQCProvider;
+import org.bouncycastle.pqc.jcajce.spec.DilithiumParameterSpec;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.Security;
+import java.security.Signature;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * A registration challenge for an existing user must not replace the challenge their pending login signs.
+ */
+@SpringBootTest
+class AuthServiceRegistrationTests {
+
+    private static KeyPair rsaKeyPair;
+    private static KeyPair dilithiumKeyPair;
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private CredentialStore credentialStore;
+
+    @BeforeAll
+    static void generateKeys() throws Exception {
+        if (Security.getProvider("BCPQC") == null) {
+            Security.addProvider(new BouncyCastlePQCProvider());
+        }
+
+        KeyPairGenerator rsa = KeyPairGenerator.getInstance("RSA");
+        rsa.initialize(2048);
+        rsaKeyPair = rsa.generateKeyPair();
+
+        KeyPairGenerator dilithium = KeyPairGenerator.getInstance("Dilithium", "BCPQC");
+        dilithium.initialize(DilithiumParameterSpec.dilithium3);
+        dilithiumKeyPair = dilithium.generateKeyPair();
+    }
+
+    @Test
+    void unauthenticatedRegistrationDoesNotOverwriteLoginChallenge() throws Exception {
+        String username = "reg-" + UUID.randomUUID();
+        RegistrationRequestDto registrationRequest = new RegistrationRequestDto();
+        registrationRequest.setUsername(username);
+        registrationRequest.setEmail(username + "@example.com");
+        RegistrationChallengeDto registrationChallenge = authService.startRegistration(registrationRequest, false);
+
+        RegistrationResponseDto registrationResponse = new RegistrationResponseDto();
+        registrationResponse.setPublicKeyRSA(rsaKeyPair.getPublic().getEncoded());
+        registrationResponse.setPublicKeyDilithium(dilithiumKeyPair.getPublic().getEncoded());
+        registrationResponse.setSignatureRSA(sign(rsaKeyPair.getPrivate(), "SHA256withRSA", registrationChallenge.getChallenge()));
+        registrationResponse.setSignatureDilithium(sign(dilithiumKeyPair.getPrivate(), "Dilithium", registrationChallenge.getChallenge()));
+        assertTrue(authService.finishRegistration(registrationResponse, username, false).isPresent());
+
+        AuthenticationChallengeDto loginChallenge = authService.startAuthentication(username);
+
+        // Neither the service nor the store's conflict path may replace the challenge once a credential exists
+        assertThrows(IllegalStateException.class, () -> authService.startRegistration(registrationRequest, false));
+        assertEquals(registrationChallenge.getUserid(),
+                credentialStore.insertUserIfAbsent(username, registrationRequest.getEmail(), "overwritten"));
+
+        AuthenticationResponseDto loginResponse = new AuthenticationResponseDto();
+        loginResponse.setSignatureRSA(sign(rsaKeyPair.getPrivate(), "SHA256withRSA", loginChallenge.getChallenge()));
+        loginResponse.setSignatureDilithium(sign(dilithiumKeyPair.getPrivate(), "Dilithium", loginChallenge.getChallenge()));
+        assertTrue(authService.finishAuthentication(loginResponse, username));
+
+        // The user themselves may still start registering another device
+        assertEquals(registrationChallenge.getUserid(), authService.startRegistration(registrationRequest, true).getUserid());
+    }
+
+    private static byte[] sign(PrivateKey key, String algorithm, String challenge) throws Exception {
+        Signature signer = Signature.getInstance(algorithm);
+        signer.initSign(key);
+        signer.update(challenge.getBytes(StandardCharsets.UTF_8));
+        return signer.sign();
+    }
+}
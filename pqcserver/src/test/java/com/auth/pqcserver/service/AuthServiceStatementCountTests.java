@@ -0,0 +1,111 @@
+package com.auth.pqcserver.service;
+
+import com.auth.pqcserver.dto.AuthenticationChallengeDto;
+import com.auth.pqcserver.dto.AuthenticationResponseDto;
+import com.auth.pqcserver.dto.RegistrationChallengeDto;
+import com.auth.pqcserver.dto.RegistrationRequestDto;
+import com.auth.pqcserver.dto.RegistrationResponseDto;
+import jakarta.persistence.EntityManagerFactory;
+import org.bouncycastle.pqc.jcajce.provider.BouncyCastlePQCProvider;
+import org.bouncycastle.pqc.jcajce.spec.DilithiumParameterSpec;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.Security;
+import java.security.Signature;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Uses Hibernate statistics to pin down the number of JDBC statements each auth operation issues. The
+ * write-behind flush is pushed out of the way, since a flush between two steps would be counted too and
+ * the verify path runs without JIT warm-up here.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "challenge-write-behind.flush-interval-ms=600000"
+})
+class AuthServiceStatementCountTests {
+
+    private static KeyPair rsaKeyPair;
+    private static KeyPair dilithiumKeyPair;
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @BeforeAll
+    static void generateKeys() throws Exception {
+        if (Security.getProvider("BCPQC") == null) {
+            Security.addProvider(new BouncyCastlePQCProvider());
+        }
+
+        KeyPairGenerator rsa = KeyPairGenerator.getInstance("RSA");
+        rsa.initialize(2048);
+        rsaKeyPair = rsa.generateKeyPair();
+
+        KeyPairGenerator dilithium = KeyPairGenerator.getInstance("Dilithium", "BCPQC");
+        dilithium.initialize(DilithiumParameterSpec.dilithium3);
+        dilithiumKeyPair = dilithium.generateKeyPair();
+    }
+
+    @Test
+    void eachAuthOperationUsesMinimalStatements() throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        String username = "stmt-" + UUID.randomUUID();
+
+        RegistrationRequestDto registrationRequest = new RegistrationRequestDto();
+        registrationRequest.setUsername(username);
+        registrationRequest.setEmail(username + "@example.com");
+        RegistrationChallengeDto registrationChallenge = authService.startRegistration(registrationRequest, false);
+
+        RegistrationResponseDto registrationResponse = new RegistrationResponseDto();
+        registrationResponse.setPublicKeyRSA(rsaKeyPair.getPublic().getEncoded());
+        registrationResponse.setPublicKeyDilithium(dilithiumKeyPair.getPublic().getEncoded());
+        registrationResponse.setSignatureRSA(sign(rsaKeyPair.getPrivate(), "SHA256withRSA", registrationChallenge.getChallenge()));
+        registrationResponse.setSignatureDilithium(sign(dilithiumKeyPair.getPrivate(), "Dilithium", registrationChallenge.getChallenge()));
+
+        statistics.clear();
+        assertTrue(authService.finishRegistration(registrationResponse, username, false).isPresent());
+        assertEquals(3, statistics.getPrepareStatementCount(), "finishRegistration: one lookup, one user row lock, one insert");
+
+        statistics.clear();
+        AuthenticationChallengeDto loginChallenge = authService.startAuthentication(username);
+        assertEquals(1, statistics.getPrepareStatementCount(), "startAuthentication: snapshot load, challenge queued");
+
+        AuthenticationResponseDto loginResponse = new AuthenticationResponseDto();
+        loginResponse.setSignatureRSA(sign(rsaKeyPair.getPrivate(), "SHA256withRSA", loginChallenge.getChallenge()));
+        loginResponse.setSignatureDilithium(sign(dilithiumKeyPair.getPrivate(), "Dilithium", loginChallenge.getChallenge()));
+
+        statistics.clear();
+        assertTrue(authService.finishAuthentication(loginResponse, username));
+        assertEquals(0, statistics.getPrepareStatementCount(), "finishAuthentication: cached keys, queued challenge");
+
+        statistics.clear();
+        assertEquals(username, authService.getUserCredentials(username).getUsername());
+        assertEquals(0, statistics.getPrepareStatementCount(), "getUserCredentials: served from cache");
+
+        statistics.clear();
+        authService.startAuthentication(username);
+        assertEquals(0, statistics.getPrepareStatementCount(), "startAuthentication (warm): challenge queued");
+    }
+
+    private static byte[] sign(PrivateKey key, String algorithm, String challenge) throws Exception {
+        Signature signer = Signature.getInstance(algorithm);
+        signer.initSign(key);
+        signer.update(challenge.getBytes(StandardCharsets.UTF_8));
+        return signer.sign();
+    }
+}
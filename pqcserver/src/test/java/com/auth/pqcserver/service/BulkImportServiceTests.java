@@ -0,0 +1,199 @@
+package com.auth.pqcserver.service;
+
+import com.auth.pqcserver.dto.ExportedUserDto;
+import com.auth.pqcserver.dto.ImportProgressDto;
+import com.auth.pqcserver.dto.UserCredentialDto;
+import com.auth.pqcserver.repository.projection.CredentialFingerprint;
+import com.auth.pqcserver.store.CredentialStore;
+import com.auth.pqcserver.store.ExportedUser;
+import com.auth.pqcserver.store.InMemoryCredentialStore;
+import com.auth.pqcserver.utils.SecurityUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.bouncycastle.pqc.jcajce.provider.BouncyCastlePQCProvider;
+import org.bouncycastle.pqc.jcajce.spec.DilithiumParameterSpec;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPairGenerator;
+import java.security.Security;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Feeds the NDJSON export back into the import: users must come back with every credential and its ID.
+ */
+@SpringBootTest
+class BulkImportServiceTests {
+
+    private static final int MAX_CREDENTIALS_PER_USER = 2;
+
+    private static byte[][] publicKeysRSA;
+    private static byte[][] publicKeysDilithium;
+
+    @Autowired
+    private CredentialStore credentialStore;
+
+    @Autowired
+    private ExportService exportService;
+
+    @Autowired
+    private UsernameFilter usernameFilter;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeAll
+    static void generateKeys() throws Exception {
+        if (Security.getProvider("BCPQC") == null) {
+            Security.addProvider(new BouncyCastlePQCProvider());
+        }
+
+        KeyPairGenerator rsa = KeyPairGenerator.getInstance("RSA");
+        rsa.initialize(2048);
+        KeyPairGenerator dilithium = KeyPairGenerator.getInstance("Dilithium", "BCPQC");
+        dilithium.initialize(DilithiumParameterSpec.dilithium3);
+
+        publicKeysRSA = new byte[2][];
+        publicKeysDilithium = new byte[2][];
+        for (int i = 0; i < 2; i++) {
+            publicKeysRSA[i] = rsa.generateKeyPair().getPublic().getEncoded();
+            publicKeysDilithium[i] = dilithium.generateKeyPair().getPublic().getEncoded();
+        }
+    }
+
+    @Test
+    void importsExportedUsersWithAllCredentials() throws Exception {
+        String username = "export-" + UUID.randomUUID();
+        Long userId = credentialStore.insertUserIfAbsent(username, username + "@example.com", null);
+        long[] credentialIds = {SecurityUtils.generateCredentialId(), SecurityUtils.generateCredentialId()};
+        for (int i = 0; i < 2; i++) {
+            assertTrue(credentialStore.insertCredential(username, userId, credentialIds[i],
+                    publicKeysDilithium[i], publicKeysRSA[i], SecurityUtils.fingerprint(publicKeysDilithium[i]),
+                    SecurityUtils.fingerprint(publicKeysRSA[i]), 10));
+        }
+
+        ByteArrayOutputStream export = new ByteArrayOutputStream();
+        exportService.export(export, ExportService.Format.NDJSON, false, null);
+        String line = export.toString(StandardCharsets.UTF_8).lines()
+                .filter(exported -> exported.contains("\"" + username + "\""))
+                .findFirst()
+                .orElseThrow();
+
+        InMemoryCredentialStore target = new InMemoryCredentialStore(false, 0, 16);
+        ImportProgressDto summary = importInto(target, line);
+        assertEquals(1, summary.getImported(), summary.toString());
+
+        List<ExportedUser> imported = exportAll(target);
+        assertEquals(1, imported.size());
+        assertEquals(username + "@example.com", imported.get(0).email());
+        assertEquals(2, imported.get(0).credentials().size());
+        for (ExportedUser.ExportedCredential credential : imported.get(0).credentials()) {
+            int i = credential.credentialId() == credentialIds[0] ? 0 : 1;
+            assertEquals(credentialIds[i], credential.credentialId());
+            assertArrayEquals(publicKeysRSA[i], credential.publicKeyRSA());
+            assertArrayEquals(publicKeysDilithium[i], credential.publicKeyDilithium());
+        }
+
+        // Under another name the same credential IDs are taken, so the row is rejected as a whole
+        String renamed = line.replace(username, "renamed-" + UUID.randomUUID());
+        ImportProgressDto conflict = importInto(target, renamed);
+        assertEquals(0, conflict.getImported());
+        assertEquals(1, conflict.getFailed());
+        assertEquals(1, exportAll(target).size());
+    }
+
+    @Test
+    void databaseStoreKeepsEveryCredential() throws Exception {
+        String username = "import-" + UUID.randomUUID();
+        List<ExportedUser.ExportedCredential> credentials = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            credentials.add(new ExportedUser.ExportedCredential(SecurityUtils.generateCredentialId(),
+                    publicKeysDilithium[i], publicKeysRSA[i]));
+        }
+        String line = objectMapper.writeValueAsString(new ExportedUserDto(new ExportedUser(username, null, credentials)));
+
+        assertEquals(1, importInto(credentialStore, line).getImported());
+        assertEquals(credentials.stream().map(ExportedUser.ExportedCredential::credentialId).sorted().toList(),
+                credentialStore.findFingerprints(username).stream().map(CredentialFingerprint::credentialId).sorted().toList());
+    }
+
+    @Test
+    void stillImportsSingleCredentialLines() throws Exception {
+        String username = "single-" + UUID.randomUUID();
+        String line = objectMapper.writeValueAsString(
+                new UserCredentialDto(username, null, publicKeysRSA[0], publicKeysDilithium[0]));
+
+        InMemoryCredentialStore target = new InMemoryCredentialStore(false, 0, 16);
+        assertEquals(1, importInto(target, line).getImported());
+
+        List<ExportedUser> imported = exportAll(target);
+        assertEquals(1, imported.get(0).credentials().size());
+        assertArrayEquals(publicKeysRSA[0], imported.get(0).credentials().get(0).publicKeyRSA());
+    }
+
+    @Test
+    void rejectsCredentialIdsRegistrationWouldNeverIssue() throws Exception {
+        InMemoryCredentialStore target = new InMemoryCredentialStore(false, 0, 16);
+        for (long credentialId : new long[]{0, -1, Long.MIN_VALUE}) {
+            String line = objectMapper.writeValueAsString(new ExportedUserDto(new ExportedUser("bad-id-" + UUID.randomUUID(),
+                    null, List.of(new ExportedUser.ExportedCredential(credentialId, publicKeysDilithium[0], publicKeysRSA[0])))));
+
+            ByteArrayOutputStream report = new ByteArrayOutputStream();
+            ImportProgressDto summary = importInto(target, line, report);
+            assertEquals(1, summary.getFailed(), String.valueOf(credentialId));
+            assertTrue(report.toString(StandardCharsets.UTF_8).contains("Invalid credential ID"));
+        }
+        assertEquals(0, exportAll(target).size());
+    }
+
+    @Test
+    void rejectsUsersOverTheCredentialLimit() throws Exception {
+        List<ExportedUser.ExportedCredential> credentials = new ArrayList<>();
+        for (int i = 0; i <= MAX_CREDENTIALS_PER_USER; i++) {
+            credentials.add(new ExportedUser.ExportedCredential(SecurityUtils.generateCredentialId(),
+                    publicKeysDilithium[i % 2], publicKeysRSA[i % 2]));
+        }
+        String line = objectMapper.writeValueAsString(
+                new ExportedUserDto(new ExportedUser("too-many-" + UUID.randomUUID(), null, credentials)));
+
+        InMemoryCredentialStore target = new InMemoryCredentialStore(false, 0, 16);
+        ByteArrayOutputStream report = new ByteArrayOutputStream();
+        ImportProgressDto summary = importInto(target, line, report);
+        assertEquals(0, summary.getImported());
+        assertEquals(1, summary.getFailed());
+        assertTrue(report.toString(StandardCharsets.UTF_8).contains("More than " + MAX_CREDENTIALS_PER_USER + " credentials"));
+        assertEquals(0, exportAll(target).size());
+    }
+
+    private ImportProgressDto importInto(CredentialStore target, String ndjson) throws Exception {
+        return importInto(target, ndjson, new ByteArrayOutputStream());
+    }
+
+    private ImportProgressDto importInto(CredentialStore target, String ndjson, ByteArrayOutputStream report)
+            throws Exception {
+        BulkImportService importService = new BulkImportService(target, usernameFilter, objectMapper, 100, 2, 65536,
+                MAX_CREDENTIALS_PER_USER);
+        try {
+            return importService.importUsers(new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)),
+                    report);
+        } finally {
+            importService.shutdown();
+        }
+    }
+
+    private static List<ExportedUser> exportAll(CredentialStore store) {
+        List<ExportedUser> users = new ArrayList<>();
+        store.forEachExportedUser(null, 100, users::add);
+        return users;
+    }
+}
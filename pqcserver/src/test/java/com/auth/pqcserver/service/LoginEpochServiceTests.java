@@ -0,0 +1,110 @@
+package com.auth.pqcserver.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Replay protection of one-round-trip logins, driven by a fake clock.
+ */
+class LoginEpochServiceTests {
+
+    private static final long SKEW_MILLIS = 30_000;
+    private static final String USERNAME = "alice";
+    private static final String RANDOM = "AAAAAAAAAAAAAAAAAAAAAA";
+
+    private final AtomicLong clock = new AtomicLong(1_700_000_000_000L);
+
+    @Test
+    void rejectsReplayWithinTwiceTheSkew() {
+        LoginEpochService service = service(100);
+
+        // Recorded late in a generation, so the key has to survive a rotation
+        clock.addAndGet(2 * SKEW_MILLIS - 1);
+        assertTrue(service.markSeen(USERNAME, RANDOM));
+
+        long recordedAt = clock.get();
+        for (long elapsed : new long[]{1, SKEW_MILLIS, 2 * SKEW_MILLIS}) {
+            clock.set(recordedAt + elapsed);
+            assertTrue(service.wasSeen(USERNAME, RANDOM), "after " + elapsed + " ms");
+            assertFalse(service.markSeen(USERNAME, RANDOM), "after " + elapsed + " ms");
+        }
+
+        // The same random for another user is a different message
+        assertTrue(service.markSeen("bob", RANDOM));
+    }
+
+    @Test
+    void forgetsEverythingAfterAnIdlePeriod() {
+        LoginEpochService service = service(100);
+        assertTrue(service.markSeen(USERNAME, RANDOM));
+
+        // Idle for more than one but less than two generations: the old generation is still kept
+        clock.addAndGet(3 * SKEW_MILLIS);
+        assertTrue(service.wasSeen(USERNAME, RANDOM));
+
+        // Idle for longer than two generations: both are dropped on the next access
+        clock.addAndGet(10 * SKEW_MILLIS);
+        assertFalse(service.wasSeen(USERNAME, RANDOM));
+        assertTrue(service.markSeen(USERNAME, RANDOM));
+        assertFalse(service.markSeen(USERNAME, RANDOM));
+    }
+
+    @Test
+    void refusesLoginsWhileTheSetIsFull() {
+        LoginEpochService service = service(2);
+        assertTrue(service.markSeen(USERNAME, "first"));
+        assertTrue(service.markSeen(USERNAME, "second"));
+
+        assertFalse(service.markSeen(USERNAME, "third"));
+        assertFalse(service.wasSeen(USERNAME, "third"));
+
+        // The next generation has room again, while the full one is still checked for replays
+        clock.addAndGet(2 * SKEW_MILLIS);
+        assertTrue(service.markSeen(USERNAME, "third"));
+        assertFalse(service.markSeen(USERNAME, "first"));
+    }
+
+    @Test
+    void concurrentMarkSeenWithTheSameKeyHasOneWinner() throws Exception {
+        int threads = 16;
+        LoginEpochService service = service(10_000);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int round = 0; round < 200; round++) {
+                String random = RANDOM + round;
+                CyclicBarrier barrier = new CyclicBarrier(threads);
+                List<Future<Boolean>> attempts = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    attempts.add(executor.submit(() -> {
+                        barrier.await();
+                        return service.markSeen(USERNAME, random);
+                    }));
+                }
+
+                int winners = 0;
+                for (Future<Boolean> attempt : attempts) {
+                    if (attempt.get()) winners++;
+                }
+                assertEquals(1, winners, random);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private LoginEpochService service(int seenSetCapacity) {
+        return new LoginEpochService(true, 60, SKEW_MILLIS / 1000, seenSetCapacity,
+                "test-secret-test-secret-test-secret", clock::get);
+    }
+}
@@ -0,0 +1,71 @@
+package com.auth.pqcserver.service;
+
+import com.auth.pqcserver.dto.PuzzleDto;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * A solved puzzle unlocks exactly one authentication attempt, for the user it was issued to.
+ */
+class PuzzleServiceTests {
+
+    private static final int DIFFICULTY = 4;
+
+    @Test
+    void solutionIsAcceptedOnce() throws Exception {
+        PuzzleService puzzles = overloadedService(100);
+        PuzzleDto puzzle = solve(puzzles.issue("alice"));
+
+        assertFalse(puzzles.verify(puzzle, "bob"));
+        assertTrue(puzzles.verify(puzzle, "alice"));
+        assertTrue(puzzles.markUsed(puzzle));
+        assertFalse(puzzles.verify(puzzle, "alice"));
+        assertFalse(puzzles.markUsed(puzzle));
+    }
+
+    @Test
+    void failedLoginsDoNotUseUpTheSeenSet() throws Exception {
+        PuzzleService puzzles = overloadedService(1);
+
+        // Checked solutions whose signatures never verified are not recorded
+        for (int i = 0; i < 3; i++) {
+            assertTrue(puzzles.verify(solve(puzzles.issue("mallory")), "mallory"));
+        }
+
+        PuzzleDto puzzle = solve(puzzles.issue("alice"));
+        assertTrue(puzzles.verify(puzzle, "alice"));
+        assertTrue(puzzles.markUsed(puzzle));
+    }
+
+    @Test
+    void refusesSolutionsWhileSeenSetIsFull() throws Exception {
+        PuzzleService puzzles = overloadedService(1);
+
+        assertTrue(puzzles.markUsed(solve(puzzles.issue("alice"))));
+        assertFalse(puzzles.markUsed(solve(puzzles.issue("alice"))));
+    }
+
+    private static PuzzleService overloadedService(int seenSetCapacity) {
+        PuzzleService puzzles = new PuzzleService(true, 0.0, DIFFICULTY, DIFFICULTY, 1, 60, seenSetCapacity);
+        puzzles.verificationStarted();
+        return puzzles;
+    }
+
+    private static PuzzleDto solve(PuzzleDto puzzle) throws Exception {
+        assertNotNull(puzzle);
+        MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+        for (long candidate = 0; ; candidate++) {
+            byte[] hash = sha256.digest((puzzle.getSeed() + ":" + candidate).getBytes(StandardCharsets.UTF_8));
+            if ((hash[0] & 0xFF) >>> (8 - DIFFICULTY) == 0) {
+                puzzle.setSolution(String.valueOf(candidate));
+                return puzzle;
+            }
+        }
+    }
+}
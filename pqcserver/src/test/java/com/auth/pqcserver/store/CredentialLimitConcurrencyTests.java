@@ -0,0 +1,83 @@
+package com.auth.pqcserver.store;
+
+import com.auth.pqcserver.config.ShardingProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Races several first-credential inserts for the same user against each other: with a limit of 1 exactly
+ * one may win, for every store that enforces the limit in the database.
+ */
+@SpringBootTest
+class CredentialLimitConcurrencyTests {
+
+    private static final int USERS = 50;
+    private static final int THREADS = 8;
+
+    @Autowired
+    private CredentialStore credentialStore;
+
+    @Test
+    void jpaStoreStoresOneFirstCredential() throws Exception {
+        assertOneWinnerPerUser(credentialStore);
+    }
+
+    @Test
+    void shardedStoreStoresOneFirstCredential() throws Exception {
+        ShardingProperties.Shard shard = new ShardingProperties.Shard();
+        shard.setId(1);
+        shard.setUrl("jdbc:h2:mem:credential-limit-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        ShardingProperties properties = new ShardingProperties();
+        properties.getShards().put("shard0", shard);
+        properties.setRing(List.of("shard0"));
+
+        ShardedCredentialStore store = new ShardedCredentialStore(properties, true, 500, 200, 50000);
+        try {
+            assertOneWinnerPerUser(store);
+        } finally {
+            store.close();
+        }
+    }
+
+    private static void assertOneWinnerPerUser(CredentialStore store) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (int i = 0; i < USERS; i++) {
+                String username = "limit-" + UUID.randomUUID();
+                Long userId = store.insertUserIfAbsent(username, null, "challenge");
+
+                CyclicBarrier barrier = new CyclicBarrier(THREADS);
+                List<Future<Boolean>> inserts = new ArrayList<>();
+                for (int t = 0; t < THREADS; t++) {
+                    long credentialId = ThreadLocalRandom.current().nextLong();
+                    inserts.add(executor.submit(() -> {
+                        barrier.await();
+                        return store.insertCredential(username, userId, credentialId,
+                                new byte[]{1}, new byte[]{2}, new byte[]{3}, new byte[]{4}, 1);
+                    }));
+                }
+
+                int stored = 0;
+                for (Future<Boolean> insert : inserts) {
+                    if (insert.get()) stored++;
+                }
+                assertEquals(1, stored, username);
+                assertEquals(1, store.findFingerprints(username).size(), username);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.auth.pqcserver.store;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * Recovery of the {@link SegmentLog} from torn and corrupt tails, and replay across segment boundaries.
+ */
+class SegmentLogTests {
+
+    private static final int SEGMENT_SIZE = 256;
+    private static final Path FIRST_SEGMENT = Path.of("segment-00000001.log");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void replaysRecordsInOrderAcrossSegments() {
+        List<String> written = new ArrayList<>();
+        List<Long> positions = new ArrayList<>();
+        try (SegmentLog log = open()) {
+            log.scan((position, payload) -> {});
+            // 36-byte payloads: five records fill 220 of 256 bytes, the sixth rolls over
+            for (int i = 0; i < 12; i++) {
+                String record = String.format("record-%02d", i).repeat(4);
+                written.add(record);
+                positions.add(log.append(payload(record)));
+            }
+            assertEquals(3, log.segmentCount());
+        }
+
+        List<String> replayed = new ArrayList<>();
+        List<Long> replayedPositions = new ArrayList<>();
+        try (SegmentLog log = open()) {
+            log.scan((position, payload) -> {
+                replayed.add(text(payload));
+                replayedPositions.add(position);
+            });
+            assertEquals(written, replayed);
+            assertEquals(positions, replayedPositions);
+            assertEquals(2, SegmentLog.segmentOf(positions.get(5)));
+            assertEquals(0, SegmentLog.offsetOf(positions.get(5)));
+
+            // The writer continues in the last segment, after its last record
+            long next = log.append(payload("next"));
+            assertEquals(3, SegmentLog.segmentOf(next));
+            assertEquals(2 * (SegmentLog.HEADER_BYTES + 36), SegmentLog.offsetOf(next));
+        }
+    }
+
+    @Test
+    void truncatesTornTailAtLastGoodRecord() throws IOException {
+        long lastGood;
+        try (SegmentLog log = open()) {
+            log.scan((position, payload) -> {});
+            log.append(payload("first"));
+            lastGood = log.append(payload("second"));
+            long torn = log.append(payload("third"));
+
+            // A crash after the length was written but before the payload was complete
+            try (RandomAccessFile file = new RandomAccessFile(directory.resolve(FIRST_SEGMENT).toFile(), "rw")) {
+                file.seek(SegmentLog.offsetOf(torn) + SegmentLog.HEADER_BYTES);
+                file.write(new byte[5]);
+            }
+        }
+
+        assertRecoversTo(List.of("first", "second"), lastGood);
+    }
+
+    @Test
+    void truncatesCrcCorruptTailAtLastGoodRecord() throws IOException {
+        long lastGood;
+        try (SegmentLog log = open()) {
+            log.scan((position, payload) -> {});
+            lastGood = log.append(payload("first"));
+            long corrupt = log.append(payload("second"));
+            log.append(payload("third"));
+
+            try (RandomAccessFile file = new RandomAccessFile(directory.resolve(FIRST_SEGMENT).toFile(), "rw")) {
+                file.seek(SegmentLog.offsetOf(corrupt) + 4);
+                file.writeInt(0xBADC0DE);
+            }
+        }
+
+        // Everything after the corrupt record is discarded, including the intact "third"
+        assertRecoversTo(List.of("first"), lastGood);
+    }
+
+    @Test
+    void stopsAtCorruptRecordInOlderSegmentOnly() throws IOException {
+        long corrupt;
+        try (SegmentLog log = open()) {
+            log.scan((position, payload) -> {});
+            log.append(payload("a".repeat(40)));
+            corrupt = log.append(payload("b".repeat(40)));
+            log.append(payload("c".repeat(40)));
+            log.roll();
+            log.append(payload("d".repeat(40)));
+        }
+        try (RandomAccessFile file = new RandomAccessFile(directory.resolve(FIRST_SEGMENT).toFile(), "rw")) {
+            file.seek(SegmentLog.offsetOf(corrupt) + 4);
+            file.writeInt(0xBADC0DE);
+        }
+
+        List<String> replayed = new ArrayList<>();
+        try (SegmentLog log = open()) {
+            log.scan((position, payload) -> replayed.add(text(payload)));
+        }
+        assertEquals(List.of("a".repeat(40), "d".repeat(40)), replayed);
+    }
+
+    @Test
+    void keepsSegmentsWrittenWithLargerSize() throws IOException {
+        List<String> written = new ArrayList<>();
+        try (SegmentLog log = new SegmentLog(directory, 4 * SEGMENT_SIZE, false)) {
+            log.scan((position, payload) -> {});
+            for (int i = 0; i < 20; i++) {
+                written.add("record-" + i);
+                log.append(payload("record-" + i));
+            }
+        }
+        long originalSize = Files.size(directory.resolve(FIRST_SEGMENT));
+
+        List<String> replayed = new ArrayList<>();
+        try (SegmentLog log = new SegmentLog(directory, SEGMENT_SIZE, false)) {
+            log.scan((position, payload) -> replayed.add(text(payload)));
+            assertEquals(written, replayed);
+
+            // Appends fill the rest of the larger segment before a new, smaller one is started
+            long next = log.append(payload("after"));
+            assertEquals(1, SegmentLog.segmentOf(next));
+            assertNotEquals(0, SegmentLog.offsetOf(next));
+        }
+        assertEquals(originalSize, Files.size(directory.resolve(FIRST_SEGMENT)));
+    }
+
+    // ===== Helpers =====
+
+    private SegmentLog open() {
+        return new SegmentLog(directory, SEGMENT_SIZE, false);
+    }
+
+    private void assertRecoversTo(List<String> expected, long lastGood) {
+        List<String> replayed = new ArrayList<>();
+        try (SegmentLog log = open()) {
+            log.scan((position, payload) -> replayed.add(text(payload)));
+            assertEquals(expected, replayed);
+
+            // The next append overwrites the discarded tail, directly after the last good record
+            long next = log.append(payload("fourth"));
+            assertEquals(SegmentLog.offsetOf(lastGood) + SegmentLog.HEADER_BYTES + text(log.read(lastGood)).length(),
+                    SegmentLog.offsetOf(next));
+        }
+
+        List<String> reopened = new ArrayList<>();
+        try (SegmentLog log = open()) {
+            log.scan((position, payload) -> reopened.add(text(payload)));
+        }
+        List<String> withAppend = new ArrayList<>(expected);
+        withAppend.add("fourth");
+        assertEquals(withAppend, reopened);
+    }
+
+    private static ByteBuffer payload(String text) {
+        return ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String text(ByteBuffer payload) {
+        byte[] bytes = new byte[payload.remaining()];
+        payload.duplicate().get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
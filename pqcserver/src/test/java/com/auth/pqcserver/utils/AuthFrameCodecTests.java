@@ -0,0 +1,142 @@
+package com.auth.pqcserver.utils;
+
+import com.auth.pqcserver.dto.AuthenticationResponseDto;
+import com.auth.pqcserver.dto.DirectLoginRequestDto;
+import com.auth.pqcserver.dto.LoginEpochDto;
+import com.auth.pqcserver.dto.PuzzleDto;
+import com.auth.pqcserver.dto.RegistrationResponseDto;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Round trips through {@link AuthFrameCodec} and the errors for malformed frames.
+ */
+class AuthFrameCodecTests {
+
+    // Magic and version
+    private static final int HEADER_BYTES = 5;
+
+    @Test
+    void roundTripsEveryFieldKind() throws IOException {
+        PuzzleDto puzzle = new PuzzleDto("seed", 12, 1_700_000_000_000L, "mac");
+        puzzle.setSolution("solution");
+        AuthenticationResponseDto response = new AuthenticationResponseDto();
+        response.setSignatureRSA(bytes(256, 1));
+        response.setSignatureDilithium(bytes(3293, 2));
+        response.setUserid(42L);
+        response.setCredentialId(-7L);
+        response.setPuzzle(puzzle);
+        assertEquals(response, roundTrip(response));
+
+        DirectLoginRequestDto direct = new DirectLoginRequestDto();
+        direct.setEpoch(28_333_333L);
+        direct.setTimestamp(1_700_000_000_123L);
+        direct.setClientRandom("cmFuZG9tLXJhbmRvbS1yYW5kb20");
+        direct.setSignatureRSA(bytes(256, 3));
+        direct.setSignatureDilithium(bytes(3293, 4));
+        assertEquals(direct, roundTrip(direct));
+
+        LoginEpochDto epoch = new LoginEpochDto(28_333_333L, "nonce-é中", 1_700_000_040_000L, 30_000L);
+        assertEquals(epoch, roundTrip(epoch));
+    }
+
+    @Test
+    void roundTripsNullsAndEmptyValues() throws IOException {
+        RegistrationResponseDto registration = new RegistrationResponseDto();
+        registration.setPublicKeyRSA(new byte[0]);
+        registration.setSignatureRSA(bytes(256, 5));
+
+        RegistrationResponseDto decoded = roundTrip(registration);
+        assertEquals(registration, decoded);
+        assertEquals(0, decoded.getPublicKeyRSA().length);
+        assertNull(decoded.getPublicKeyDilithium());
+        assertNull(decoded.getUserid());
+
+        AuthenticationResponseDto response = new AuthenticationResponseDto();
+        assertEquals(response, roundTrip(response));
+    }
+
+    @Test
+    void rejectsEveryTruncation() throws IOException {
+        byte[] frame = encode(sampleResponse());
+        for (int length = 0; length < frame.length; length++) {
+            byte[] truncated = Arrays.copyOf(frame, length);
+            IOException e = assertThrows(IOException.class,
+                    () -> AuthFrameCodec.read(AuthenticationResponseDto.class, new ByteArrayInputStream(truncated)),
+                    "length " + length);
+            assertEquals("Truncated frame", e.getMessage(), "length " + length);
+        }
+    }
+
+    @Test
+    void rejectsTrailingBytes() throws IOException {
+        byte[] frame = encode(sampleResponse());
+        byte[] extended = Arrays.copyOf(frame, frame.length + 1);
+
+        IOException e = assertThrows(IOException.class,
+                () -> AuthFrameCodec.read(AuthenticationResponseDto.class, new ByteArrayInputStream(extended)));
+        assertEquals("Trailing bytes after frame", e.getMessage());
+    }
+
+    @Test
+    void rejectsBadHeaderAndOversizedFields() throws IOException {
+        byte[] frame = encode(sampleResponse());
+
+        byte[] badMagic = frame.clone();
+        badMagic[0] = 'X';
+        assertEquals("Not a PQC frame", readError(badMagic));
+
+        byte[] badVersion = frame.clone();
+        badVersion[4] = 2;
+        assertEquals("Unsupported frame version: 2", readError(badVersion));
+
+        // The RSA signature claims more bytes than any RSA signature may have
+        byte[] oversized = frame.clone();
+        ByteBuffer.wrap(oversized).putInt(HEADER_BYTES, SecurityUtils.MAX_RSA_BYTES + 1);
+        assertEquals("Invalid field length: " + (SecurityUtils.MAX_RSA_BYTES + 1), readError(oversized));
+    }
+
+    // ===== Helpers =====
+
+    private static AuthenticationResponseDto sampleResponse() {
+        AuthenticationResponseDto response = new AuthenticationResponseDto();
+        response.setSignatureRSA(bytes(256, 6));
+        response.setSignatureDilithium(bytes(64, 7));
+        response.setCredentialId(9L);
+        response.setPuzzle(new PuzzleDto("seed", 8, 1L, "mac"));
+        return response;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T roundTrip(T dto) throws IOException {
+        return (T) AuthFrameCodec.read(dto.getClass(), new ByteArrayInputStream(encode(dto)));
+    }
+
+    private static byte[] encode(Object dto) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        AuthFrameCodec.write(dto, out);
+        return out.toByteArray();
+    }
+
+    private static String readError(byte[] frame) {
+        return assertThrows(IOException.class,
+                () -> AuthFrameCodec.read(AuthenticationResponseDto.class, new ByteArrayInputStream(frame))).getMessage();
+    }
+
+    private static byte[] bytes(int length, int seed) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) (i * 31 + seed);
+        }
+        return bytes;
+    }
+}